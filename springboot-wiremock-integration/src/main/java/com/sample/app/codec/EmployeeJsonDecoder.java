@@ -0,0 +1,88 @@
+package com.sample.app.codec;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.sample.app.config.MediaTypes;
+import com.sample.app.model.Employee;
+import com.sample.app.model.EmployeeField;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Decodes {@link Employee}s without Jackson databind: no bean introspection,
+ * no reflective setter calls and no intermediate token buffer per element.
+ * Like {@link StreamingJackson2JsonDecoder} it decodes a body chunk by chunk,
+ * in order, and copies each chunk out of the network buffer on arrival.
+ * <p>
+ * Registered as a custom codec it takes precedence over the Jackson decoder
+ * for {@code Employee} only; every other type still goes through Jackson.
+ * Given a {@link #FIELDS_HINT}, it reads only those fields and skips the rest.
+ */
+public class EmployeeJsonDecoder extends AbstractDecoder<Employee> {
+
+	/**
+	 * Hint with the {@code Set<EmployeeField>} to decode; all fields without it.
+	 */
+	public static final String FIELDS_HINT = EmployeeJsonDecoder.class.getName() + ".fields";
+
+	private final JsonFactory jsonFactory;
+
+	public EmployeeJsonDecoder() {
+		this(new JsonFactory());
+	}
+
+	public EmployeeJsonDecoder(JsonFactory jsonFactory) {
+		super(MediaType.APPLICATION_JSON, MediaType.APPLICATION_STREAM_JSON, MediaTypes.APPLICATION_NDJSON);
+		this.jsonFactory = jsonFactory;
+	}
+
+	@Override
+	public boolean canDecode(ResolvableType elementType, @Nullable MimeType mimeType) {
+		return elementType.resolve() == Employee.class && super.canDecode(elementType, mimeType);
+	}
+
+	@Override
+	public Flux<Employee> decode(Publisher<DataBuffer> input, ResolvableType elementType, @Nullable MimeType mimeType,
+			@Nullable Map<String, Object> hints) {
+
+		@SuppressWarnings("unchecked")
+		Set<EmployeeField> fields = hints != null ? (Set<EmployeeField>) hints.get(FIELDS_HINT) : null;
+
+		return Flux.defer(() -> {
+			EmployeeTokenReader reader = fields != null ? new EmployeeTokenReader(jsonFactory, fields)
+					: new EmployeeTokenReader(jsonFactory);
+
+			return Flux.from(input).map(EmployeeJsonDecoder::drain).concatMapIterable(reader::read)
+					.concatWith(Flux.defer(() -> Flux.fromIterable(reader.endOfInput())));
+		});
+	}
+
+	@Override
+	public Mono<Employee> decodeToMono(Publisher<DataBuffer> input, ResolvableType elementType,
+			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+		return decode(input, elementType, mimeType, hints).singleOrEmpty();
+	}
+
+	private static byte[] drain(DataBuffer buffer) {
+		try {
+			byte[] bytes = new byte[buffer.readableByteCount()];
+			buffer.read(bytes);
+			return bytes;
+		} finally {
+			DataBufferUtils.release(buffer);
+		}
+	}
+
+}
@@ -0,0 +1,126 @@
+package com.sample.app.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractEncoder;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.sample.app.config.MediaTypes;
+import com.sample.app.model.Employee;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Writes {@link Employee}s with a {@link JsonGenerator} directly into the
+ * outgoing buffers, with field names pre-encoded once. A single employee is
+ * written as an object, a stream of them as a JSON array, or one object per
+ * line for the streaming media types.
+ */
+public class EmployeeJsonEncoder extends AbstractEncoder<Employee> {
+
+	private static final SerializableString ID = new SerializedString("id");
+
+	private static final SerializableString FIRST_NAME = new SerializedString("firstName");
+
+	private static final SerializableString LAST_NAME = new SerializedString("lastName");
+
+	private static final byte[] START_ARRAY = { '[' };
+
+	private static final byte[] SEPARATOR = { ',' };
+
+	private static final byte[] END_ARRAY = { ']' };
+
+	private static final byte[] NEWLINE = { '\n' };
+
+	private final JsonFactory jsonFactory;
+
+	public EmployeeJsonEncoder() {
+		this(new JsonFactory());
+	}
+
+	/**
+	 * The factory is copied so that closing a generator leaves the buffer open
+	 * for whatever follows the object.
+	 */
+	public EmployeeJsonEncoder(JsonFactory jsonFactory) {
+		super(MediaType.APPLICATION_JSON, MediaType.APPLICATION_STREAM_JSON, MediaTypes.APPLICATION_NDJSON);
+		this.jsonFactory = jsonFactory.copy().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+	}
+
+	@Override
+	public boolean canEncode(ResolvableType elementType, @Nullable MimeType mimeType) {
+		Class<?> type = elementType.resolve();
+		return type != null && Employee.class.isAssignableFrom(type) && super.canEncode(elementType, mimeType);
+	}
+
+	@Override
+	public Flux<DataBuffer> encode(Publisher<? extends Employee> input, DataBufferFactory bufferFactory,
+			ResolvableType elementType, @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+
+		if (input instanceof Mono) {
+			return Mono.from(input).map(emp -> write(emp, bufferFactory, null, null)).flux();
+		}
+		if (isStreaming(mimeType)) {
+			return Flux.from(input).map(emp -> write(emp, bufferFactory, null, NEWLINE));
+		}
+		return Flux.from(input).index()
+				.map(indexed -> write(indexed.getT2(), bufferFactory, indexed.getT1() == 0 ? START_ARRAY : SEPARATOR,
+						null))
+				.switchIfEmpty(Mono.fromSupplier(() -> bufferFactory.wrap(START_ARRAY)))
+				.concatWith(Mono.fromSupplier(() -> bufferFactory.wrap(END_ARRAY)));
+	}
+
+	private static boolean isStreaming(@Nullable MimeType mimeType) {
+		return mimeType != null && (MediaType.APPLICATION_STREAM_JSON.isCompatibleWith(mimeType)
+				|| MediaTypes.APPLICATION_NDJSON.isCompatibleWith(mimeType));
+	}
+
+	private DataBuffer write(Employee emp, DataBufferFactory bufferFactory, @Nullable byte[] prefix,
+			@Nullable byte[] suffix) {
+		DataBuffer buffer = bufferFactory.allocateBuffer();
+		boolean written = false;
+		try {
+			OutputStream out = buffer.asOutputStream();
+			if (prefix != null) {
+				out.write(prefix);
+			}
+			try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+				generator.writeStartObject();
+				generator.writeFieldName(ID);
+				generator.writeNumber(emp.getId());
+				generator.writeFieldName(FIRST_NAME);
+				generator.writeString(emp.getFirstName());
+				generator.writeFieldName(LAST_NAME);
+				generator.writeString(emp.getLastName());
+				generator.writeEndObject();
+			}
+			if (suffix != null) {
+				out.write(suffix);
+			}
+			written = true;
+			return buffer;
+		} catch (IOException e) {
+			throw new EncodingException("JSON encoding error: " + e.getMessage(), e);
+		} finally {
+			if (!written) {
+				DataBufferUtils.release(buffer);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,178 @@
+package com.sample.app.codec;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.core.codec.DecodingException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.sample.app.model.Employee;
+import com.sample.app.model.EmployeeField;
+
+/**
+ * Builds {@link Employee}s straight from the tokens of Jackson's non-blocking
+ * parser. A top-level array is unwrapped; concatenated or newline delimited
+ * objects are read as they are. Unknown fields, and fields not asked for,
+ * are skipped without their values being turned into strings or numbers.
+ * <p>
+ * The parser interns field names, so the known ones are matched by identity
+ * and {@link String#equals} only runs for fields that are skipped anyway.
+ * Instances are stateful and must be fed serially.
+ */
+class EmployeeTokenReader {
+
+	private static final String ID = "id";
+
+	private static final String FIRST_NAME = "firstName";
+
+	private static final String LAST_NAME = "lastName";
+
+	private final JsonParser parser;
+
+	private final ByteArrayFeeder feeder;
+
+	private final boolean withId;
+
+	private final boolean withFirstName;
+
+	private final boolean withLastName;
+
+	private boolean topLevelArray;
+
+	private Employee employee;
+
+	private String field;
+
+	private int skipDepth;
+
+	EmployeeTokenReader(JsonFactory jsonFactory) {
+		this(jsonFactory, EnumSet.allOf(EmployeeField.class));
+	}
+
+	EmployeeTokenReader(JsonFactory jsonFactory, Set<EmployeeField> fields) {
+		this.withId = fields.contains(EmployeeField.ID);
+		this.withFirstName = fields.contains(EmployeeField.FIRST_NAME);
+		this.withLastName = fields.contains(EmployeeField.LAST_NAME);
+		try {
+			this.parser = jsonFactory.createNonBlockingByteArrayParser();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+	}
+
+	List<Employee> read(byte[] bytes) {
+		try {
+			feeder.feedInput(bytes, 0, bytes.length);
+			return parseEmployees();
+		} catch (IOException e) {
+			throw JsonElementTokenizer.toDecodingException(e);
+		}
+	}
+
+	List<Employee> endOfInput() {
+		feeder.endOfInput();
+		try {
+			List<Employee> employees = parseEmployees();
+			if (employee != null || topLevelArray) {
+				throw new DecodingException("JSON decoding error: unexpected end of input");
+			}
+			return employees;
+		} catch (IOException e) {
+			throw JsonElementTokenizer.toDecodingException(e);
+		}
+	}
+
+	private List<Employee> parseEmployees() throws IOException {
+		List<Employee> result = Collections.emptyList();
+
+		JsonToken token;
+		while ((token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+			if (skipDepth > 0) {
+				if (token.isStructStart()) {
+					skipDepth++;
+				} else if (token.isStructEnd()) {
+					skipDepth--;
+				}
+			} else if (employee == null) {
+				startEmployee(token);
+			} else if (token == JsonToken.FIELD_NAME) {
+				field = parser.getCurrentName();
+			} else if (token == JsonToken.END_OBJECT) {
+				if (result.isEmpty()) {
+					result = new ArrayList<>();
+				}
+				result.add(employee);
+				employee = null;
+			} else {
+				readField(token);
+			}
+		}
+
+		return result;
+	}
+
+	private void startEmployee(JsonToken token) {
+		if (token == JsonToken.START_OBJECT) {
+			employee = new Employee();
+		} else if (token == JsonToken.START_ARRAY && !topLevelArray) {
+			topLevelArray = true;
+		} else if (token == JsonToken.END_ARRAY && topLevelArray) {
+			topLevelArray = false;
+		} else {
+			throw new DecodingException("JSON decoding error: expected an employee object but found " + token);
+		}
+	}
+
+	private void readField(JsonToken token) throws IOException {
+		String name = field;
+		if (withId && (name == ID || ID.equals(name))) {
+			employee.setId(readId(token));
+		} else if (withFirstName && (name == FIRST_NAME || FIRST_NAME.equals(name))) {
+			employee.setFirstName(readText(token));
+		} else if (withLastName && (name == LAST_NAME || LAST_NAME.equals(name))) {
+			employee.setLastName(readText(token));
+		} else if (token.isStructStart()) {
+			skipDepth = 1;
+		}
+	}
+
+	/**
+	 * Accepts the id as a number or as a numeric string, as Jackson databind
+	 * does.
+	 */
+	private int readId(JsonToken token) throws IOException {
+		if (token == JsonToken.VALUE_NUMBER_INT) {
+			return parser.getIntValue();
+		}
+		if (token == JsonToken.VALUE_STRING) {
+			try {
+				return Integer.parseInt(parser.getText().trim());
+			} catch (NumberFormatException e) {
+				throw new DecodingException("JSON decoding error: id is not a number: " + parser.getText(), e);
+			}
+		}
+		if (token == JsonToken.VALUE_NULL) {
+			return 0;
+		}
+		throw new DecodingException("JSON decoding error: unexpected " + token + " for id");
+	}
+
+	private String readText(JsonToken token) throws IOException {
+		if (token == JsonToken.VALUE_NULL) {
+			return null;
+		}
+		if (token.isScalarValue()) {
+			return parser.getText();
+		}
+		throw new DecodingException("JSON decoding error: unexpected " + token + " for " + field);
+	}
+
+}
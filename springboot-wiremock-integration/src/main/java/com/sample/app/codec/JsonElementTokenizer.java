@@ -0,0 +1,108 @@
+package com.sample.app.codec;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.core.codec.DecodingException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * Splits a byte stream into one {@link TokenBuffer} per top-level JSON value.
+ * A top-level array is unwrapped so that each of its elements becomes a value
+ * of its own; concatenated or newline delimited values are split as they are.
+ * <p>
+ * Bytes are fed through Jackson's non-blocking parser, so a value may span any
+ * number of chunks. Instances are stateful and must be fed serially.
+ */
+class JsonElementTokenizer {
+
+	private final JsonParser parser;
+
+	private final ByteArrayFeeder feeder;
+
+	private TokenBuffer tokenBuffer;
+
+	private int depth;
+
+	private boolean topLevelArray;
+
+	JsonElementTokenizer(JsonFactory jsonFactory) {
+		try {
+			this.parser = jsonFactory.createNonBlockingByteArrayParser();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+		this.tokenBuffer = new TokenBuffer(parser);
+	}
+
+	List<TokenBuffer> tokenize(byte[] bytes) {
+		try {
+			feeder.feedInput(bytes, 0, bytes.length);
+			return parseTokens();
+		} catch (IOException e) {
+			throw toDecodingException(e);
+		}
+	}
+
+	List<TokenBuffer> endOfInput() {
+		feeder.endOfInput();
+		try {
+			return parseTokens();
+		} catch (IOException e) {
+			throw toDecodingException(e);
+		}
+	}
+
+	private List<TokenBuffer> parseTokens() throws IOException {
+		List<TokenBuffer> result = Collections.emptyList();
+
+		JsonToken token;
+		while ((token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+			if (depth == 0 && token == JsonToken.START_ARRAY && !topLevelArray) {
+				topLevelArray = true;
+				depth = 1;
+				continue;
+			}
+			if (depth == 1 && token == JsonToken.END_ARRAY && topLevelArray) {
+				topLevelArray = false;
+				depth = 0;
+				continue;
+			}
+
+			tokenBuffer.copyCurrentEvent(parser);
+
+			if (token.isStructStart()) {
+				depth++;
+			} else if (token.isStructEnd()) {
+				depth--;
+			}
+
+			if (depth == (topLevelArray ? 1 : 0) && (token.isStructEnd() || token.isScalarValue())) {
+				if (result.isEmpty()) {
+					result = new ArrayList<>();
+				}
+				result.add(tokenBuffer);
+				tokenBuffer = new TokenBuffer(parser);
+			}
+		}
+
+		return result;
+	}
+
+	static DecodingException toDecodingException(IOException e) {
+		if (e instanceof JsonProcessingException) {
+			return new DecodingException("JSON decoding error: " + ((JsonProcessingException) e).getOriginalMessage(), e);
+		}
+		return new DecodingException("I/O error while parsing input stream", e);
+	}
+
+}
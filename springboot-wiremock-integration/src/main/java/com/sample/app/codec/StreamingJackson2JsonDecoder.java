@@ -0,0 +1,79 @@
+package com.sample.app.codec;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * {@link Jackson2JsonDecoder} whose {@code Flux} decoding keeps element order
+ * under bounded demand.
+ * <p>
+ * The stock decoder merges the tokens of consecutive body chunks with
+ * {@code flatMap}. As long as the subscriber requests everything that is fine,
+ * but a subscriber that requests in batches from its own thread, such as
+ * {@link Flux#toStream(int)}, sees elements out of order. This decoder
+ * tokenizes with {@code concatMapIterable} instead and copies each chunk out of
+ * the network buffer as soon as it arrives, so nothing pooled is held while
+ * waiting for demand.
+ */
+public class StreamingJackson2JsonDecoder extends Jackson2JsonDecoder {
+
+	public StreamingJackson2JsonDecoder(ObjectMapper mapper, MimeType... mimeTypes) {
+		super(mapper, mimeTypes);
+	}
+
+	@Override
+	public Flux<Object> decode(Publisher<DataBuffer> input, ResolvableType elementType, @Nullable MimeType mimeType,
+			@Nullable Map<String, Object> hints) {
+
+		return decodeInOrder(getObjectMapper(), input, elementType);
+	}
+
+	/**
+	 * Shared with {@link StreamingJackson2SmileDecoder}: the tokenizer works
+	 * with any format whose factory has a non-blocking parser.
+	 */
+	static Flux<Object> decodeInOrder(ObjectMapper mapper, Publisher<DataBuffer> input, ResolvableType elementType) {
+		ObjectReader reader = mapper.readerFor(mapper.constructType(elementType.getType()));
+
+		return Flux.defer(() -> {
+			JsonElementTokenizer tokenizer = new JsonElementTokenizer(mapper.getFactory());
+
+			return Flux.from(input).map(StreamingJackson2JsonDecoder::drain).concatMapIterable(tokenizer::tokenize)
+					.concatWith(Flux.defer(() -> Flux.fromIterable(tokenizer.endOfInput())));
+		}).map(tokens -> read(reader, tokens));
+	}
+
+	private static byte[] drain(DataBuffer buffer) {
+		try {
+			byte[] bytes = new byte[buffer.readableByteCount()];
+			buffer.read(bytes);
+			return bytes;
+		} finally {
+			DataBufferUtils.release(buffer);
+		}
+	}
+
+	private static Object read(ObjectReader reader, TokenBuffer tokens) {
+		try {
+			return reader.readValue(tokens.asParser(reader));
+		} catch (IOException e) {
+			throw new DecodingException("JSON decoding error: " + e.getMessage(), e);
+		}
+	}
+
+}
@@ -0,0 +1,43 @@
+package com.sample.app.codec;
+
+import java.util.Map;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * {@link Jackson2SmileDecoder} that keeps element order under bounded demand,
+ * the same way {@link StreamingJackson2JsonDecoder} does for JSON.
+ * <p>
+ * Spring registers its own Smile decoder whenever Smile is on the classpath
+ * and there is no way to replace it. Registered as a custom codec this one
+ * still comes first, because it declines to decode to a plain
+ * {@code Object} and so is ranked with the codecs for specific types.
+ */
+public class StreamingJackson2SmileDecoder extends Jackson2SmileDecoder {
+
+	public StreamingJackson2SmileDecoder(ObjectMapper mapper, MimeType... mimeTypes) {
+		super(mapper, mimeTypes);
+	}
+
+	@Override
+	public boolean canDecode(ResolvableType elementType, @Nullable MimeType mimeType) {
+		return elementType.resolve() != Object.class && super.canDecode(elementType, mimeType);
+	}
+
+	@Override
+	public Flux<Object> decode(Publisher<DataBuffer> input, ResolvableType elementType, @Nullable MimeType mimeType,
+			@Nullable Map<String, Object> hints) {
+
+		return StreamingJackson2JsonDecoder.decodeInOrder(getObjectMapper(), input, elementType);
+	}
+
+}
@@ -1,34 +1,282 @@
 package com.sample.app.config;
 
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import javax.net.ssl.SSLException;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ClientHttpConnector;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import com.sample.app.codec.EmployeeJsonDecoder;
+import com.sample.app.codec.EmployeeJsonEncoder;
+import com.sample.app.codec.StreamingJackson2JsonDecoder;
+import com.sample.app.codec.StreamingJackson2SmileDecoder;
+import com.sample.app.service.impl.AdaptiveConcurrencyLimiter;
+import com.sample.app.service.impl.CachingEmployeeService;
+import com.sample.app.service.impl.EmployeeClientMetrics;
+import com.sample.app.service.impl.OperationTimeouts;
+import com.sample.app.service.impl.ReactiveEmployeeRestClient;
+import com.sample.app.service.impl.ReplicaBalancer;
+import com.sample.app.service.impl.RequestBodyCompression;
+import com.sample.app.service.impl.SmileContentNegotiation;
+
 import io.netty.channel.ChannelOption;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslProvider;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.handler.timeout.WriteTimeoutHandler;
 import reactor.netty.http.client.HttpClient;
 import reactor.netty.tcp.TcpClient;
 
 @Configuration
+@EnableConfigurationProperties({ EmployeeCacheProperties.class, EmployeePoolProperties.class,
+		EmployeeHttp2Properties.class, EmployeeTimeoutProperties.class, EmployeeBulkheadProperties.class,
+		EmployeeNettyProperties.class, EmployeeTlsProperties.class })
 public class AppConfig {
 
-	@Value("${server.baseuri}")
-	private String baseURI;
+	@Value("${employee.client.codec:jackson}")
+	private String codec;
+
+	@Value("${employee.client.compression.enabled:false}")
+	private boolean compression;
+
+	@Value("${employee.client.compression.accept-encoding:gzip, deflate}")
+	private String acceptEncoding;
 
+	@Autowired
+	private EmployeeTlsProperties tlsProperties;
+
+	private SslContext sslContext;
+
+	/**
+	 * With {@code employee.client.http2.enabled} requests are multiplexed over
+	 * {@link EmployeeHttp2Transport}. The pool's queue limit is then left to
+	 * the transport, which counts waiting requests rather than requests in
+	 * flight. Otherwise, with {@code employee.client.bulkheads.enabled}, writes
+	 * and bulk calls go over {@link EmployeeBulkheads} pools of their own, and
+	 * {@link AdaptiveConcurrencyLimiter} keeps a limit for each of them. Over
+	 * HTTP/2 a slow call holds a stream rather than a connection, so there are
+	 * no bulkheads. Requests are spread over the replicas of
+	 * {@code server.baseuri} by {@link ReplicaBalancer}.
+	 */
 	@Bean
-	public WebClient webClient() {
-		TcpClient tcpClient = TcpClient.create().option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 3000)
-				.doOnConnected(conn -> {
-					conn.addHandlerLast(new ReadTimeoutHandler(3)).addHandlerLast(new WriteTimeoutHandler(3));
+	public WebClient webClient(ObjectProvider<EmployeeConnectionPool> connectionPools,
+			ObjectProvider<EmployeeHttp2Transport> http2, ObjectProvider<EmployeeBulkheads> bulkheads,
+			EmployeeClientMetrics metrics, AdaptiveConcurrencyLimiter limiter, SmileContentNegotiation smile,
+			RequestBodyCompression requestCompression, OperationTimeouts timeouts,
+			EmployeeTimeoutProperties timeoutProperties, ReplicaBalancer balancer,
+			ObjectProvider<EmployeeEventLoops> eventLoops) {
+		EmployeeHttp2Transport http2Transport = http2.getIfAvailable();
+		ExchangeStrategies strategies = exchangeStrategies();
+		WebClient.Builder builder = WebClient.builder();
+		ExchangeFilterFunction poolFilter;
+		ExchangeFilterFunction limiterFilter = limiter.filter();
+		if (http2Transport != null) {
+			builder.clientConnector(timeouts.instrument(http2Transport::getConnector));
+			poolFilter = (request, next) -> next.exchange(request);
+		} else {
+			EmployeeConnectionPool connectionPool = connectionPools.getObject();
+			Function<EmployeeConnectionPool, ClientHttpConnector> connectors = pool -> connector(pool, timeouts,
+					timeoutProperties, eventLoops.getObject());
+			builder.clientConnector(connectors.apply(connectionPool));
+			poolFilter = connectionPool.filter();
+			EmployeeBulkheads compartments = bulkheads.getIfAvailable();
+			if (compartments != null) {
+				poolFilter = compartments.filter(connectors, strategies).andThen(poolFilter);
+				limiterFilter = limiter.filter(operation -> {
+					EmployeeConnectionPool pool = compartments.poolOf(operation);
+					return pool != null ? pool.getName() : null;
 				});
+			}
+		}
 
-		WebClient webClient = WebClient.builder()
-				.clientConnector(new ReactorClientHttpConnector(HttpClient.from(tcpClient))).baseUrl(baseURI).build();
+		WebClient webClient = builder.filter(metrics.filter()).filter(limiterFilter).filter(timeouts.filter())
+				.filter(smile.filter()).filter(requestCompression.filter())
+				.filter(balancer.filter()).filter(poolFilter)
+				.defaultHeaders(this::acceptEncoding)
+				.exchangeStrategies(strategies).baseUrl(balancer.getBaseUri()).build();
 
 		return webClient;
 	}
 
+	private ClientHttpConnector connector(EmployeeConnectionPool pool, OperationTimeouts timeouts,
+			EmployeeTimeoutProperties timeoutProperties, EmployeeEventLoops eventLoops) {
+		long readMillis = timeoutProperties.getRead().toMillis();
+		long writeMillis = timeoutProperties.getWrite().toMillis();
+		TcpClient tcpClient = TcpClient.create(pool.getConnectionProvider())
+				.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) timeoutProperties.getConnect().toMillis())
+				.doOnConnected(conn -> {
+					conn.addHandlerLast(new ReadTimeoutHandler(readMillis, TimeUnit.MILLISECONDS))
+							.addHandlerLast(new WriteTimeoutHandler(writeMillis, TimeUnit.MILLISECONDS));
+				});
+		return new ReactorClientHttpConnector(
+				timeouts.instrument(pool.instrument(httpClient(eventLoops.apply(tcpClient)))));
+	}
+
+	/**
+	 * With {@code employee.client.compression.enabled} the client sends
+	 * {@code employee.client.compression.accept-encoding} and inflates gzip
+	 * and deflate responses chunk by chunk as they arrive. Reactor Netty
+	 * always advertises gzip alone, so the header is set on the
+	 * {@code WebClient}, whose headers win.
+	 */
+	private HttpClient httpClient(TcpClient tcpClient) {
+		return HttpClient.from(tcpClient).compress(compression).secure(spec -> spec.sslContext(sslContext()));
+	}
+
+	/**
+	 * The TLS settings of https base URIs, {@code employee.client.tls.*},
+	 * shared by all pools so that a new connection to a server resumes the
+	 * session of an earlier one instead of doing a full handshake. With
+	 * {@code provider=openssl} handshakes and encryption are done by OpenSSL
+	 * through netty-tcnative, when it is on the classpath, and by the JDK
+	 * otherwise.
+	 */
+	private SslContext sslContext() {
+		if (sslContext == null) {
+			SslContextBuilder builder = SslContextBuilder.forClient()
+					.sessionCacheSize(tlsProperties.getSessionCacheSize())
+					.sessionTimeout(TimeUnit.MILLISECONDS.toSeconds(tlsProperties.getSessionTimeoutMs()))
+					.sslProvider(getTlsProvider());
+			if (tlsProperties.isTrustAll()) {
+				builder.trustManager(InsecureTrustManagerFactory.INSTANCE);
+			}
+			try {
+				sslContext = builder.build();
+			} catch (SSLException e) {
+				throw new IllegalStateException("Cannot set up TLS to the employee API", e);
+			}
+		}
+		return sslContext;
+	}
+
+	/**
+	 * The TLS implementation that connections to the employee API really use.
+	 */
+	public SslProvider getTlsProvider() {
+		return "openssl".equalsIgnoreCase(tlsProperties.getProvider()) && OpenSsl.isAvailable() ? SslProvider.OPENSSL
+				: SslProvider.JDK;
+	}
+
+	private void acceptEncoding(HttpHeaders headers) {
+		if (compression) {
+			headers.set(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+		}
+	}
+
+	/**
+	 * Connections to the employee API, sized by {@code employee.client.pool.*}.
+	 * Closing the context closes them. Not there over HTTP/2, which has
+	 * connections of its own.
+	 */
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(name = "employee.client.http2.enabled", havingValue = "false", matchIfMissing = true)
+	public EmployeeConnectionPool employeeConnectionPool(EmployeePoolProperties poolProperties) {
+		return new EmployeeConnectionPool(poolProperties);
+	}
+
+	/**
+	 * The event loops of the HTTP/1.1 connections, set up by
+	 * {@code employee.client.netty.*}. Closing the context shuts down the
+	 * client's own loops.
+	 */
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(name = "employee.client.http2.enabled", havingValue = "false", matchIfMissing = true)
+	public EmployeeEventLoops employeeEventLoops(EmployeeNettyProperties nettyProperties,
+			EmployeePoolProperties poolProperties) {
+		return new EmployeeEventLoops(nettyProperties, poolProperties.getName());
+	}
+
+	/**
+	 * Pools of their own for writes and bulk calls, sized by
+	 * {@code employee.client.bulkheads.*}. Closing the context closes them.
+	 */
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(name = "employee.client.bulkheads.enabled", havingValue = "true")
+	public EmployeeBulkheads employeeBulkheads(EmployeeBulkheadProperties bulkheadProperties) {
+		return new EmployeeBulkheads(bulkheadProperties);
+	}
+
+	/**
+	 * Multiplexed HTTP/2 connections to the employee API, sized by
+	 * {@code employee.client.http2.*} and {@code employee.client.pool.*}, with
+	 * the TLS settings of {@code employee.client.tls.*}. Settings that only
+	 * Reactor Netty can apply fail the start rather than being ignored.
+	 */
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(name = "employee.client.http2.enabled", havingValue = "true")
+	public EmployeeHttp2Transport employeeHttp2Transport(EmployeeHttp2Properties http2Properties,
+			EmployeePoolProperties poolProperties, EmployeeTimeoutProperties timeoutProperties,
+			EmployeeBulkheadProperties bulkheadProperties, EmployeeNettyProperties nettyProperties) {
+		if (bulkheadProperties.isEnabled()) {
+			throw new IllegalStateException("employee.client.bulkheads.enabled does not apply to HTTP/2, where a "
+					+ "slow call holds a stream rather than a connection");
+		}
+		if (nettyProperties.getTransport() != EmployeeNettyProperties.Transport.AUTO
+				|| nettyProperties.getLoopThreads() > 0) {
+			throw new IllegalStateException("employee.client.netty.* does not apply to HTTP/2, which runs on Jetty");
+		}
+		if (!"jdk".equalsIgnoreCase(tlsProperties.getProvider())) {
+			throw new IllegalStateException("employee.client.tls.provider=" + tlsProperties.getProvider()
+					+ " does not apply to HTTP/2, where Jetty uses the JDK's TLS");
+		}
+		return new EmployeeHttp2Transport(http2Properties, poolProperties, timeoutProperties, tlsProperties,
+				compression);
+	}
+
+	/**
+	 * Puts the read-through cache in front of the REST client for everything
+	 * that depends on {@link com.sample.app.service.ReactiveEmployeeService}.
+	 */
+	@Bean
+	@Primary
+	@ConditionalOnProperty(name = "employee.client.cache.enabled", havingValue = "true")
+	public CachingEmployeeService cachingEmployeeService(ObjectProvider<ReactiveEmployeeRestClient> restClient,
+			EmployeeCacheProperties cacheProperties) {
+		return new CachingEmployeeService(restClient, cacheProperties);
+	}
+
+	/**
+	 * Registers NDJSON next to JSON so that employee lists can be decoded one
+	 * record at a time whichever of the two the server answers with, in order
+	 * and without buffering the whole body. Smile bodies, asked for when
+	 * {@code employee.client.smile.enabled} is set, are decoded the same way.
+	 * With {@code employee.client.codec=employee} JSON employees are read and
+	 * written by the dedicated codec instead of Jackson databind.
+	 */
+	private ExchangeStrategies exchangeStrategies() {
+		StreamingJackson2JsonDecoder decoder = new StreamingJackson2JsonDecoder(Jackson2ObjectMapperBuilder.json().build(),
+				MediaType.APPLICATION_JSON, MediaType.APPLICATION_STREAM_JSON, MediaTypes.APPLICATION_NDJSON);
+
+		StreamingJackson2SmileDecoder smileDecoder = new StreamingJackson2SmileDecoder(
+				Jackson2ObjectMapperBuilder.smile().build(), MediaTypes.APPLICATION_SMILE);
+
+		return ExchangeStrategies.builder().codecs(configurer -> {
+			configurer.defaultCodecs().jackson2JsonDecoder(decoder);
+			configurer.customCodecs().decoder(smileDecoder);
+			if ("employee".equals(codec)) {
+				configurer.customCodecs().decoder(new EmployeeJsonDecoder());
+				configurer.customCodecs().encoder(new EmployeeJsonEncoder());
+			}
+		}).build();
+	}
+
 }
@@ -0,0 +1,79 @@
+package com.sample.app.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Bulkheads between kinds of calls to the employee API, bound from
+ * {@code employee.client.bulkheads.*}.
+ * <p>
+ * Reads keep the pool of {@code employee.client.pool}. Writes and bulk calls
+ * each get a pool of their own under {@code writes} and {@code bulk}, with
+ * the same settings as {@code employee.client.pool}, e.g.
+ * {@code employee.client.bulkheads.writes.max-connections=20}, and a list of
+ * the operations that use it, named after their
+ * {@code ReactiveEmployeeService} method.
+ */
+@ConfigurationProperties(prefix = "employee.client.bulkheads")
+public class EmployeeBulkheadProperties {
+
+	/**
+	 * Whether writes and bulk calls get pools of their own. Off by default.
+	 */
+	private boolean enabled;
+
+	private final Compartment writes = new Compartment("employee-api-writes", 50, "addEmployee", "updateEmployee",
+			"patchEmployee", "deleteEmployee");
+
+	private final Compartment bulk = new Compartment("employee-api-bulk", 10, "addEmployees", "byIds", "emps",
+			"empsPage");
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Compartment getWrites() {
+		return writes;
+	}
+
+	public Compartment getBulk() {
+		return bulk;
+	}
+
+	/**
+	 * A pool of connections and the operations that use it. Its
+	 * {@code max-connections} caps how many of those operations are in flight,
+	 * and its {@code pending-acquire-max-count} how many more may wait.
+	 */
+	public static class Compartment extends EmployeePoolProperties {
+
+		/**
+		 * Operations sent over this pool.
+		 */
+		private List<String> operations;
+
+		Compartment(String name, int maxConnections, String... operations) {
+			setName(name);
+			setMaxConnections(maxConnections);
+			setPendingAcquireMaxCount(maxConnections * 2);
+			this.operations = new ArrayList<>(Arrays.asList(operations));
+		}
+
+		public List<String> getOperations() {
+			return operations;
+		}
+
+		public void setOperations(List<String> operations) {
+			this.operations = operations;
+		}
+
+	}
+
+}
@@ -0,0 +1,120 @@
+package com.sample.app.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunctions;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+
+import com.sample.app.config.EmployeeBulkheadProperties.Compartment;
+import com.sample.app.service.impl.EmployeeClientMetrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import reactor.core.publisher.Mono;
+
+/**
+ * Connection pools for writes and bulk calls, kept apart from the pool that
+ * serves reads so that a backlog of slow writes cannot take the connections
+ * that lookups need, and the other way round.
+ * <p>
+ * Each compartment of {@link EmployeeBulkheadProperties} gets its own
+ * {@link EmployeeConnectionPool}, which caps the calls in flight at its
+ * {@code max-connections}, rejects those beyond its
+ * {@code pending-acquire-max-count} and publishes the usual
+ * {@code employee.client.pool.*} meters tagged with its name. The filter
+ * returned by {@link #filter(Function, ExchangeStrategies)} sends the
+ * exchanges of each operation through the pool of its compartment; those of
+ * other operations go on down the filter chain to the shared pool. A request
+ * with the {@link #POOL} attribute goes through the pool it names.
+ */
+public class EmployeeBulkheads implements MeterBinder {
+
+	/**
+	 * Request attribute with the name of the compartment's pool that a request
+	 * is sent over whatever its operation, as warm-up requests are.
+	 */
+	public static final String POOL = EmployeeBulkheads.class.getName() + ".pool";
+
+	private final List<EmployeeConnectionPool> pools = new ArrayList<>();
+
+	private final Map<String, EmployeeConnectionPool> poolsByOperation = new TreeMap<>(
+			String.CASE_INSENSITIVE_ORDER);
+
+	public EmployeeBulkheads(EmployeeBulkheadProperties properties) {
+		add(properties.getWrites());
+		add(properties.getBulk());
+	}
+
+	private void add(Compartment compartment) {
+		EmployeeConnectionPool pool = new EmployeeConnectionPool(compartment);
+		pools.add(pool);
+		for (String operation : compartment.getOperations()) {
+			EmployeeConnectionPool previous = poolsByOperation.putIfAbsent(operation.trim(), pool);
+			if (previous != null) {
+				close();
+				throw new IllegalArgumentException("Operation " + operation + " is assigned to both "
+						+ previous.getName() + " and " + compartment.getName());
+			}
+		}
+	}
+
+	public List<EmployeeConnectionPool> getPools() {
+		return Collections.unmodifiableList(pools);
+	}
+
+	/**
+	 * The pool that {@code operation} is sent over, or {@code null} for the
+	 * shared one.
+	 */
+	public EmployeeConnectionPool poolOf(String operation) {
+		return poolsByOperation.get(operation);
+	}
+
+	/**
+	 * Routes exchanges to the compartments' pools, each reached through the
+	 * connector that {@code connectors} makes for it. Belongs last in the
+	 * filter chain but for the shared pool's own filter.
+	 */
+	public ExchangeFilterFunction filter(Function<EmployeeConnectionPool, ClientHttpConnector> connectors,
+			ExchangeStrategies strategies) {
+		Map<EmployeeConnectionPool, ExchangeFunction> exchanges = new IdentityHashMap<>();
+		for (EmployeeConnectionPool pool : pools) {
+			exchanges.put(pool, pool.filter().apply(ExchangeFunctions.create(connectors.apply(pool), strategies)));
+		}
+		return (request, next) -> route(request, next, exchanges);
+	}
+
+	private Mono<ClientResponse> route(ClientRequest request, ExchangeFunction next,
+			Map<EmployeeConnectionPool, ExchangeFunction> exchanges) {
+		return Mono.subscriberContext().flatMap(context -> {
+			EmployeeConnectionPool pool = request.attribute(POOL).map(this::poolNamed)
+					.orElseGet(() -> EmployeeClientMetrics.operationOf(context).map(this::poolOf).orElse(null));
+			return pool != null ? exchanges.get(pool).exchange(request) : next.exchange(request);
+		});
+	}
+
+	private EmployeeConnectionPool poolNamed(Object name) {
+		return pools.stream().filter(pool -> pool.getName().equals(name)).findFirst().orElse(null);
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		pools.forEach(pool -> pool.bindTo(registry));
+	}
+
+	public void close() {
+		pools.forEach(EmployeeConnectionPool::close);
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.sample.app.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the read-through employee cache, bound from
+ * {@code employee.client.cache.*}.
+ */
+@ConfigurationProperties(prefix = "employee.client.cache")
+public class EmployeeCacheProperties {
+
+	/**
+	 * Whether reads go through the cache at all.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * Maximum number of cached responses. Each employee and each list counts as
+	 * one entry.
+	 */
+	private long maximumSize = 10_000;
+
+	/**
+	 * How long an entry is served without asking the server.
+	 */
+	private Duration ttl = Duration.ofSeconds(30);
+
+	/**
+	 * How long after {@link #ttl} a stale entry is still served while it is
+	 * revalidated in the background.
+	 */
+	private Duration staleWhileRevalidate = Duration.ofSeconds(30);
+
+	/**
+	 * How long an entry is kept at all. Past the stale window the entry is only
+	 * used for its validators, so that a conditional GET can refresh it without
+	 * a body transfer.
+	 */
+	private Duration retention = Duration.ofMinutes(10);
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public long getMaximumSize() {
+		return maximumSize;
+	}
+
+	public void setMaximumSize(long maximumSize) {
+		this.maximumSize = maximumSize;
+	}
+
+	public Duration getTtl() {
+		return ttl;
+	}
+
+	public void setTtl(Duration ttl) {
+		this.ttl = ttl;
+	}
+
+	public Duration getStaleWhileRevalidate() {
+		return staleWhileRevalidate;
+	}
+
+	public void setStaleWhileRevalidate(Duration staleWhileRevalidate) {
+		this.staleWhileRevalidate = staleWhileRevalidate;
+	}
+
+	public Duration getRetention() {
+		return retention;
+	}
+
+	public void setRetention(Duration retention) {
+		this.retention = retention;
+	}
+
+}
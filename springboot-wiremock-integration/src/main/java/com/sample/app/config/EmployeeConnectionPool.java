@@ -0,0 +1,431 @@
+package com.sample.app.config;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+import com.sample.app.exception.EmployeeApiException;
+import com.sample.app.exception.EmployeeApiException.Fault;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.netty.channel.Channel;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.Connection;
+import reactor.netty.ConnectionObserver;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.HttpClientRequest;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Fixed-size connection pool to the employee API, with the limits and
+ * eviction that {@link ConnectionProvider#fixed(String, int, long)} does not
+ * offer on its own.
+ * <p>
+ * Reactor Netty provides the pool size and the acquire timeout. This class
+ * adds a bound on the number of requests waiting for a connection, closes
+ * connections that were idle or open for too long, and counts open, busy and
+ * idle connections as well as how long requests waited for one. The bound on
+ * waiting requests is enforced by {@link #filter()}, and the counts are fed by
+ * {@link #instrument(HttpClient)}, so both have to be applied to the
+ * {@code WebClient} that uses {@link #getConnectionProvider()}.
+ */
+public class EmployeeConnectionPool implements ConnectionObserver, MeterBinder {
+
+	private final EmployeePoolProperties properties;
+
+	private final ConnectionProvider connectionProvider;
+
+	private final Map<Channel, ConnectionState> connections = new ConcurrentHashMap<>();
+
+	private final long maxIdleNanos;
+
+	private final long maxLifeNanos;
+
+	private final AtomicInteger exchanges = new AtomicInteger();
+
+	private final AtomicInteger pendingAcquires = new AtomicInteger();
+
+	private final AtomicLong acquires = new AtomicLong();
+
+	private final AtomicLong acquireNanos = new AtomicLong();
+
+	private final AtomicLong maxAcquireNanos = new AtomicLong();
+
+	private final AtomicLong rejectedAcquires = new AtomicLong();
+
+	private final AtomicLong evictedConnections = new AtomicLong();
+
+	private final Scheduler evictor;
+
+	private final Disposable eviction;
+
+	public EmployeeConnectionPool(EmployeePoolProperties properties) {
+		this.properties = properties;
+		this.connectionProvider = ConnectionProvider.fixed(properties.getName(), properties.getMaxConnections(),
+				properties.getPendingAcquireTimeout().toMillis());
+		this.maxIdleNanos = properties.getMaxIdleTime().toNanos();
+		this.maxLifeNanos = properties.getMaxLifeTime().toNanos();
+
+		long intervalMillis = properties.getEvictionInterval().toMillis();
+		if (intervalMillis > 0 && (maxIdleNanos > 0 || maxLifeNanos > 0)) {
+			this.evictor = Schedulers.newSingle(properties.getName() + "-evictor", true);
+			this.eviction = evictor.schedulePeriodically(this::evictExpired, intervalMillis, intervalMillis,
+					TimeUnit.MILLISECONDS);
+		} else {
+			this.evictor = null;
+			this.eviction = null;
+		}
+	}
+
+	public ConnectionProvider getConnectionProvider() {
+		return connectionProvider;
+	}
+
+	/**
+	 * Lets this pool follow the connections of {@code httpClient} and see when a
+	 * request got hold of one.
+	 */
+	public HttpClient instrument(HttpClient httpClient) {
+		return httpClient.observe(this).doOnRequest(this::acquired);
+	}
+
+	/**
+	 * Fails a request with {@link EmployeeApiException} instead of queueing it
+	 * when {@code pending-acquire-max-count} requests already wait for a
+	 * connection, and times how long the others wait. A request is counted
+	 * until its connection goes back to the pool or is closed, which for a
+	 * streamed body is once the body has been read or cancelled, and every
+	 * request beyond {@code max-connections} counts as waiting.
+	 */
+	public ExchangeFilterFunction filter() {
+		return this::filter;
+	}
+
+	private Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+		return Mono.defer(() -> {
+			int inFlight = exchanges.incrementAndGet();
+			int maxWaiting = properties.getPendingAcquireMaxCount();
+			if (maxWaiting >= 0 && inFlight > getMaxConnections() + maxWaiting) {
+				exchanges.decrementAndGet();
+				rejectedAcquires.incrementAndGet();
+				return Mono.error(new EmployeeApiException("Pending acquire queue of connection pool "
+						+ properties.getName() + " is full (" + maxWaiting + " requests waiting)", Fault.REJECTED));
+			}
+
+			Exchange exchange = new Exchange();
+			return next.exchange(request).doFinally(signal -> exchange.responded())
+					.subscriberContext(context -> context.put(Exchange.class, exchange));
+		});
+	}
+
+	private void acquired(HttpClientRequest request, Connection connection) {
+		request.currentContext().<Exchange>getOrEmpty(Exchange.class).ifPresent(exchange -> {
+			if (exchange.acquired()) {
+				stateOf(connection.channel()).acquiredBy(exchange);
+			}
+		});
+	}
+
+	@Override
+	public void onStateChange(Connection connection, State newState) {
+		Channel channel = connection.channel();
+		if (newState == State.CONNECTED || newState == State.ACQUIRED || newState == State.CONFIGURED) {
+			stateOf(channel).active = true;
+		} else if (newState == State.RELEASED) {
+			ConnectionState state = stateOf(channel);
+			if (state.released()) {
+				return;
+			}
+			state.idleSince = System.nanoTime();
+			state.active = false;
+			if (maxLifeNanos > 0 && state.idleSince - state.openedAt >= maxLifeNanos) {
+				closeIfExpired(channel, state);
+			}
+		}
+	}
+
+	/**
+	 * The listener is added outside of the map update, because it runs at once
+	 * on a channel that is already closed, which happens when a cancelled
+	 * request still gets its connection.
+	 */
+	private ConnectionState stateOf(Channel channel) {
+		ConnectionState state = connections.get(channel);
+		if (state == null) {
+			ConnectionState created = new ConnectionState();
+			state = connections.putIfAbsent(channel, created);
+			if (state == null) {
+				state = created;
+				ConnectionState opened = created;
+				channel.closeFuture().addListener(future -> {
+					connections.remove(channel);
+					opened.closed();
+				});
+			}
+		}
+		return state;
+	}
+
+	private void evictExpired() {
+		long now = System.nanoTime();
+		connections.forEach((channel, state) -> {
+			if (state.isExpired(now)) {
+				closeIfExpired(channel, state);
+			}
+		});
+	}
+
+	/**
+	 * Closes on the channel's event loop, which is also where the pool hands the
+	 * channel out, so that a connection that was just acquired again is left
+	 * alone.
+	 */
+	private void closeIfExpired(Channel channel, ConnectionState state) {
+		channel.eventLoop().execute(() -> {
+			if (state.isExpired(System.nanoTime()) && channel.isActive()) {
+				evictedConnections.incrementAndGet();
+				channel.close();
+			}
+		});
+	}
+
+	/**
+	 * Publishes the counts below as {@code employee.client.pool.*} meters.
+	 */
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Tags tags = Tags.of("pool", properties.getName());
+		Gauge.builder("employee.client.pool.connections.max", this, EmployeeConnectionPool::getMaxConnections)
+				.tags(tags).register(registry);
+		Gauge.builder("employee.client.pool.connections", this, EmployeeConnectionPool::getActiveConnections)
+				.tags(tags.and("state", "active")).register(registry);
+		Gauge.builder("employee.client.pool.connections", this, EmployeeConnectionPool::getIdleConnections)
+				.tags(tags.and("state", "idle")).register(registry);
+		Gauge.builder("employee.client.pool.pending", this, EmployeeConnectionPool::getPendingAcquires).tags(tags)
+				.register(registry);
+		FunctionTimer.builder("employee.client.pool.acquire", this, EmployeeConnectionPool::getAcquireCount,
+				pool -> pool.acquireNanos.get(), TimeUnit.NANOSECONDS).tags(tags).register(registry);
+		FunctionCounter.builder("employee.client.pool.rejected", this, EmployeeConnectionPool::getRejectedAcquires)
+				.tags(tags).register(registry);
+		FunctionCounter.builder("employee.client.pool.evicted", this, EmployeeConnectionPool::getEvictedConnections)
+				.tags(tags).register(registry);
+	}
+
+	public String getName() {
+		return properties.getName();
+	}
+
+	public int getMaxConnections() {
+		return properties.getMaxConnections();
+	}
+
+	/**
+	 * Number of open connections, busy or idle.
+	 */
+	public int getTotalConnections() {
+		return connections.size();
+	}
+
+	/**
+	 * Number of connections currently serving a request.
+	 */
+	public int getActiveConnections() {
+		int active = 0;
+		for (ConnectionState state : connections.values()) {
+			if (state.active) {
+				active++;
+			}
+		}
+		return active;
+	}
+
+	/**
+	 * Number of open connections waiting in the pool to be reused.
+	 */
+	public int getIdleConnections() {
+		return getTotalConnections() - getActiveConnections();
+	}
+
+	/**
+	 * Number of requests that have not got a connection yet. This includes
+	 * requests that are about to be given a free one.
+	 */
+	public int getPendingAcquires() {
+		return pendingAcquires.get();
+	}
+
+	/**
+	 * Number of requests that got a connection, whether reused or newly opened.
+	 */
+	public long getAcquireCount() {
+		return acquires.get();
+	}
+
+	/**
+	 * Total time requests waited for a connection, including the time to open
+	 * one where none could be reused.
+	 */
+	public Duration getTotalAcquireTime() {
+		return Duration.ofNanos(acquireNanos.get());
+	}
+
+	public Duration getMaxAcquireTime() {
+		return Duration.ofNanos(maxAcquireNanos.get());
+	}
+
+	/**
+	 * Number of requests failed because too many others were waiting for a
+	 * connection.
+	 */
+	public long getRejectedAcquires() {
+		return rejectedAcquires.get();
+	}
+
+	/**
+	 * Number of connections closed for exceeding the maximum idle or life time.
+	 */
+	public long getEvictedConnections() {
+		return evictedConnections.get();
+	}
+
+	public void close() {
+		if (eviction != null) {
+			eviction.dispose();
+			evictor.dispose();
+		}
+		connectionProvider.dispose();
+	}
+
+	private final class ConnectionState {
+
+		private final long openedAt = System.nanoTime();
+		private volatile long idleSince = openedAt;
+		private volatile boolean active;
+
+		/**
+		 * The pool hands a released connection to a waiting request before it
+		 * tells the observers, so the next exchange can be here before the
+		 * release of the previous one.
+		 */
+		private final Deque<Exchange> exchanges = new ArrayDeque<>();
+
+		synchronized void acquiredBy(Exchange exchange) {
+			exchanges.add(exchange);
+			active = true;
+		}
+
+		/**
+		 * Ends the oldest exchange on the connection, and returns whether
+		 * another one already holds it.
+		 */
+		boolean released() {
+			Exchange done;
+			boolean held;
+			synchronized (this) {
+				done = exchanges.poll();
+				held = !exchanges.isEmpty();
+			}
+			if (done != null) {
+				done.released();
+			}
+			return held;
+		}
+
+		void closed() {
+			boolean held = released();
+			while (held) {
+				held = released();
+			}
+		}
+
+		boolean isExpired(long now) {
+			return !active && ((maxIdleNanos > 0 && now - idleSince >= maxIdleNanos)
+					|| (maxLifeNanos > 0 && now - openedAt >= maxLifeNanos));
+		}
+
+	}
+
+	/**
+	 * A request from the time it is made until both its response has arrived,
+	 * or it failed or was cancelled, and the connection it got, if any, has
+	 * been released. Reactor Netty may retry a request on a fresh connection
+	 * when the first one was closed under it, so a released connection alone
+	 * does not end the exchange.
+	 */
+	private final class Exchange {
+
+		private final long startedAt = System.nanoTime();
+		private boolean acquired;
+		private boolean connected;
+		private boolean responded;
+		private boolean done;
+
+		Exchange() {
+			pendingAcquires.incrementAndGet();
+		}
+
+		/**
+		 * Returns whether the exchange still holds the connection it got.
+		 */
+		synchronized boolean acquired() {
+			if (done) {
+				return false;
+			}
+			if (!acquired) {
+				acquired = true;
+				pendingAcquires.decrementAndGet();
+				long waited = System.nanoTime() - startedAt;
+				acquires.incrementAndGet();
+				acquireNanos.addAndGet(waited);
+				maxAcquireNanos.accumulateAndGet(waited, Math::max);
+			}
+			connected = true;
+			return true;
+		}
+
+		synchronized void released() {
+			connected = false;
+			if (responded) {
+				done();
+			}
+		}
+
+		synchronized void responded() {
+			responded = true;
+			if (!connected) {
+				done();
+			}
+		}
+
+		private void done() {
+			if (done) {
+				return;
+			}
+			done = true;
+			if (!acquired) {
+				pendingAcquires.decrementAndGet();
+			}
+			exchanges.decrementAndGet();
+		}
+
+	}
+
+}
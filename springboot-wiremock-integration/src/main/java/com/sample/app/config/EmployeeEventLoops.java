@@ -0,0 +1,81 @@
+package com.sample.app.config;
+
+import com.sample.app.config.EmployeeNettyProperties.Transport;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.netty.channel.epoll.EpollSocketChannel;
+import reactor.netty.http.HttpResources;
+import reactor.netty.resources.LoopResources;
+import reactor.netty.tcp.TcpClient;
+
+/**
+ * The event loops that connections to the employee API run on, set up by
+ * {@code employee.client.netty.*}: Reactor Netty's shared loops, or with
+ * {@code loop-threads} loops of the client's own that nothing else in the
+ * application can hold up. A native transport that cannot be loaded on this
+ * platform falls back to NIO; {@link #getTransport()} tells which one is used.
+ * Closing disposes of the client's own loops.
+ */
+public class EmployeeEventLoops implements MeterBinder {
+
+	private final Transport transport;
+
+	private final boolean dedicated;
+
+	private final int threads;
+
+	private final LoopResources loops;
+
+	public EmployeeEventLoops(EmployeeNettyProperties properties, String name) {
+		this.transport = properties.getTransport();
+		this.dedicated = properties.getLoopThreads() > 0;
+		this.threads = dedicated ? properties.getLoopThreads() : LoopResources.DEFAULT_IO_WORKER_COUNT;
+		this.loops = dedicated ? LoopResources.create(name + "-loop", threads, true) : HttpResources.get();
+	}
+
+	/**
+	 * {@code tcpClient} running on these loops, or as it is when neither a
+	 * transport nor loops of its own were asked for.
+	 */
+	public TcpClient apply(TcpClient tcpClient) {
+		if (!dedicated && transport == Transport.AUTO) {
+			return tcpClient;
+		}
+		return tcpClient.runOn(loops, preferNative());
+	}
+
+	private boolean preferNative() {
+		return transport == Transport.AUTO ? LoopResources.DEFAULT_NATIVE : transport == Transport.NATIVE;
+	}
+
+	/**
+	 * {@code epoll} when the native transport could be loaded and was asked
+	 * for, {@code nio} otherwise.
+	 */
+	public String getTransport() {
+		return EpollSocketChannel.class.equals(loops.onChannel(loops.onClient(preferNative()))) ? "epoll" : "nio";
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public boolean isDedicated() {
+		return dedicated;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("employee.client.netty.loop-threads", this, EmployeeEventLoops::getThreads)
+				.tag("transport", getTransport()).tag("dedicated", String.valueOf(dedicated)).register(registry);
+	}
+
+	public void close() {
+		if (dedicated) {
+			loops.dispose();
+		}
+	}
+
+}
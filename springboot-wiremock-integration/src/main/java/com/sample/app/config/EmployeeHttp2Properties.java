@@ -0,0 +1,44 @@
+package com.sample.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the HTTP/2 transport to the employee API, bound from
+ * {@code employee.client.http2.*}. Limits on connections and waiting requests
+ * are shared with HTTP/1.1 and come from {@link EmployeePoolProperties}, and
+ * TLS settings from {@link EmployeeTlsProperties}.
+ */
+@ConfigurationProperties(prefix = "employee.client.http2")
+public class EmployeeHttp2Properties {
+
+	/**
+	 * Whether requests are multiplexed over HTTP/2 instead of taking one
+	 * HTTP/1.1 connection each: h2 over TLS for an https base URI, h2c with
+	 * prior knowledge for plain http.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * Maximum number of requests in flight on one connection. A server that
+	 * allows fewer streams lowers it; another connection is opened once every
+	 * connection has this many streams.
+	 */
+	private int maxConcurrentStreams = 100;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public int getMaxConcurrentStreams() {
+		return maxConcurrentStreams;
+	}
+
+	public void setMaxConcurrentStreams(int maxConcurrentStreams) {
+		this.maxConcurrentStreams = maxConcurrentStreams;
+	}
+
+}
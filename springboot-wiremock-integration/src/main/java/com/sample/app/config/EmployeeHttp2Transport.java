@@ -0,0 +1,177 @@
+package com.sample.app.config;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLSessionContext;
+
+import org.eclipse.jetty.client.AbstractConnectionPool;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.HttpDestination;
+import org.eclipse.jetty.client.MultiplexConnectionPool;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.http2.client.HTTP2Client;
+import org.eclipse.jetty.http2.client.http.HttpClientTransportOverHTTP2;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.JettyClientHttpConnector;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * HTTP/2 transport to the employee API, used instead of the Reactor Netty
+ * connection pool when {@code employee.client.http2.enabled} is set.
+ * <p>
+ * Reactor Netty 0.8 has no HTTP/2 client, so requests go through Jetty's
+ * {@link HttpClient}, which Spring's {@link JettyClientHttpConnector} adapts to
+ * the {@code WebClient}. Many requests share one connection as concurrent
+ * streams, up to {@code max-concurrent-streams} each. A second connection is
+ * only opened when every open one is full. The connect and read timeouts of
+ * {@code employee.client.timeouts} are the same as on HTTP/1.1. Idle
+ * connections are closed after {@code employee.client.pool.max-idle-time}.
+ * TLS sessions are cached and resumed as {@code employee.client.tls.*} says,
+ * as on HTTP/1.1.
+ * With compression on, Jetty inflates gzip responses; unlike Reactor Netty it
+ * cannot inflate deflate.
+ */
+public class EmployeeHttp2Transport implements MeterBinder {
+
+	private final String name;
+
+	private final HttpClient httpClient;
+
+	private final JettyClientHttpConnector connector;
+
+	/**
+	 * What the request being created has to run once it begins on a
+	 * connection. Spring's connector creates the Jetty request within
+	 * {@code connect}, on the calling thread.
+	 */
+	private final ThreadLocal<Runnable> onBegin = new ThreadLocal<>();
+
+	public EmployeeHttp2Transport(EmployeeHttp2Properties properties, EmployeePoolProperties poolProperties,
+			EmployeeTimeoutProperties timeouts, EmployeeTlsProperties tls, boolean compression) {
+		this.name = poolProperties.getName();
+		int maxConnections = poolProperties.getMaxConnections();
+		int maxStreams = properties.getMaxConcurrentStreams();
+
+		HttpClientTransportOverHTTP2 transport = new HttpClientTransportOverHTTP2(new HTTP2Client());
+		transport.setConnectionPoolFactory(
+				destination -> new StreamLimitedConnectionPool(destination, maxConnections, maxStreams));
+
+		SslContextFactory sslContextFactory = new SslContextFactory.Client(tls.isTrustAll());
+		this.httpClient = new HttpClient(transport, sslContextFactory) {
+
+			@Override
+			public Request newRequest(URI uri) {
+				Request request = super.newRequest(uri);
+				Runnable connected = onBegin.get();
+				if (connected != null) {
+					request.onRequestBegin(begun -> connected.run());
+				}
+				return request;
+			}
+
+		};
+		QueuedThreadPool threads = new QueuedThreadPool();
+		threads.setName(name + "-h2");
+		httpClient.setExecutor(threads);
+		httpClient.setMaxConnectionsPerDestination(maxConnections);
+		int maxWaiting = poolProperties.getPendingAcquireMaxCount();
+		httpClient.setMaxRequestsQueuedPerDestination(maxWaiting < 0 ? Integer.MAX_VALUE : maxWaiting);
+		httpClient.setConnectTimeout(timeouts.getConnect().toMillis());
+		if (!compression) {
+			// Jetty would otherwise ask for gzip on its own
+			httpClient.getContentDecoderFactories().clear();
+		}
+		// applies to the connections; each stream gets the read timeout below
+		httpClient.setIdleTimeout(poolProperties.getMaxIdleTime().toMillis());
+		long readTimeoutMillis = timeouts.getRead().toMillis();
+		httpClient.getRequestListeners().add(new Request.Listener.Adapter() {
+
+			@Override
+			public void onQueued(Request request) {
+				request.idleTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS);
+			}
+
+		});
+		try {
+			httpClient.start();
+		} catch (Exception e) {
+			throw new IllegalStateException("Cannot start the HTTP/2 client " + name, e);
+		}
+		// Jetty applies its session settings to servers only
+		SSLSessionContext sessions = sslContextFactory.getSslContext().getClientSessionContext();
+		sessions.setSessionCacheSize(tls.getSessionCacheSize());
+		sessions.setSessionTimeout((int) TimeUnit.MILLISECONDS.toSeconds(tls.getSessionTimeoutMs()));
+		this.connector = new JettyClientHttpConnector(httpClient);
+	}
+
+	public ClientHttpConnector getConnector() {
+		return connector;
+	}
+
+	/**
+	 * The connector, for requests that run {@code connected} once they have
+	 * a stream on a connection and begin to be sent.
+	 */
+	public ClientHttpConnector getConnector(Runnable connected) {
+		if (connected == null) {
+			return connector;
+		}
+		return (method, uri, requestCallback) -> {
+			onBegin.set(connected);
+			try {
+				return connector.connect(method, uri, requestCallback);
+			} finally {
+				onBegin.remove();
+			}
+		};
+	}
+
+	/**
+	 * Open connections to all servers the client talked to.
+	 */
+	public int getConnections() {
+		return httpClient.getDestinations().stream()
+				.map(destination -> ((HttpDestination) destination).getConnectionPool())
+				.filter(AbstractConnectionPool.class::isInstance)
+				.mapToInt(pool -> ((AbstractConnectionPool) pool).getConnectionCount())
+				.sum();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("employee.client.http2.connections", this, EmployeeHttp2Transport::getConnections)
+				.tags(Tags.of("pool", name)).register(registry);
+	}
+
+	public void close() throws Exception {
+		httpClient.stop();
+	}
+
+	/**
+	 * Jetty lets the server's SETTINGS_MAX_CONCURRENT_STREAMS replace the
+	 * stream limit of a connection; this keeps the configured one as a cap.
+	 */
+	private static final class StreamLimitedConnectionPool extends MultiplexConnectionPool {
+
+		private final int maxStreams;
+
+		StreamLimitedConnectionPool(HttpDestination destination, int maxConnections, int maxStreams) {
+			super(destination, maxConnections, destination, maxStreams);
+			this.maxStreams = maxStreams;
+		}
+
+		@Override
+		public void setMaxMultiplex(int maxMultiplex) {
+			super.setMaxMultiplex(Math.min(maxMultiplex, maxStreams));
+		}
+
+	}
+
+}
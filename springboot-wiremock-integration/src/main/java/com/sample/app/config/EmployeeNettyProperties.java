@@ -0,0 +1,62 @@
+package com.sample.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Event loops that the HTTP/1.1 connections to the employee API run on, bound
+ * from {@code employee.client.netty.*}. Not used over HTTP/2, which goes
+ * through Jetty.
+ */
+@ConfigurationProperties(prefix = "employee.client.netty")
+public class EmployeeNettyProperties {
+
+	/**
+	 * Socket transport of the event loops.
+	 */
+	public enum Transport {
+
+		/**
+		 * Whatever Reactor Netty picks: the native transport where it is
+		 * available, unless {@code -Dreactor.netty.native=false} is set.
+		 */
+		AUTO,
+
+		/**
+		 * The native transport, epoll on Linux, falling back to NIO where it
+		 * is not available.
+		 */
+		NATIVE,
+
+		/**
+		 * The JDK's NIO selectors.
+		 */
+		NIO
+
+	}
+
+	private Transport transport = Transport.AUTO;
+
+	/**
+	 * Number of event loop threads of the client's own loops. Zero shares the
+	 * loops of Reactor Netty, one per core by default, with everything else in
+	 * the application that uses it.
+	 */
+	private int loopThreads = 0;
+
+	public Transport getTransport() {
+		return transport;
+	}
+
+	public void setTransport(Transport transport) {
+		this.transport = transport;
+	}
+
+	public int getLoopThreads() {
+		return loopThreads;
+	}
+
+	public void setLoopThreads(int loopThreads) {
+		this.loopThreads = loopThreads;
+	}
+
+}
@@ -0,0 +1,112 @@
+package com.sample.app.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the connection pool to the employee API, bound from
+ * {@code employee.client.pool.*}.
+ */
+@ConfigurationProperties(prefix = "employee.client.pool")
+public class EmployeePoolProperties {
+
+	/**
+	 * Name of the pool, used for its threads and in error messages.
+	 */
+	private String name = "employee-api";
+
+	/**
+	 * Maximum number of open connections. A request that finds all of them
+	 * busy waits for one to be released.
+	 */
+	private int maxConnections = 500;
+
+	/**
+	 * Maximum number of requests waiting for a connection. Further requests fail
+	 * at once instead of joining the queue. A negative value means no limit.
+	 */
+	private int pendingAcquireMaxCount = 1000;
+
+	/**
+	 * How long a request waits for a connection before it fails.
+	 */
+	private Duration pendingAcquireTimeout = Duration.ofSeconds(45);
+
+	/**
+	 * How long a connection may sit unused in the pool before it is closed. Zero
+	 * keeps idle connections open.
+	 */
+	private Duration maxIdleTime = Duration.ofSeconds(30);
+
+	/**
+	 * How long a connection is used at all, counted from when it was opened.
+	 * Zero keeps connections for as long as the server does. A connection past
+	 * its life time is closed when it is next returned to the pool.
+	 */
+	private Duration maxLifeTime = Duration.ofMinutes(5);
+
+	/**
+	 * How often idle connections are checked against {@link #maxIdleTime} and
+	 * {@link #maxLifeTime}. Zero turns the background check off, so that expired
+	 * connections are only closed when they are returned to the pool.
+	 */
+	private Duration evictionInterval = Duration.ofSeconds(10);
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	public void setMaxConnections(int maxConnections) {
+		this.maxConnections = maxConnections;
+	}
+
+	public int getPendingAcquireMaxCount() {
+		return pendingAcquireMaxCount;
+	}
+
+	public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) {
+		this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+	}
+
+	public Duration getPendingAcquireTimeout() {
+		return pendingAcquireTimeout;
+	}
+
+	public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) {
+		this.pendingAcquireTimeout = pendingAcquireTimeout;
+	}
+
+	public Duration getMaxIdleTime() {
+		return maxIdleTime;
+	}
+
+	public void setMaxIdleTime(Duration maxIdleTime) {
+		this.maxIdleTime = maxIdleTime;
+	}
+
+	public Duration getMaxLifeTime() {
+		return maxLifeTime;
+	}
+
+	public void setMaxLifeTime(Duration maxLifeTime) {
+		this.maxLifeTime = maxLifeTime;
+	}
+
+	public Duration getEvictionInterval() {
+		return evictionInterval;
+	}
+
+	public void setEvictionInterval(Duration evictionInterval) {
+		this.evictionInterval = evictionInterval;
+	}
+
+}
@@ -0,0 +1,153 @@
+package com.sample.app.config;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Timeouts of calls to the employee API, bound from
+ * {@code employee.client.timeouts.*}.
+ * <p>
+ * {@code connect}, {@code read} and {@code write} are enforced on every
+ * connection and bound every operation. Within them, each operation, named
+ * after its {@code ReactiveEmployeeService} method, may have a
+ * {@link Budget} of its own under {@code operations.<name>}, e.g.
+ * {@code employee.client.timeouts.operations.byId.first-byte=500ms}; what it
+ * leaves unset comes from {@code defaults}.
+ */
+@ConfigurationProperties(prefix = "employee.client.timeouts")
+public class EmployeeTimeoutProperties {
+
+	/**
+	 * How long opening a connection may take.
+	 */
+	private Duration connect = Duration.ofSeconds(3);
+
+	/**
+	 * How long a connection may wait for the next bytes of a response.
+	 */
+	private Duration read = Duration.ofSeconds(3);
+
+	/**
+	 * How long a connection may wait to write the next bytes of a request.
+	 */
+	private Duration write = Duration.ofSeconds(3);
+
+	/**
+	 * Header that tells the server how many milliseconds are left of a call's
+	 * deadline. Empty to send none.
+	 */
+	private String deadlineHeader = "X-Request-Timeout-Ms";
+
+	private final Budget defaults = new Budget();
+
+	private final Map<String, Budget> operations = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+	public Duration getConnect() {
+		return connect;
+	}
+
+	public void setConnect(Duration connect) {
+		this.connect = connect;
+	}
+
+	public Duration getRead() {
+		return read;
+	}
+
+	public void setRead(Duration read) {
+		this.read = read;
+	}
+
+	public Duration getWrite() {
+		return write;
+	}
+
+	public void setWrite(Duration write) {
+		this.write = write;
+	}
+
+	public String getDeadlineHeader() {
+		return deadlineHeader;
+	}
+
+	public void setDeadlineHeader(String deadlineHeader) {
+		this.deadlineHeader = deadlineHeader;
+	}
+
+	public Budget getDefaults() {
+		return defaults;
+	}
+
+	public Map<String, Budget> getOperations() {
+		return operations;
+	}
+
+	/**
+	 * The budget of {@code operation}, with what it leaves unset taken from
+	 * {@code defaults}.
+	 */
+	public Budget budgetOf(String operation) {
+		Budget own = operations.get(operation);
+		if (own == null) {
+			return defaults;
+		}
+		Budget budget = new Budget();
+		budget.setConnect(own.getConnect() != null ? own.getConnect() : defaults.getConnect());
+		budget.setFirstByte(own.getFirstByte() != null ? own.getFirstByte() : defaults.getFirstByte());
+		budget.setTotal(own.getTotal() != null ? own.getTotal() : defaults.getTotal());
+		return budget;
+	}
+
+	/**
+	 * Time limits of one call, each unset by default. A call that runs out
+	 * fails with a {@code TIMEOUT} fault.
+	 */
+	public static class Budget {
+
+		/**
+		 * How long a request may wait for a connection to be sent on, pooled or
+		 * newly opened. Not enforced over HTTP/2, where it is part of
+		 * {@code first-byte}.
+		 */
+		private Duration connect;
+
+		/**
+		 * How long a request may wait for the response headers.
+		 */
+		private Duration firstByte;
+
+		/**
+		 * How long the whole call may take, reading the response body included.
+		 */
+		private Duration total;
+
+		public Duration getConnect() {
+			return connect;
+		}
+
+		public void setConnect(Duration connect) {
+			this.connect = connect;
+		}
+
+		public Duration getFirstByte() {
+			return firstByte;
+		}
+
+		public void setFirstByte(Duration firstByte) {
+			this.firstByte = firstByte;
+		}
+
+		public Duration getTotal() {
+			return total;
+		}
+
+		public void setTotal(Duration total) {
+			this.total = total;
+		}
+
+	}
+
+}
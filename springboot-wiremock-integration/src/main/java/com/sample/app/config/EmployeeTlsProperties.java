@@ -0,0 +1,68 @@
+package com.sample.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * TLS to https base URIs of the employee API, bound from
+ * {@code employee.client.tls.*}. The same settings apply over HTTP/1.1 and
+ * HTTP/2.
+ */
+@ConfigurationProperties(prefix = "employee.client.tls")
+public class EmployeeTlsProperties {
+
+	/**
+	 * Whether any server certificate is accepted. Only meant for test servers
+	 * with self-signed certificates.
+	 */
+	private boolean trustAll = false;
+
+	/**
+	 * Maximum number of sessions kept, per host and port, so that a new
+	 * connection can resume one instead of doing a full handshake.
+	 */
+	private int sessionCacheSize = 1024;
+
+	/**
+	 * How long a session can be resumed, in milliseconds.
+	 */
+	private long sessionTimeoutMs = 3600000;
+
+	/**
+	 * {@code jdk}, or {@code openssl} for handshakes and encryption by OpenSSL
+	 * through netty-tcnative when it is on the classpath.
+	 */
+	private String provider = "jdk";
+
+	public boolean isTrustAll() {
+		return trustAll;
+	}
+
+	public void setTrustAll(boolean trustAll) {
+		this.trustAll = trustAll;
+	}
+
+	public int getSessionCacheSize() {
+		return sessionCacheSize;
+	}
+
+	public void setSessionCacheSize(int sessionCacheSize) {
+		this.sessionCacheSize = sessionCacheSize;
+	}
+
+	public long getSessionTimeoutMs() {
+		return sessionTimeoutMs;
+	}
+
+	public void setSessionTimeoutMs(long sessionTimeoutMs) {
+		this.sessionTimeoutMs = sessionTimeoutMs;
+	}
+
+	public String getProvider() {
+		return provider;
+	}
+
+	public void setProvider(String provider) {
+		this.provider = provider;
+	}
+
+}
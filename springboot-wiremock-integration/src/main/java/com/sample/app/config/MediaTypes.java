@@ -0,0 +1,29 @@
+package com.sample.app.config;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Media types spoken by the employee API that are not predefined in
+ * {@link MediaType}.
+ */
+public final class MediaTypes {
+
+	/**
+	 * Newline delimited JSON, one employee per line.
+	 */
+	public static final MediaType APPLICATION_NDJSON = new MediaType("application", "x-ndjson");
+
+	/**
+	 * Jackson's binary JSON.
+	 */
+	public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+	/**
+	 * JSON Merge Patch, RFC 7396.
+	 */
+	public static final MediaType APPLICATION_MERGE_PATCH_JSON = new MediaType("application", "merge-patch+json");
+
+	private MediaTypes() {
+	}
+
+}
@@ -0,0 +1,26 @@
+package com.sample.app.exception;
+
+/**
+ * Thrown instead of sending a request when as many requests as the adaptive
+ * concurrency limit allows are already in flight. Nothing reached the
+ * server, so the call can safely be retried later.
+ */
+public class ConcurrencyLimitExceededException extends EmployeeApiException {
+
+	private static final long serialVersionUID = 7719468230946106842L;
+
+	private final int limit;
+
+	public ConcurrencyLimitExceededException(int limit) {
+		super("Concurrency limit of " + limit + " requests to the employee API reached", Fault.REJECTED);
+		this.limit = limit;
+	}
+
+	/**
+	 * The limit in force when the request was rejected.
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+}
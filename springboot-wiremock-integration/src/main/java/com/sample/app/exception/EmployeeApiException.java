@@ -4,8 +4,50 @@ public class EmployeeApiException extends RuntimeException {
 
 	private static final long serialVersionUID = 119874212393098L;
 
+	/**
+	 * What went wrong, as far as the client can tell.
+	 */
+	public enum Fault {
+		/** The server answered with a 4xx or 5xx status. */
+		HTTP_STATUS,
+		/** No response, or no complete response, arrived in time. */
+		TIMEOUT,
+		/** The connection was reset or closed before a response arrived. */
+		CONNECTION_RESET,
+		/** The response was cut off or its body could not be decoded. */
+		MALFORMED_RESPONSE,
+		/** The request was refused by the client without being sent. */
+		REJECTED,
+		OTHER
+	}
+
+	private final int status;
+
+	private final Fault fault;
+
 	public EmployeeApiException(String msg) {
-		super(msg);
+		this(msg, Fault.OTHER, 0, null);
+	}
+
+	public EmployeeApiException(String msg, Fault fault) {
+		this(msg, fault, 0, null);
+	}
+
+	public EmployeeApiException(String msg, Fault fault, int status, Throwable cause) {
+		super(msg, cause);
+		this.fault = fault;
+		this.status = status;
+	}
+
+	/**
+	 * HTTP status of the failed response, or 0 if there was none.
+	 */
+	public int getStatus() {
+		return status;
+	}
+
+	public Fault getFault() {
+		return fault;
 	}
 
 }
@@ -0,0 +1,49 @@
+package com.sample.app.model;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Fields of an {@link Employee} that a read can be limited to. Fields left
+ * out of a projection keep their defaults, {@code 0} or {@code null}.
+ */
+public enum EmployeeField {
+
+	ID("id"), FIRST_NAME("firstName"), LAST_NAME("lastName");
+
+	private final String jsonName;
+
+	EmployeeField(String jsonName) {
+		this.jsonName = jsonName;
+	}
+
+	public String getJsonName() {
+		return jsonName;
+	}
+
+	/**
+	 * The JSON names of {@code fields}, comma separated in declaration order,
+	 * as in {@code fields=id,firstName}.
+	 */
+	public static String toQueryParam(Set<EmployeeField> fields) {
+		return fields.stream().sorted().map(EmployeeField::getJsonName).collect(Collectors.joining(","));
+	}
+
+	/**
+	 * A copy of {@code emp} with only {@code fields} set.
+	 */
+	public static Employee project(Employee emp, Set<EmployeeField> fields) {
+		Employee projected = new Employee();
+		if (fields.contains(ID)) {
+			projected.setId(emp.getId());
+		}
+		if (fields.contains(FIRST_NAME)) {
+			projected.setFirstName(emp.getFirstName());
+		}
+		if (fields.contains(LAST_NAME)) {
+			projected.setLastName(emp.getLastName());
+		}
+		return projected;
+	}
+
+}
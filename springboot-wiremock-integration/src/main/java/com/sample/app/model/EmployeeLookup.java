@@ -0,0 +1,50 @@
+package com.sample.app.model;
+
+import com.sample.app.exception.EmployeeApiException;
+
+/**
+ * Outcome of looking up a single id as part of a bulk lookup: either the
+ * employee that was found or the error that prevented it.
+ */
+public class EmployeeLookup {
+
+	private final int id;
+	private final Employee employee;
+	private final EmployeeApiException error;
+
+	private EmployeeLookup(int id, Employee employee, EmployeeApiException error) {
+		this.id = id;
+		this.employee = employee;
+		this.error = error;
+	}
+
+	public static EmployeeLookup found(int id, Employee employee) {
+		return new EmployeeLookup(id, employee, null);
+	}
+
+	public static EmployeeLookup failed(int id, EmployeeApiException error) {
+		return new EmployeeLookup(id, null, error);
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public Employee getEmployee() {
+		return employee;
+	}
+
+	public EmployeeApiException getError() {
+		return error;
+	}
+
+	public boolean isFound() {
+		return error == null;
+	}
+
+	@Override
+	public String toString() {
+		return "EmployeeLookup [id=" + id + ", employee=" + employee + ", error=" + error + "]";
+	}
+
+}
@@ -0,0 +1,37 @@
+package com.sample.app.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of the employee directory. Servers that page by cursor send the
+ * token of the following page in {@code nextCursor}, which is absent on the
+ * last page; servers that page by offset leave it out altogether.
+ */
+public class EmployeePage {
+
+	private List<Employee> employees = Collections.emptyList();
+	private String nextCursor;
+
+	public List<Employee> getEmployees() {
+		return employees;
+	}
+
+	public void setEmployees(List<Employee> employees) {
+		this.employees = employees != null ? employees : Collections.emptyList();
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(String nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+
+	@Override
+	public String toString() {
+		return "EmployeePage [employees=" + employees.size() + ", nextCursor=" + nextCursor + "]";
+	}
+
+}
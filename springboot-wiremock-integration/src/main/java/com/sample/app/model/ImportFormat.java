@@ -0,0 +1,30 @@
+package com.sample.app.model;
+
+import java.nio.file.Path;
+
+/**
+ * Formats a bulk import can read.
+ */
+public enum ImportFormat {
+
+	/**
+	 * Comma separated values. The first line names the columns, of which
+	 * {@code firstName} and {@code lastName} are required and {@code id} is
+	 * optional. Fields may be quoted, but a record has to fit on one line.
+	 */
+	CSV,
+
+	/**
+	 * One JSON employee object per line.
+	 */
+	NDJSON;
+
+	/**
+	 * Picks the format from the file extension: {@code .csv} is CSV, anything
+	 * else is read as NDJSON.
+	 */
+	public static ImportFormat of(Path file) {
+		return file.getFileName().toString().toLowerCase().endsWith(".csv") ? CSV : NDJSON;
+	}
+
+}
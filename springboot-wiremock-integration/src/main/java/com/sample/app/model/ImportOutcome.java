@@ -0,0 +1,54 @@
+package com.sample.app.model;
+
+/**
+ * Outcome of importing one record of a bulk import: either the employee the
+ * server created or the reason the record was not imported. The reason is
+ * an {@link com.sample.app.exception.EmployeeApiException} when the server
+ * refused the record, and an {@link IllegalArgumentException} when the
+ * record could not be read.
+ */
+public class ImportOutcome {
+
+	private final long line;
+	private final Employee created;
+	private final RuntimeException error;
+
+	private ImportOutcome(long line, Employee created, RuntimeException error) {
+		this.line = line;
+		this.created = created;
+		this.error = error;
+	}
+
+	public static ImportOutcome imported(long line, Employee created) {
+		return new ImportOutcome(line, created, null);
+	}
+
+	public static ImportOutcome failed(long line, RuntimeException error) {
+		return new ImportOutcome(line, null, error);
+	}
+
+	/**
+	 * Line of the source the record was read from, starting at 1.
+	 */
+	public long getLine() {
+		return line;
+	}
+
+	public Employee getCreated() {
+		return created;
+	}
+
+	public RuntimeException getError() {
+		return error;
+	}
+
+	public boolean isImported() {
+		return error == null;
+	}
+
+	@Override
+	public String toString() {
+		return "ImportOutcome [line=" + line + ", created=" + created + ", error=" + error + "]";
+	}
+
+}
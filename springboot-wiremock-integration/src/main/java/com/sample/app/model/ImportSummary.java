@@ -0,0 +1,50 @@
+package com.sample.app.model;
+
+import java.time.Duration;
+
+/**
+ * Counts and throughput of a finished bulk import.
+ */
+public class ImportSummary {
+
+	private final long imported;
+	private final long failed;
+	private final Duration elapsed;
+
+	public ImportSummary(long imported, long failed, Duration elapsed) {
+		this.imported = imported;
+		this.failed = failed;
+		this.elapsed = elapsed;
+	}
+
+	public long getImported() {
+		return imported;
+	}
+
+	public long getFailed() {
+		return failed;
+	}
+
+	public long getTotal() {
+		return imported + failed;
+	}
+
+	public Duration getElapsed() {
+		return elapsed;
+	}
+
+	/**
+	 * Records processed per second, failed ones included.
+	 */
+	public double getRecordsPerSecond() {
+		long nanos = elapsed.toNanos();
+		return nanos == 0 ? 0 : getTotal() * 1_000_000_000d / nanos;
+	}
+
+	@Override
+	public String toString() {
+		return "ImportSummary [imported=" + imported + ", failed=" + failed + ", elapsed=" + elapsed
+				+ ", recordsPerSecond=" + String.format("%.1f", getRecordsPerSecond()) + "]";
+	}
+
+}
@@ -0,0 +1,53 @@
+package com.sample.app.model;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.sample.app.exception.EmployeeApiException;
+
+/**
+ * Answer to one query of a typeahead: the employees whose name contains the
+ * query, or the error that prevented the search.
+ */
+public class NameSuggestions {
+
+	private final String query;
+	private final List<Employee> employees;
+	private final EmployeeApiException error;
+
+	private NameSuggestions(String query, List<Employee> employees, EmployeeApiException error) {
+		this.query = query;
+		this.employees = employees;
+		this.error = error;
+	}
+
+	public static NameSuggestions found(String query, List<Employee> employees) {
+		return new NameSuggestions(query, employees, null);
+	}
+
+	public static NameSuggestions failed(String query, EmployeeApiException error) {
+		return new NameSuggestions(query, Collections.emptyList(), error);
+	}
+
+	public String getQuery() {
+		return query;
+	}
+
+	public List<Employee> getEmployees() {
+		return employees;
+	}
+
+	public EmployeeApiException getError() {
+		return error;
+	}
+
+	public boolean isFound() {
+		return error == null;
+	}
+
+	@Override
+	public String toString() {
+		return "NameSuggestions [query=" + query + ", employees=" + employees + ", error=" + error + "]";
+	}
+
+}
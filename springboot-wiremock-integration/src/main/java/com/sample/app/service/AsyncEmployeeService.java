@@ -0,0 +1,43 @@
+package com.sample.app.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import com.sample.app.model.Employee;
+import com.sample.app.model.EmployeeField;
+import com.sample.app.model.EmployeeLookup;
+
+/**
+ * {@link CompletableFuture} flavour of {@link EmployeeService} for callers that
+ * are not built on Reactor. Every call returns immediately; failures complete
+ * the future exceptionally with an
+ * {@link com.sample.app.exception.EmployeeApiException}.
+ */
+public interface AsyncEmployeeService {
+
+	public CompletableFuture<List<Employee>> emps();
+
+	public CompletableFuture<List<Employee>> emps(Set<EmployeeField> fields);
+
+	public CompletableFuture<Employee> byId(int id);
+
+	public CompletableFuture<List<EmployeeLookup>> byIds(Collection<Integer> ids);
+
+	public CompletableFuture<List<Employee>> containsName(String name);
+
+	public CompletableFuture<List<Employee>> containsName(String name, Set<EmployeeField> fields);
+
+	public CompletableFuture<Employee> addEmployee(Employee emp);
+
+	public CompletableFuture<Employee> updateEmployee(int id, Employee emp);
+
+	public CompletableFuture<Employee> patchEmployee(int id, Employee previous, Employee updated);
+
+	public CompletableFuture<Employee> patchEmployee(int id, Map<String, Object> fields);
+
+	public CompletableFuture<Employee> deleteEmployee(int id);
+
+}
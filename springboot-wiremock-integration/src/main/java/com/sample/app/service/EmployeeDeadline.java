@@ -0,0 +1,52 @@
+package com.sample.app.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Function;
+
+import reactor.util.context.Context;
+
+/**
+ * A caller's deadline for calls of {@link ReactiveEmployeeService}, carried in
+ * the subscriber context:
+ *
+ * <pre>
+ * service.byId(7).retry(2).subscriberContext(EmployeeDeadline.in(Duration.ofMillis(800)))
+ * </pre>
+ *
+ * The deadline is fixed when the call is subscribed to, so retries and hedges
+ * between the call and {@code subscriberContext} share what is left of it.
+ * Every request is cut short when it runs out, one that would start after it
+ * fails without being sent, and the time left is sent along to the server.
+ */
+public final class EmployeeDeadline {
+
+	private static final String KEY = EmployeeDeadline.class.getName();
+
+	private EmployeeDeadline() {
+	}
+
+	/**
+	 * A deadline {@code timeout} after subscription.
+	 */
+	public static Function<Context, Context> in(Duration timeout) {
+		return context -> context.put(KEY, System.nanoTime() + timeout.toNanos());
+	}
+
+	/**
+	 * A deadline at {@code instant}, as far as the local clock can tell.
+	 */
+	public static Function<Context, Context> at(Instant instant) {
+		return context -> context.put(KEY,
+				System.nanoTime() + Duration.between(Instant.now(), instant).toNanos());
+	}
+
+	/**
+	 * The deadline in {@code context}, in {@link System#nanoTime()} terms.
+	 */
+	public static Optional<Long> of(Context context) {
+		return context.getOrEmpty(KEY);
+	}
+
+}
@@ -0,0 +1,41 @@
+package com.sample.app.service;
+
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+
+import com.sample.app.model.ImportFormat;
+import com.sample.app.model.ImportOutcome;
+import com.sample.app.model.ImportSummary;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Imports employees in bulk from CSV or NDJSON. Records are read as they are
+ * needed, so memory use does not depend on the size of the source, and
+ * nothing is read until the returned flux is subscribed to. Every record
+ * yields one {@link ImportOutcome}, in no particular order, and a record that
+ * cannot be read or is refused by the server does not stop the import.
+ */
+public interface EmployeeImportService {
+
+	/**
+	 * Imports the records of {@code file}, in the {@link ImportFormat} its
+	 * extension suggests.
+	 */
+	public Flux<ImportOutcome> importFile(Path file);
+
+	/**
+	 * Imports the records read from the reader {@code source} opens. The reader
+	 * is opened on subscription and closed when the import terminates or is
+	 * cancelled.
+	 */
+	public Flux<ImportOutcome> importFrom(Callable<? extends Reader> source, ImportFormat format);
+
+	/**
+	 * Counts the outcomes of an import as they go by, without keeping them.
+	 */
+	public Mono<ImportSummary> summarize(Flux<ImportOutcome> outcomes);
+
+}
@@ -1,21 +1,62 @@
 package com.sample.app.service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import com.sample.app.model.Employee;
+import com.sample.app.model.EmployeeField;
+import com.sample.app.model.EmployeeLookup;
 
 public interface EmployeeService {
 
 	public List<Employee> emps();
 
+	/**
+	 * Employees with only {@code fields} set; see
+	 * {@link ReactiveEmployeeService#emps(Set)}.
+	 */
+	public List<Employee> emps(Set<EmployeeField> fields);
+
 	public Employee byId(int id);
 
+	/**
+	 * Looks up many ids concurrently; see
+	 * {@link ReactiveEmployeeService#byIds(Collection)}.
+	 */
+	public List<EmployeeLookup> byIds(Collection<Integer> ids);
+
 	public List<Employee> containsName(String name);
 
+	public List<Employee> containsName(String name, Set<EmployeeField> fields);
+
+	/**
+	 * Streams all employees as they are decoded instead of materialising the
+	 * whole list. The stream holds an open exchange and must be closed, e.g.
+	 * with try-with-resources, when not consumed to the end.
+	 */
+	public Stream<Employee> streamEmps();
+
+	/**
+	 * Streaming variant of {@link #containsName(String)}; see
+	 * {@link #streamEmps()}.
+	 */
+	public Stream<Employee> streamContainsName(String name);
+
 	public Employee addEmployee(Employee emp);
 
 	public Employee updateEmployee(int id, Employee emp);
 
+	/**
+	 * Sends only the changed fields; see
+	 * {@link ReactiveEmployeeService#patchEmployee(int, Employee, Employee)}.
+	 */
+	public Employee patchEmployee(int id, Employee previous, Employee updated);
+
+	public Employee patchEmployee(int id, Map<String, Object> fields);
+
 	public Employee deleteEmployee(int id);
 
 }
@@ -0,0 +1,24 @@
+package com.sample.app.service;
+
+import org.reactivestreams.Publisher;
+
+import com.sample.app.model.NameSuggestions;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Name search for input that is typed one key at a time, where only the
+ * answer to the latest input matters.
+ */
+public interface EmployeeTypeaheadService {
+
+	/**
+	 * Searches for each query that is not followed by another one within the
+	 * debounce interval, and emits its {@link NameSuggestions}. A newer query
+	 * cancels the search still in flight for an older one, so answers arrive
+	 * in the order of the queries and never for a superseded one. A failed
+	 * search is reported in its suggestions rather than ending the flux.
+	 */
+	public Flux<NameSuggestions> suggestions(Publisher<String> queries);
+
+}
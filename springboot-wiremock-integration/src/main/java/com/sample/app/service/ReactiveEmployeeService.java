@@ -0,0 +1,104 @@
+package com.sample.app.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.sample.app.model.Employee;
+import com.sample.app.model.EmployeeField;
+import com.sample.app.model.EmployeeLookup;
+import com.sample.app.model.EmployeePage;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link EmployeeService}. Nothing is sent to the
+ * employee API until the returned publisher is subscribed to, and no caller
+ * thread is held while the exchange is in flight.
+ */
+public interface ReactiveEmployeeService {
+
+	public Flux<Employee> emps();
+
+	/**
+	 * {@link #emps()} with only {@code fields} set. The server is asked for
+	 * just those fields, and any others it sends anyway are skipped while
+	 * decoding.
+	 */
+	public Flux<Employee> emps(Set<EmployeeField> fields);
+
+	/**
+	 * Reads the directory page by page, asking for the next page while the
+	 * caller still works through the current one. Nothing beyond the pages the
+	 * caller reads and {@code prefetch} more is fetched, so
+	 * {@code pagedEmps(100, 1).take(250)} costs at most four requests. A
+	 * blocking caller can iterate over {@code pagedEmps(...).toIterable()}.
+	 * When the first page carries a cursor, each next page is taken from the
+	 * cursor the page before sent along, up to a page without one. Otherwise
+	 * a full page is followed by the page at the next offset.
+	 */
+	public Flux<Employee> pagedEmps(int pageSize, int prefetch);
+
+	/**
+	 * {@link #pagedEmps(int, int)} with {@code employee.client.paging.page-size}
+	 * and {@code employee.client.paging.prefetch}.
+	 */
+	public Flux<Employee> pagedEmps();
+
+	public Mono<EmployeePage> empsPage(int offset, int limit);
+
+	/**
+	 * The page {@code cursor} points to, or the first page for a {@code null}
+	 * cursor.
+	 */
+	public Mono<EmployeePage> empsPage(String cursor, int limit);
+
+	public Mono<Employee> byId(int id);
+
+	/**
+	 * Looks up many ids at once. Results are emitted in the order of
+	 * {@code ids}, one per id, and a failed lookup is reported in its
+	 * {@link EmployeeLookup} rather than terminating the flux.
+	 */
+	public Flux<EmployeeLookup> byIds(Collection<Integer> ids);
+
+	public Flux<Employee> containsName(String name);
+
+	/**
+	 * {@link #containsName(String)} with only {@code fields} set; see
+	 * {@link #emps(Set)}.
+	 */
+	public Flux<Employee> containsName(String name, Set<EmployeeField> fields);
+
+	public Mono<Employee> addEmployee(Employee emp);
+
+	/**
+	 * Creates all of {@code emps} with one request to the bulk endpoint and
+	 * emits the created employees in the same order. Fails with an
+	 * {@link com.sample.app.exception.EmployeeApiException} with status 404 if
+	 * the server has no bulk endpoint.
+	 */
+	public Flux<Employee> addEmployees(List<Employee> emps);
+
+	public Mono<Employee> updateEmployee(int id, Employee emp);
+
+	/**
+	 * Sends only the fields in which {@code updated} differs from
+	 * {@code previous}, as a JSON Merge Patch. If nothing differs, nothing is
+	 * sent and {@code updated} is emitted. A server that refuses PATCH gets
+	 * {@code updated} as a whole with PUT instead.
+	 */
+	public Mono<Employee> patchEmployee(int id, Employee previous, Employee updated);
+
+	/**
+	 * Sends {@code fields}, by JSON name, as a JSON Merge Patch; a {@code null}
+	 * value clears the field. A server that refuses PATCH gets the employee
+	 * read back with the fields applied, with PUT instead.
+	 */
+	public Mono<Employee> patchEmployee(int id, Map<String, Object> fields);
+
+	public Mono<Employee> deleteEmployee(int id);
+
+}
@@ -0,0 +1,293 @@
+package com.sample.app.service.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+import com.sample.app.exception.ConcurrencyLimitExceededException;
+import com.sample.app.exception.EmployeeApiException;
+import com.sample.app.exception.EmployeeApiException.Fault;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import reactor.core.publisher.Mono;
+
+/**
+ * Limits the number of requests in flight to the employee API to what it
+ * currently sustains, and fails the rest at once with
+ * {@link ConcurrencyLimitExceededException} instead of queueing them.
+ * <p>
+ * The limit follows the gradient between the long-term and the latest round
+ * trip time, as in Netflix's Gradient2 limiter. While the server answers as
+ * fast as usual the limit grows by a small queue allowance. When answers slow
+ * down it shrinks in proportion, down to half per sample. A 429, a 5xx or a
+ * failed exchange also cuts it by {@code backoff-ratio}. A request holds its
+ * permit, and its round trip is measured, until its response body has been
+ * read, so that streamed reads count for as long as they take. Each
+ * compartment of {@code employee.client.bulkheads} has a limit of its own, see
+ * {@link #filter(Function)}, and the meters are tagged with it. Disabled
+ * unless {@code employee.client.limiter.enabled} is set.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter implements MeterBinder {
+
+	private static final double SMOOTHING = 0.2;
+
+	private static final int LONG_WINDOW = 600;
+
+	private static final String SHARED = "shared";
+
+	@Value("${employee.client.limiter.enabled:false}")
+	private boolean enabled;
+
+	@Value("${employee.client.limiter.initial-limit:20}")
+	private int initialLimit;
+
+	@Value("${employee.client.limiter.min-limit:4}")
+	private int minLimit;
+
+	@Value("${employee.client.limiter.max-limit:200}")
+	private int maxLimit;
+
+	@Value("${employee.client.limiter.rtt-tolerance:1.5}")
+	private double rttTolerance;
+
+	@Value("${employee.client.limiter.backoff-ratio:0.9}")
+	private double backoffRatio;
+
+	private final Limit shared = new Limit(SHARED);
+
+	private final Map<String, Limit> compartments = new ConcurrentHashMap<>();
+
+	private volatile MeterRegistry registry;
+
+	@PostConstruct
+	void start() {
+		shared.update(initialLimit);
+	}
+
+	/**
+	 * Limits all exchanges together.
+	 */
+	public ExchangeFilterFunction filter() {
+		return filter(operation -> null);
+	}
+
+	/**
+	 * Limits the exchanges of each compartment on their own, so that slow calls
+	 * of one neither take the permits of another nor slow down the round trips
+	 * its limit follows. {@code compartmentOf} maps an operation to its
+	 * compartment, or to {@code null} for the shared limit, which also takes
+	 * exchanges of no known operation.
+	 */
+	public ExchangeFilterFunction filter(Function<String, String> compartmentOf) {
+		return (request, next) -> {
+			if (!enabled) {
+				return next.exchange(request);
+			}
+			return Mono.subscriberContext().flatMap(context -> {
+				String compartment = EmployeeClientMetrics.operationOf(context).map(compartmentOf).orElse(null);
+				return limitOf(compartment).filter(request, next);
+			});
+		};
+	}
+
+	private Limit limitOf(String compartment) {
+		if (compartment == null) {
+			return shared;
+		}
+		return compartments.computeIfAbsent(compartment, name -> {
+			Limit limit = new Limit(name);
+			limit.update(initialLimit);
+			MeterRegistry bound = registry;
+			if (bound != null) {
+				limit.bindTo(bound);
+			}
+			return limit;
+		});
+	}
+
+	/**
+	 * Overload shows up as 429 or 5xx answers, timeouts and refused or reset
+	 * connections. Other client errors say nothing about the server's load.
+	 */
+	private static boolean isDropped(ClientResponse response, Throwable error) {
+		if (error != null) {
+			return true;
+		}
+		int status = response.rawStatusCode();
+		return status == 429 || status >= 500;
+	}
+
+	/**
+	 * A request the client refused itself, such as one beyond the queue of a
+	 * full pool, tells nothing about the server.
+	 */
+	private static boolean isNotSent(Throwable error) {
+		return error instanceof EmployeeApiException && ((EmployeeApiException) error).getFault() == Fault.REJECTED;
+	}
+
+	/**
+	 * Number of requests currently allowed in flight outside the compartments.
+	 */
+	public int getLimit() {
+		return shared.limit;
+	}
+
+	public int getInFlight() {
+		return shared.inFlight.get();
+	}
+
+	/**
+	 * Number of requests failed with {@link ConcurrencyLimitExceededException}
+	 * outside the compartments.
+	 */
+	public long getRejected() {
+		return shared.rejected.get();
+	}
+
+	/**
+	 * Number of requests of {@code compartment} currently allowed in flight.
+	 */
+	public int getLimit(String compartment) {
+		return limitOf(compartment).limit;
+	}
+
+	public int getInFlight(String compartment) {
+		return limitOf(compartment).inFlight.get();
+	}
+
+	public long getRejected(String compartment) {
+		return limitOf(compartment).rejected.get();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		this.registry = registry;
+		shared.bindTo(registry);
+		compartments.values().forEach(limit -> limit.bindTo(registry));
+	}
+
+	private final class Limit {
+
+		private final String compartment;
+
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		private final AtomicLong rejected = new AtomicLong();
+
+		private double estimatedLimit;
+
+		private double longRttNanos;
+
+		private volatile int limit;
+
+		private Limit(String compartment) {
+			this.compartment = compartment;
+		}
+
+		private Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+			int currentLimit = limit;
+			int inFlightAtStart = inFlight.incrementAndGet();
+			if (inFlightAtStart > currentLimit) {
+				inFlight.decrementAndGet();
+				rejected.incrementAndGet();
+				return Mono.error(new ConcurrencyLimitExceededException(currentLimit));
+			}
+
+			Permit permit = new Permit(inFlightAtStart);
+			return next.exchange(request).doOnError(error -> permit.release(null, error))
+					.doOnCancel(() -> permit.release(null, null))
+					.map(response -> ClientResponse.from(response).body(response.bodyToFlux(DataBuffer.class)
+							.doOnComplete(() -> permit.release(response, null))
+							.doOnError(error -> permit.release(response, error))
+							.doOnCancel(() -> permit.release(null, null))).build());
+		}
+
+		private synchronized void onSample(long rttNanos, int inFlightAtStart, boolean dropped) {
+			double current = estimatedLimit;
+			if (dropped) {
+				update(current * backoffRatio);
+				return;
+			}
+
+			if (longRttNanos == 0) {
+				longRttNanos = rttNanos;
+			} else {
+				longRttNanos += (rttNanos - longRttNanos) / LONG_WINDOW;
+			}
+			// let the baseline catch up quickly when the server got faster again
+			if (longRttNanos / rttNanos > 2) {
+				longRttNanos *= 0.95;
+			}
+
+			double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttNanos / rttNanos));
+			if (gradient >= 1.0 && inFlightAtStart < current / 2) {
+				// a limit that is not used cannot be judged
+				return;
+			}
+			double target = current * gradient + Math.sqrt(current);
+			update(current * (1 - SMOOTHING) + target * SMOOTHING);
+		}
+
+		private void update(double newLimit) {
+			estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+			limit = (int) estimatedLimit;
+		}
+
+		/**
+		 * The place of one request, given back when its response body has been
+		 * read or has failed. A cancelled request leaves no sample.
+		 */
+		private final class Permit {
+
+			private final long start = System.nanoTime();
+
+			private final int inFlightAtStart;
+
+			private final AtomicBoolean released = new AtomicBoolean();
+
+			private Permit(int inFlightAtStart) {
+				this.inFlightAtStart = inFlightAtStart;
+			}
+
+			private void release(ClientResponse response, Throwable error) {
+				if (!released.compareAndSet(false, true)) {
+					return;
+				}
+				inFlight.decrementAndGet();
+				if ((response != null || error != null) && !isNotSent(error)) {
+					onSample(System.nanoTime() - start, inFlightAtStart, isDropped(response, error));
+				}
+			}
+
+		}
+
+		private void bindTo(MeterRegistry registry) {
+			Tags tags = Tags.of("compartment", compartment);
+			Gauge.builder("employee.client.limiter.limit", this, limit -> limit.limit).tags(tags).register(registry);
+			Gauge.builder("employee.client.limiter.inflight", this, limit -> limit.inFlight.get()).tags(tags)
+					.register(registry);
+			FunctionCounter.builder("employee.client.limiter.rejected", this, limit -> limit.rejected.get())
+					.tags(tags).register(registry);
+		}
+
+	}
+
+}
@@ -0,0 +1,79 @@
+package com.sample.app.service.impl;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.sample.app.model.Employee;
+import com.sample.app.model.EmployeeField;
+import com.sample.app.model.EmployeeLookup;
+import com.sample.app.service.AsyncEmployeeService;
+import com.sample.app.service.ReactiveEmployeeService;
+
+@Service
+public class AsyncEmployeeRestClient implements AsyncEmployeeService {
+
+	@Autowired
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Override
+	public CompletableFuture<List<Employee>> emps() {
+		return reactiveEmployeeService.emps().collectList().toFuture();
+	}
+
+	@Override
+	public CompletableFuture<List<Employee>> emps(Set<EmployeeField> fields) {
+		return reactiveEmployeeService.emps(fields).collectList().toFuture();
+	}
+
+	@Override
+	public CompletableFuture<Employee> byId(int id) {
+		return reactiveEmployeeService.byId(id).toFuture();
+	}
+
+	@Override
+	public CompletableFuture<List<EmployeeLookup>> byIds(Collection<Integer> ids) {
+		return reactiveEmployeeService.byIds(ids).collectList().toFuture();
+	}
+
+	@Override
+	public CompletableFuture<List<Employee>> containsName(String name) {
+		return reactiveEmployeeService.containsName(name).collectList().toFuture();
+	}
+
+	@Override
+	public CompletableFuture<List<Employee>> containsName(String name, Set<EmployeeField> fields) {
+		return reactiveEmployeeService.containsName(name, fields).collectList().toFuture();
+	}
+
+	@Override
+	public CompletableFuture<Employee> addEmployee(Employee emp) {
+		return reactiveEmployeeService.addEmployee(emp).toFuture();
+	}
+
+	@Override
+	public CompletableFuture<Employee> updateEmployee(int id, Employee emp) {
+		return reactiveEmployeeService.updateEmployee(id, emp).toFuture();
+	}
+
+	@Override
+	public CompletableFuture<Employee> patchEmployee(int id, Employee previous, Employee updated) {
+		return reactiveEmployeeService.patchEmployee(id, previous, updated).toFuture();
+	}
+
+	@Override
+	public CompletableFuture<Employee> patchEmployee(int id, Map<String, Object> fields) {
+		return reactiveEmployeeService.patchEmployee(id, fields).toFuture();
+	}
+
+	@Override
+	public CompletableFuture<Employee> deleteEmployee(int id) {
+		return reactiveEmployeeService.deleteEmployee(id).toFuture();
+	}
+
+}
@@ -0,0 +1,386 @@
+package com.sample.app.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.sample.app.config.EmployeeCacheProperties;
+import com.sample.app.model.Employee;
+import com.sample.app.model.EmployeeField;
+import com.sample.app.model.EmployeeLookup;
+import com.sample.app.model.EmployeePage;
+import com.sample.app.service.ReactiveEmployeeService;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Read-through cache in front of {@link ReactiveEmployeeRestClient}.
+ * <p>
+ * {@code byId}, {@code emps} and {@code containsName} responses are kept in a
+ * size-bounded Caffeine cache, which evicts with W-TinyLFU. An entry younger
+ * than the TTL is served as is. Within the stale-while-revalidate window after
+ * that it is still served, and refreshed in the background. Older entries are
+ * revalidated with {@code If-None-Match}/{@code If-Modified-Since} before
+ * being served, so an unchanged resource costs a 304 rather than a body.
+ * <p>
+ * Misses and revalidations go through the coalescing and hedging of the REST
+ * client, and name searches are answered from its local index when there is
+ * one. Writes drop the affected employee and every cached list. Lists are
+ * cached whole, so {@code emps()} loses its streaming behaviour with the
+ * cache on.
+ * Callers get copies of the cached employees and may modify them freely.
+ * Projected reads are not cached.
+ * <p>
+ * Hits, misses, evictions and the size of the cache are published as
+ * {@code employee.client.cache.*} meters, with the stale hits, the
+ * revalidations and the 304s they got.
+ */
+public class CachingEmployeeService implements ReactiveEmployeeService, MeterBinder {
+
+	private static final String EMPS_KEY = "emps";
+
+	private static final String CONTAINS_NAME_PREFIX = "containsName:";
+
+	/**
+	 * Looked up on first use, as the {@code WebClient} behind the REST client
+	 * depends on the meter registry that this binds to.
+	 */
+	private final ObjectProvider<ReactiveEmployeeRestClient> delegates;
+
+	private volatile ReactiveEmployeeRestClient delegate;
+
+	private final Cache<String, Entry<?>> cache;
+
+	private final long ttlNanos;
+
+	private final long staleNanos;
+
+	private final Map<String, Boolean> revalidating = new ConcurrentHashMap<>();
+
+	private final AtomicLong generation = new AtomicLong();
+
+	private final AtomicLong staleHits = new AtomicLong();
+
+	private final AtomicLong revalidations = new AtomicLong();
+
+	private final AtomicLong notModified = new AtomicLong();
+
+	public CachingEmployeeService(ObjectProvider<ReactiveEmployeeRestClient> delegates,
+			EmployeeCacheProperties properties) {
+		this.delegates = delegates;
+		this.ttlNanos = properties.getTtl().toNanos();
+		this.staleNanos = properties.getStaleWhileRevalidate().toNanos();
+		this.cache = Caffeine.newBuilder().maximumSize(properties.getMaximumSize())
+				.expireAfterWrite(properties.getRetention().toNanos(), TimeUnit.NANOSECONDS).executor(Runnable::run)
+				.recordStats().build();
+	}
+
+	@Override
+	public Flux<Employee> emps() {
+		return read(EMPS_KEY, validators -> delegate().emps(validators), CachingEmployeeService::copy)
+				.flatMapIterable(list -> list);
+	}
+
+	@Override
+	public Flux<Employee> emps(Set<EmployeeField> fields) {
+		return delegate().emps(fields);
+	}
+
+	@Override
+	public Flux<Employee> pagedEmps(int pageSize, int prefetch) {
+		return delegate().pagedEmps(pageSize, prefetch);
+	}
+
+	@Override
+	public Flux<Employee> pagedEmps() {
+		return delegate().pagedEmps();
+	}
+
+	@Override
+	public Mono<EmployeePage> empsPage(int offset, int limit) {
+		return delegate().empsPage(offset, limit);
+	}
+
+	@Override
+	public Mono<EmployeePage> empsPage(String cursor, int limit) {
+		return delegate().empsPage(cursor, limit);
+	}
+
+	@Override
+	public Mono<Employee> byId(int id) {
+		return read(byIdKey(id), validators -> delegate().byId(id, validators), CachingEmployeeService::copy);
+	}
+
+	@Override
+	public Flux<EmployeeLookup> byIds(Collection<Integer> ids) {
+		return delegate().byIds(ids);
+	}
+
+	/**
+	 * Answered from the local name index when it has a snapshot, which needs
+	 * no caching.
+	 */
+	@Override
+	public Flux<Employee> containsName(String name) {
+		return Flux.defer(() -> {
+			List<Employee> local = delegate().localContainsName(name);
+			if (local != null) {
+				return Flux.fromIterable(local);
+			}
+			return read(CONTAINS_NAME_PREFIX + name, validators -> delegate().containsName(name, validators),
+					CachingEmployeeService::copy).flatMapIterable(list -> list);
+		});
+	}
+
+	@Override
+	public Flux<Employee> containsName(String name, Set<EmployeeField> fields) {
+		return delegate().containsName(name, fields);
+	}
+
+	@Override
+	public Mono<Employee> addEmployee(Employee emp) {
+		return invalidating(delegate().addEmployee(emp), this::invalidateLists);
+	}
+
+	@Override
+	public Flux<Employee> addEmployees(List<Employee> emps) {
+		Runnable invalidation = this::invalidateLists;
+		return delegate().addEmployees(emps).doOnTerminate(invalidation).doOnCancel(invalidation);
+	}
+
+	@Override
+	public Mono<Employee> updateEmployee(int id, Employee emp) {
+		return invalidating(delegate().updateEmployee(id, emp), () -> invalidate(id));
+	}
+
+	@Override
+	public Mono<Employee> patchEmployee(int id, Employee previous, Employee updated) {
+		return invalidating(delegate().patchEmployee(id, previous, updated), () -> invalidate(id));
+	}
+
+	@Override
+	public Mono<Employee> patchEmployee(int id, Map<String, Object> fields) {
+		return invalidating(delegate().patchEmployee(id, fields), () -> invalidate(id));
+	}
+
+	@Override
+	public Mono<Employee> deleteEmployee(int id) {
+		return invalidating(delegate().deleteEmployee(id), () -> invalidate(id));
+	}
+
+	/**
+	 * Hit, miss and eviction counts of the underlying cache. A stale entry served
+	 * while it is revalidated counts as a hit; see {@link #getStaleHits()}.
+	 */
+	public CacheStats getStats() {
+		return cache.stats();
+	}
+
+	public long getStaleHits() {
+		return staleHits.get();
+	}
+
+	/**
+	 * Number of conditional requests sent for entries that were present but past
+	 * their TTL.
+	 */
+	public long getRevalidations() {
+		return revalidations.get();
+	}
+
+	/**
+	 * Number of revalidations the server answered with 304 Not Modified.
+	 */
+	public long getNotModified() {
+		return notModified.get();
+	}
+
+	public long size() {
+		return cache.estimatedSize();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("employee.client.cache.gets", this, cache -> cache.getStats().hitCount())
+				.tag("result", "hit").register(registry);
+		FunctionCounter.builder("employee.client.cache.gets", this, cache -> cache.getStats().missCount())
+				.tag("result", "miss").register(registry);
+		FunctionCounter.builder("employee.client.cache.evictions", this, cache -> cache.getStats().evictionCount())
+				.register(registry);
+		Gauge.builder("employee.client.cache.size", this, CachingEmployeeService::size).register(registry);
+		FunctionCounter.builder("employee.client.cache.stale.hits", this, CachingEmployeeService::getStaleHits)
+				.register(registry);
+		FunctionCounter.builder("employee.client.cache.revalidations", this, CachingEmployeeService::getRevalidations)
+				.register(registry);
+		FunctionCounter.builder("employee.client.cache.not.modified", this, CachingEmployeeService::getNotModified)
+				.register(registry);
+	}
+
+	public void invalidateAll() {
+		generation.incrementAndGet();
+		cache.invalidateAll();
+	}
+
+	/**
+	 * Invalidates before the write's outcome is signalled, so a caller that reads
+	 * right after the write returns cannot see the old entry. A failed or
+	 * cancelled write may still have been applied and invalidates as well.
+	 */
+	private static <T> Mono<T> invalidating(Mono<T> write, Runnable invalidation) {
+		return write.doOnSuccessOrError((result, error) -> invalidation.run()).doOnCancel(invalidation);
+	}
+
+	private void invalidate(int id) {
+		generation.incrementAndGet();
+		cache.invalidate(byIdKey(id));
+		invalidateLists();
+	}
+
+	private void invalidateLists() {
+		generation.incrementAndGet();
+		cache.asMap().keySet().removeIf(key -> key.equals(EMPS_KEY) || key.startsWith(CONTAINS_NAME_PREFIX));
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> Mono<T> read(String key, Function<HttpHeaders, Mono<ResponseEntity<T>>> fetch, UnaryOperator<T> copy) {
+		return Mono.defer(() -> {
+			Entry<T> entry = (Entry<T>) cache.getIfPresent(key);
+			if (entry == null) {
+				return load(key, null, fetch);
+			}
+
+			long age = System.nanoTime() - entry.storedAt;
+			if (age <= ttlNanos) {
+				return Mono.just(entry.value);
+			}
+			if (age <= ttlNanos + staleNanos) {
+				staleHits.incrementAndGet();
+				revalidateInBackground(key, entry, fetch);
+				return Mono.just(entry.value);
+			}
+			return load(key, entry, fetch);
+		}).map(copy);
+	}
+
+	private <T> Mono<T> load(String key, Entry<T> previous, Function<HttpHeaders, Mono<ResponseEntity<T>>> fetch) {
+		long generationAtStart = generation.get();
+		HttpHeaders validators = new HttpHeaders();
+		if (previous != null) {
+			revalidations.incrementAndGet();
+			previous.addValidatorsTo(validators);
+		}
+
+		return fetch.apply(validators).flatMap(response -> {
+			Entry<T> entry;
+			if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && previous != null) {
+				notModified.incrementAndGet();
+				entry = previous.refreshedBy(response.getHeaders());
+			} else if (response.getBody() != null) {
+				entry = new Entry<>(response.getBody(), response.getHeaders());
+			} else {
+				return Mono.empty();
+			}
+
+			if (generation.get() == generationAtStart) {
+				cache.put(key, entry);
+			}
+			return Mono.just(entry.value);
+		});
+	}
+
+	private <T> void revalidateInBackground(String key, Entry<T> entry,
+			Function<HttpHeaders, Mono<ResponseEntity<T>>> fetch) {
+		if (revalidating.putIfAbsent(key, Boolean.TRUE) != null) {
+			return;
+		}
+		load(key, entry, fetch).doFinally(signal -> revalidating.remove(key)).subscribe(value -> {
+		}, error -> {
+		});
+	}
+
+	private ReactiveEmployeeRestClient delegate() {
+		ReactiveEmployeeRestClient client = delegate;
+		if (client == null) {
+			client = delegates.getObject();
+			delegate = client;
+		}
+		return client;
+	}
+
+	private static String byIdKey(int id) {
+		return "byId:" + id;
+	}
+
+	private static Employee copy(Employee emp) {
+		Employee copy = new Employee();
+		copy.setId(emp.getId());
+		copy.setFirstName(emp.getFirstName());
+		copy.setLastName(emp.getLastName());
+		return copy;
+	}
+
+	private static List<Employee> copy(List<Employee> emps) {
+		List<Employee> copies = new ArrayList<>(emps.size());
+		for (Employee emp : emps) {
+			copies.add(copy(emp));
+		}
+		return copies;
+	}
+
+	private static final class Entry<T> {
+
+		private final T value;
+		private final String etag;
+		private final String lastModified;
+		private final long storedAt;
+
+		Entry(T value, HttpHeaders headers) {
+			this(value, headers.getETag(), headers.getFirst(HttpHeaders.LAST_MODIFIED));
+		}
+
+		private Entry(T value, String etag, String lastModified) {
+			this.value = value;
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.storedAt = System.nanoTime();
+		}
+
+		Entry<T> refreshedBy(HttpHeaders headers) {
+			String newEtag = headers.getETag();
+			String newLastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+			return new Entry<>(value, newEtag != null ? newEtag : etag,
+					newLastModified != null ? newLastModified : lastModified);
+		}
+
+		void addValidatorsTo(HttpHeaders headers) {
+			if (etag != null) {
+				headers.setIfNoneMatch(etag);
+			}
+			if (lastModified != null) {
+				headers.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+			}
+		}
+
+	}
+
+}
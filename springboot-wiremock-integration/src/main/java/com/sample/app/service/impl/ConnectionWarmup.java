@@ -0,0 +1,184 @@
+package com.sample.app.service.impl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.sample.app.config.EmployeeBulkheads;
+import com.sample.app.config.EmployeeConnectionPool;
+import com.sample.app.config.EmployeeHttp2Transport;
+import com.sample.app.config.EmployeePoolProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Opens connections to the employee API while the application starts, so
+ * that the first calls after a deploy do not pay for DNS, the TCP connect and
+ * the TLS handshake.
+ * <p>
+ * With {@code employee.client.warmup.enabled}, {@code connections} HEAD
+ * requests for {@code path} are sent at once to every replica of
+ * {@code server.baseuri} through every pool, the bulkheads' included, which
+ * makes each pool open that many connections to each replica, at most its
+ * {@code max-connections}, and keep them idle for the calls to come. Over
+ * HTTP/2 the requests share the connections they need. Any answer will do;
+ * only the connection counts. The application runner waits for them up to
+ * {@code timeout-ms}, so the application is not ready before, and the health
+ * indicator reports {@code OUT_OF_SERVICE} until then. A replica that cannot
+ * be reached does not stop the start. The time taken and the connections
+ * opened are published as {@code employee.client.warmup.*} meters.
+ */
+@Component
+public class ConnectionWarmup implements ApplicationRunner, HealthIndicator, MeterBinder {
+
+	/**
+	 * Looked up when the warm-up runs, as the {@code WebClient} depends on the
+	 * meter registry that this binds to.
+	 */
+	@Autowired
+	private ObjectProvider<WebClient> webClient;
+
+	@Autowired
+	private ReplicaBalancer balancer;
+
+	@Autowired
+	private EmployeePoolProperties poolProperties;
+
+	@Autowired
+	private ObjectProvider<EmployeeConnectionPool> connectionPool;
+
+	@Autowired
+	private ObjectProvider<EmployeeBulkheads> bulkheads;
+
+	@Autowired
+	private ObjectProvider<EmployeeHttp2Transport> http2;
+
+	@Value("${employee.client.warmup.enabled:false}")
+	private boolean enabled;
+
+	@Value("${employee.client.warmup.connections:4}")
+	private int connections;
+
+	@Value("${employee.client.warmup.path:}")
+	private String path;
+
+	@Value("${employee.client.warmup.timeout-ms:10000}")
+	private long timeoutMillis;
+
+	private volatile int warmedConnections;
+
+	private volatile boolean done;
+
+	private volatile long durationNanos;
+
+	@Override
+	public void run(ApplicationArguments args) {
+		if (!enabled) {
+			done = true;
+			return;
+		}
+		int openBefore = openConnections();
+		long start = System.nanoTime();
+		List<Mono<Void>> requests = new ArrayList<>();
+		for (String baseUri : balancer.getBaseUris()) {
+			for (int i = Math.min(connections, poolProperties.getMaxConnections()); i > 0; i--) {
+				requests.add(connect(baseUri, null));
+			}
+			for (EmployeeConnectionPool pool : compartmentPools()) {
+				for (int i = Math.min(connections, pool.getMaxConnections()); i > 0; i--) {
+					requests.add(connect(baseUri, pool.getName()));
+				}
+			}
+		}
+		Flux.merge(requests).then().timeout(Duration.ofMillis(timeoutMillis), Mono.empty()).block();
+		durationNanos = System.nanoTime() - start;
+		warmedConnections = Math.max(0, openConnections() - openBefore);
+		done = true;
+	}
+
+	private Mono<Void> connect(String baseUri, String pool) {
+		WebClient.RequestHeadersSpec<?> request = webClient.getObject().head().uri(baseUri + "/" + path)
+				.attribute(ReplicaBalancer.PINNED, Boolean.TRUE);
+		if (pool != null) {
+			request.attribute(EmployeeBulkheads.POOL, pool);
+		}
+		return request.exchange().flatMap(response -> response.bodyToMono(Void.class))
+				.onErrorResume(e -> Mono.empty());
+	}
+
+	private List<EmployeeConnectionPool> compartmentPools() {
+		EmployeeBulkheads compartments = bulkheads.getIfAvailable();
+		return compartments != null ? compartments.getPools() : Collections.emptyList();
+	}
+
+	/**
+	 * Connections open in all pools, or over HTTP/2.
+	 */
+	private int openConnections() {
+		EmployeeHttp2Transport http2Transport = http2.getIfAvailable();
+		if (http2Transport != null) {
+			return http2Transport.getConnections();
+		}
+		int open = connectionPool.getObject().getTotalConnections();
+		for (EmployeeConnectionPool pool : compartmentPools()) {
+			open += pool.getTotalConnections();
+		}
+		return open;
+	}
+
+	@Override
+	public Health health() {
+		if (!done) {
+			return Health.outOfService().build();
+		}
+		if (!enabled) {
+			return Health.up().build();
+		}
+		return Health.up().withDetail("connections", getWarmedConnections())
+				.withDetail("durationMs", getDuration().toMillis()).build();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		TimeGauge.builder("employee.client.warmup.duration", this, TimeUnit.NANOSECONDS, warmup -> warmup.durationNanos)
+				.register(registry);
+		Gauge.builder("employee.client.warmup.connections", this, ConnectionWarmup::getWarmedConnections)
+				.register(registry);
+	}
+
+	/**
+	 * Whether the warm-up is over, or was never to be done.
+	 */
+	public boolean isDone() {
+		return done;
+	}
+
+	/**
+	 * Number of connections that the warm-up opened, in all pools.
+	 */
+	public int getWarmedConnections() {
+		return warmedConnections;
+	}
+
+	public Duration getDuration() {
+		return Duration.ofNanos(durationNanos);
+	}
+
+}
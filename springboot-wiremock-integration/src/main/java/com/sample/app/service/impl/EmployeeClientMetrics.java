@@ -0,0 +1,223 @@
+package com.sample.app.service.impl;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+import com.sample.app.exception.EmployeeApiException;
+import com.sample.app.exception.EmployeeApiException.Fault;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Micrometer instrumentation of the employee API operations.
+ * <p>
+ * Every operation wrapped with {@link #mono(String, Mono)} or
+ * {@link #flux(String, Flux)} gets
+ * <ul>
+ * <li>{@code employee.client.requests}: a timer tagged with the operation and
+ * its outcome (success, error, cancelled), with p50, p99 and p999 and a
+ * percentile histogram</li>
+ * <li>{@code employee.client.requests.active}: the number of calls in
+ * flight</li>
+ * <li>{@code employee.client.errors}: a counter tagged with the HTTP status and
+ * the {@link Fault} of each failure</li>
+ * <li>{@code employee.client.request.size} and
+ * {@code employee.client.response.size}: body bytes per exchange, recorded by
+ * {@link #filter()} for the operation the exchange was made for</li>
+ * </ul>
+ * The sizes are those of the entities, as the codecs see them: request bodies
+ * before {@link RequestBodyCompression} gzips them, and responses after they
+ * have been inflated. With compression on, the bytes that went over the wire
+ * are fewer; those of requests are counted by
+ * {@code employee.client.compression.bytes.out}.
+ * <p>
+ * Meters other than the error counters are created once per operation, so
+ * the hot path only reads the clock and updates them.
+ */
+@Component
+public class EmployeeClientMetrics {
+
+	private static final String OPERATION_KEY = EmployeeClientMetrics.class.getName() + ".operation";
+
+	@Autowired
+	private MeterRegistry registry;
+
+	private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+
+	public <T> Mono<T> mono(String operation, Mono<T> call) {
+		Operation op = operation(operation);
+		return Mono.defer(() -> {
+			Call tracked = op.start();
+			return call.doOnSuccess(result -> tracked.succeeded()).doOnError(tracked::failed)
+					.doOnCancel(tracked::cancelled);
+		}).subscriberContext(context -> context.put(OPERATION_KEY, op));
+	}
+
+	public <T> Flux<T> flux(String operation, Flux<T> call) {
+		Operation op = operation(operation);
+		return Flux.defer(() -> {
+			Call tracked = op.start();
+			return call.doOnComplete(tracked::succeeded).doOnError(tracked::failed).doOnCancel(tracked::cancelled);
+		}).subscriberContext(context -> context.put(OPERATION_KEY, op));
+	}
+
+	/**
+	 * The operation an exchange is made for, if it is made within
+	 * {@link #mono(String, Mono)} or {@link #flux(String, Flux)}.
+	 */
+	public static Optional<String> operationOf(Context context) {
+		return context.<Operation>getOrEmpty(OPERATION_KEY).map(op -> op.name);
+	}
+
+	/**
+	 * Counts request and response body bytes. Must be registered on the
+	 * {@code WebClient} the instrumented operations use.
+	 */
+	public ExchangeFilterFunction filter() {
+		return this::filter;
+	}
+
+	private Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+		return Mono.subscriberContext().flatMap(context -> {
+			Operation op = context.getOrDefault(OPERATION_KEY, null);
+			if (op == null) {
+				return next.exchange(request);
+			}
+			return next.exchange(countingRequestBytes(request, op.requestBytes))
+					.map(response -> countingResponseBytes(response, op.responseBytes));
+		});
+	}
+
+	private static ClientRequest countingRequestBytes(ClientRequest request, DistributionSummary summary) {
+		return ClientRequest.from(request).body((outputMessage, context) -> request.body()
+				.insert(new ClientHttpRequestDecorator(outputMessage) {
+
+					@Override
+					public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+						long[] bytes = { 0 };
+						return super.writeWith(Flux.from(body)
+								.doOnNext(buffer -> bytes[0] += buffer.readableByteCount())
+								.doOnComplete(() -> summary.record(bytes[0])));
+					}
+
+				}, context)).build();
+	}
+
+	private static ClientResponse countingResponseBytes(ClientResponse response, DistributionSummary summary) {
+		long[] bytes = { 0 };
+		Flux<DataBuffer> body = response.bodyToFlux(DataBuffer.class)
+				.doOnNext(buffer -> bytes[0] += buffer.readableByteCount()).doOnComplete(() -> summary.record(bytes[0]));
+		return ClientResponse.from(response).body(body).build();
+	}
+
+	private Operation operation(String name) {
+		return operations.computeIfAbsent(name, Operation::new);
+	}
+
+	private final class Operation {
+
+		private final String name;
+		private final AtomicInteger active = new AtomicInteger();
+		private final Timer succeeded;
+		private final Timer failed;
+		private final Timer cancelled;
+		private final DistributionSummary requestBytes;
+		private final DistributionSummary responseBytes;
+
+		Operation(String name) {
+			this.name = name;
+			this.succeeded = timer("success");
+			this.failed = timer("error");
+			this.cancelled = timer("cancelled");
+			this.requestBytes = DistributionSummary.builder("employee.client.request.size").baseUnit("bytes")
+					.description("Request body bytes before compression").tag("operation", name).register(registry);
+			this.responseBytes = DistributionSummary.builder("employee.client.response.size").baseUnit("bytes")
+					.description("Response body bytes after decompression").tag("operation", name).register(registry);
+			Gauge.builder("employee.client.requests.active", active, AtomicInteger::get).tag("operation", name)
+					.register(registry);
+		}
+
+		private Timer timer(String outcome) {
+			return Timer.builder("employee.client.requests").tags("operation", name, "outcome", outcome)
+					.publishPercentiles(0.5, 0.99, 0.999).publishPercentileHistogram().register(registry);
+		}
+
+		Call start() {
+			active.incrementAndGet();
+			return new Call(this);
+		}
+
+		void countError(Throwable error) {
+			EmployeeApiException apiError = error instanceof EmployeeApiException ? (EmployeeApiException) error
+					: null;
+			String status = apiError != null && apiError.getStatus() != 0 ? String.valueOf(apiError.getStatus())
+					: "none";
+			String fault = apiError != null ? apiError.getFault().name() : Fault.OTHER.name();
+			registry.counter("employee.client.errors",
+					Tags.of("operation", name, "status", status, "fault", fault.toLowerCase())).increment();
+		}
+
+	}
+
+	/**
+	 * One call of an operation. Only the first terminal signal is recorded, as a
+	 * {@link Mono} may be cancelled after it has produced its value.
+	 */
+	private static final class Call extends AtomicBoolean {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Operation op;
+		private final long startedAt = System.nanoTime();
+
+		Call(Operation op) {
+			this.op = op;
+		}
+
+		void succeeded() {
+			finish(op.succeeded);
+		}
+
+		void failed(Throwable error) {
+			if (finish(op.failed)) {
+				op.countError(error);
+			}
+		}
+
+		void cancelled() {
+			finish(op.cancelled);
+		}
+
+		private boolean finish(Timer timer) {
+			if (!compareAndSet(false, true)) {
+				return false;
+			}
+			timer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+			op.active.decrementAndGet();
+			return true;
+		}
+
+	}
+
+}
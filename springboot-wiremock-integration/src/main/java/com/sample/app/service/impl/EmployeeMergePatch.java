@@ -0,0 +1,71 @@
+package com.sample.app.service.impl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sample.app.exception.EmployeeApiException;
+import com.sample.app.model.Employee;
+
+/**
+ * JSON Merge Patch (RFC 7396) documents for employees, as field name to new
+ * value, with {@code null} for a field to be cleared. Fields are compared and
+ * replaced as a whole, which is all a flat {@link Employee} needs.
+ */
+final class EmployeeMergePatch {
+
+	private static final ObjectMapper MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+	private EmployeeMergePatch() {
+	}
+
+	/**
+	 * The fields in which {@code updated} differs from {@code previous}, in the
+	 * order Jackson writes them. Empty if there are none.
+	 */
+	static Map<String, Object> diff(Employee previous, Employee updated) {
+		ObjectNode before = MAPPER.valueToTree(previous);
+		ObjectNode after = MAPPER.valueToTree(updated);
+
+		Map<String, Object> patch = new LinkedHashMap<>();
+		for (Iterator<Map.Entry<String, JsonNode>> fields = after.fields(); fields.hasNext();) {
+			Map.Entry<String, JsonNode> field = fields.next();
+			if (!field.getValue().equals(before.get(field.getKey()))) {
+				patch.put(field.getKey(), MAPPER.convertValue(field.getValue(), Object.class));
+			}
+		}
+		for (Iterator<String> names = before.fieldNames(); names.hasNext();) {
+			String name = names.next();
+			if (!after.has(name)) {
+				patch.put(name, null);
+			}
+		}
+		return patch;
+	}
+
+	/**
+	 * A copy of {@code emp} with {@code patch} applied.
+	 */
+	static Employee apply(Employee emp, Map<String, Object> patch) {
+		ObjectNode node = MAPPER.valueToTree(emp);
+		patch.forEach((name, value) -> {
+			if (value == null) {
+				node.remove(name);
+			} else {
+				node.set(name, MAPPER.valueToTree(value));
+			}
+		});
+		try {
+			return MAPPER.treeToValue(node, Employee.class);
+		} catch (JsonProcessingException e) {
+			throw new EmployeeApiException("Cannot apply " + patch + " to " + emp + ": " + e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,168 @@
+package com.sample.app.service.impl;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.sample.app.model.Employee;
+import com.sample.app.model.ImportFormat;
+
+/**
+ * Reads employees from CSV or NDJSON one line at a time. Blank lines are
+ * skipped. A line that cannot be read as an employee is returned as a record
+ * carrying the reason, so that the caller can report it and go on.
+ */
+class EmployeeRecordReader implements Closeable {
+
+	private final BufferedReader reader;
+
+	private final ImportFormat format;
+
+	private final ObjectReader json;
+
+	private long line;
+
+	private int idColumn = -1;
+
+	private int firstNameColumn = -1;
+
+	private int lastNameColumn = -1;
+
+	EmployeeRecordReader(BufferedReader reader, ImportFormat format, ObjectReader json) {
+		this.reader = reader;
+		this.format = format;
+		this.json = json.forType(Employee.class);
+	}
+
+	/**
+	 * Returns the next record, or {@code null} at the end of the input.
+	 *
+	 * @throws IllegalArgumentException if the CSV header lacks a required column
+	 */
+	Record next() throws IOException {
+		String text = nextLine();
+		if (text != null && format == ImportFormat.CSV && firstNameColumn < 0) {
+			readHeader(text);
+			text = nextLine();
+		}
+		if (text == null) {
+			return null;
+		}
+
+		try {
+			return new Record(line, format == ImportFormat.CSV ? fromCsv(text) : json.readValue(text), null);
+		} catch (IOException | RuntimeException e) {
+			return new Record(line, null, new IllegalArgumentException("Line " + line + ": " + e.getMessage(), e));
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			reader.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private String nextLine() throws IOException {
+		String text;
+		do {
+			text = reader.readLine();
+			if (text == null) {
+				return null;
+			}
+			line++;
+		} while (text.trim().isEmpty());
+		return text;
+	}
+
+	private void readHeader(String header) {
+		List<String> columns = splitCsv(header);
+		for (int i = 0; i < columns.size(); i++) {
+			String column = columns.get(i).trim();
+			if (column.equalsIgnoreCase("id")) {
+				idColumn = i;
+			} else if (column.equalsIgnoreCase("firstName")) {
+				firstNameColumn = i;
+			} else if (column.equalsIgnoreCase("lastName")) {
+				lastNameColumn = i;
+			}
+		}
+		if (firstNameColumn < 0 || lastNameColumn < 0) {
+			throw new IllegalArgumentException("CSV header must name firstName and lastName columns: " + header);
+		}
+	}
+
+	private Employee fromCsv(String text) {
+		List<String> fields = splitCsv(text);
+		Employee emp = new Employee();
+		if (idColumn >= 0 && field(fields, idColumn).length() > 0) {
+			emp.setId(Integer.parseInt(field(fields, idColumn).trim()));
+		}
+		emp.setFirstName(field(fields, firstNameColumn));
+		emp.setLastName(field(fields, lastNameColumn));
+		return emp;
+	}
+
+	private static String field(List<String> fields, int column) {
+		if (column >= fields.size()) {
+			throw new IllegalArgumentException("expected at least " + (column + 1) + " fields");
+		}
+		return fields.get(column);
+	}
+
+	/**
+	 * Splits a line of RFC 4180 CSV. Quoted fields may contain commas and
+	 * doubled quotes.
+	 */
+	private static List<String> splitCsv(String text) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				} else if (c == '"') {
+					quoted = false;
+				} else {
+					field.append(c);
+				}
+			} else if (c == '"' && field.length() == 0) {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		if (quoted) {
+			throw new IllegalArgumentException("unterminated quoted field");
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+
+	static final class Record {
+
+		final long line;
+		final Employee employee;
+		final IllegalArgumentException error;
+
+		Record(long line, Employee employee, IllegalArgumentException error) {
+			this.line = line;
+			this.employee = employee;
+			this.error = error;
+		}
+
+	}
+
+}
@@ -1,63 +1,99 @@
 package com.sample.app.service.impl;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
-import org.springframework.web.util.UriComponentsBuilder;
 
-import com.sample.app.exception.EmployeeApiException;
 import com.sample.app.model.Employee;
+import com.sample.app.model.EmployeeField;
+import com.sample.app.model.EmployeeLookup;
 import com.sample.app.service.EmployeeService;
+import com.sample.app.service.ReactiveEmployeeService;
 
+/**
+ * Blocking adapter over {@link ReactiveEmployeeService}. Each call parks the
+ * calling thread until the underlying exchange completes; callers that can work
+ * with publishers or futures should use {@link ReactiveEmployeeService} or
+ * {@link com.sample.app.service.AsyncEmployeeService} instead.
+ */
 @Service
 public class EmployeeRestClient implements EmployeeService {
 
 	@Autowired
-	private WebClient webClient;
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Value("${employee.client.stream.prefetch:256}")
+	private int streamPrefetch;
 
 	@Override
 	public List<Employee> emps() {
+		return reactiveEmployeeService.emps().collectList().block();
+	}
 
-		return webClient.get().uri("api/v1/employees").retrieve().bodyToFlux(Employee.class).collectList().block();
+	@Override
+	public List<Employee> emps(Set<EmployeeField> fields) {
+		return reactiveEmployeeService.emps(fields).collectList().block();
 	}
 
 	@Override
 	public Employee byId(int id) {
-		try {
-			return webClient.get().uri("api/v1/employees/" + id).retrieve().bodyToMono(Employee.class).block();
-		} catch (WebClientResponseException e) {
-			throw new EmployeeApiException(e.getMessage() + "," + e.getRawStatusCode());
-		} catch (Exception e) {
-			throw new EmployeeApiException(e.getMessage());
-		}
+		return reactiveEmployeeService.byId(id).block();
+	}
 
+	@Override
+	public List<EmployeeLookup> byIds(Collection<Integer> ids) {
+		return reactiveEmployeeService.byIds(ids).collectList().block();
 	}
 
 	@Override
 	public List<Employee> containsName(String name) {
-		String uriToHit = UriComponentsBuilder.fromUriString("api/v1/employees/by-name/").queryParam("empName", name)
-				.buildAndExpand().toString();
+		return reactiveEmployeeService.containsName(name).collectList().block();
+	}
 
-		return webClient.get().uri(uriToHit).retrieve().bodyToFlux(Employee.class).collectList().block();
+	@Override
+	public List<Employee> containsName(String name, Set<EmployeeField> fields) {
+		return reactiveEmployeeService.containsName(name, fields).collectList().block();
+	}
+
+	@Override
+	public Stream<Employee> streamEmps() {
+		return reactiveEmployeeService.emps().toStream(streamPrefetch);
+	}
+
+	@Override
+	public Stream<Employee> streamContainsName(String name) {
+		return reactiveEmployeeService.containsName(name).toStream(streamPrefetch);
 	}
 
 	@Override
 	public Employee addEmployee(Employee emp) {
-		return webClient.post().uri("api/v1/employees").syncBody(emp).retrieve().bodyToMono(Employee.class).block();
+		return reactiveEmployeeService.addEmployee(emp).block();
 	}
 
 	@Override
 	public Employee updateEmployee(int id, Employee emp) {
-		return webClient.put().uri("api/v1/employees/" + id).syncBody(emp).retrieve().bodyToMono(Employee.class)
-				.block();
+		return reactiveEmployeeService.updateEmployee(id, emp).block();
+	}
+
+	@Override
+	public Employee patchEmployee(int id, Employee previous, Employee updated) {
+		return reactiveEmployeeService.patchEmployee(id, previous, updated).block();
+	}
+
+	@Override
+	public Employee patchEmployee(int id, Map<String, Object> fields) {
+		return reactiveEmployeeService.patchEmployee(id, fields).block();
 	}
 
 	@Override
 	public Employee deleteEmployee(int id) {
-		return webClient.delete().uri("api/v1/employees/" + id).retrieve().bodyToMono(Employee.class).block();
+		return reactiveEmployeeService.deleteEmployee(id).block();
 	}
 
 }
@@ -0,0 +1,164 @@
+package com.sample.app.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.sample.app.model.Employee;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Answers name searches from a snapshot of the whole directory, held in a
+ * {@link NameTrigramIndex}, instead of asking the employee API. The first
+ * search loads the snapshot in the background and goes to the server; once
+ * the snapshot is older than {@code employee.client.search.refresh-interval-ms}
+ * the next search starts loading a new one and is still answered from the old
+ * one. A failed load leaves the previous snapshot in place. Once this client
+ * has added, changed or removed an employee, see {@link #changed()}, searches
+ * go to the server until a snapshot loaded after that change is in place. A
+ * directory of 1M employees takes about 300 MB of heap, which
+ * {@code employee.client.search.index.bytes} estimates. Disabled unless
+ * {@code employee.client.search.local} is set.
+ */
+@Component
+public class LocalNameSearch implements MeterBinder {
+
+	@Value("${employee.client.search.local:false}")
+	private boolean enabled;
+
+	@Value("${employee.client.search.refresh-interval-ms:300000}")
+	private long refreshIntervalMillis;
+
+	private volatile NameTrigramIndex index;
+
+	private volatile long loadedAt;
+
+	private final AtomicLong changes = new AtomicLong();
+
+	private volatile long changesLoaded;
+
+	private final AtomicBoolean loading = new AtomicBoolean();
+
+	private final AtomicLong loads = new AtomicLong();
+
+	private final AtomicLong failedLoads = new AtomicLong();
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Employees with {@code name} in their first or last name, ignoring case,
+	 * or {@code null} while there is no snapshot as recent as the last change.
+	 * Starts loading one from {@code directory} if there is none or it is due
+	 * for a refresh.
+	 */
+	public List<Employee> containsName(String name, Supplier<Flux<Employee>> directory) {
+		NameTrigramIndex current = current(directory);
+		return current == null ? null : copies(current.containing(name));
+	}
+
+	/**
+	 * Employees whose first or last name starts with {@code prefix}, ignoring
+	 * case, or {@code null} while there is no snapshot as recent as the last
+	 * change.
+	 */
+	public List<Employee> startingWith(String prefix, Supplier<Flux<Employee>> directory) {
+		NameTrigramIndex current = current(directory);
+		return current == null ? null : copies(current.startingWith(prefix));
+	}
+
+	private NameTrigramIndex current(Supplier<Flux<Employee>> directory) {
+		NameTrigramIndex current = index;
+		boolean outdated = changesLoaded != changes.get();
+		if ((current == null || outdated || System.currentTimeMillis() - loadedAt >= refreshIntervalMillis)
+				&& loading.compareAndSet(false, true)) {
+			long changesBefore = changes.get();
+			// indexing a large directory would hold up the event loop
+			directory.get().collectList().publishOn(Schedulers.parallel()).map(NameTrigramIndex::new)
+					.doFinally(signal -> loading.set(false))
+					.subscribe(loaded -> loaded(loaded, changesBefore), error -> failedLoads.incrementAndGet());
+		}
+		return outdated ? null : current;
+	}
+
+	private void loaded(NameTrigramIndex loaded, long changesBefore) {
+		index = loaded;
+		changesLoaded = changesBefore;
+		loadedAt = System.currentTimeMillis();
+		loads.incrementAndGet();
+	}
+
+	/**
+	 * To be called when this client has successfully added, changed or
+	 * removed an employee, which the snapshot does not show.
+	 */
+	public void changed() {
+		if (enabled) {
+			changes.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Callers get their own copies, so that the snapshot cannot be changed
+	 * through the results.
+	 */
+	private static List<Employee> copies(List<Employee> found) {
+		List<Employee> copies = new ArrayList<>(found.size());
+		for (Employee emp : found) {
+			Employee copy = new Employee();
+			copy.setId(emp.getId());
+			copy.setFirstName(emp.getFirstName());
+			copy.setLastName(emp.getLastName());
+			copies.add(copy);
+		}
+		return copies;
+	}
+
+	/**
+	 * Employees in the current snapshot.
+	 */
+	public int getSize() {
+		NameTrigramIndex current = index;
+		return current == null ? 0 : current.size();
+	}
+
+	/**
+	 * Rough heap footprint of the current snapshot and its index.
+	 */
+	public long getEstimatedBytes() {
+		NameTrigramIndex current = index;
+		return current == null ? 0 : current.estimatedBytes();
+	}
+
+	public long getLoads() {
+		return loads.get();
+	}
+
+	public long getFailedLoads() {
+		return failedLoads.get();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("employee.client.search.index.size", this, LocalNameSearch::getSize).register(registry);
+		Gauge.builder("employee.client.search.index.bytes", this, LocalNameSearch::getEstimatedBytes)
+				.baseUnit("bytes").register(registry);
+		FunctionCounter.builder("employee.client.search.index.loads", this, LocalNameSearch::getLoads)
+				.tag("outcome", "success").register(registry);
+		FunctionCounter.builder("employee.client.search.index.loads", this, LocalNameSearch::getFailedLoads)
+				.tag("outcome", "failure").register(registry);
+	}
+
+}
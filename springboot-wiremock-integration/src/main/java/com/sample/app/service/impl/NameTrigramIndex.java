@@ -0,0 +1,181 @@
+package com.sample.app.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.sample.app.model.Employee;
+
+/**
+ * Immutable trigram index over the first and last names of a snapshot of the
+ * directory. Every trigram of a lower-cased name maps to the sorted positions
+ * of the employees that have it, so a query only looks at employees sharing
+ * all of its trigrams, and checks those against the names. Queries shorter
+ * than a trigram scan all names.
+ */
+final class NameTrigramIndex {
+
+	private static final int[] NONE = new int[0];
+
+	private final Employee[] employees;
+
+	private final String[] firstNames;
+
+	private final String[] lastNames;
+
+	private final Map<Long, int[]> postings;
+
+	private final long postingCount;
+
+	NameTrigramIndex(List<Employee> emps) {
+		int size = emps.size();
+		this.employees = new Employee[size];
+		this.firstNames = new String[size];
+		this.lastNames = new String[size];
+
+		Map<Long, IntList> building = new HashMap<>();
+		for (int i = 0; i < size; i++) {
+			Employee emp = emps.get(i);
+			employees[i] = emp;
+			firstNames[i] = normalize(emp.getFirstName());
+			lastNames[i] = normalize(emp.getLastName());
+			addTrigrams(building, firstNames[i], i);
+			addTrigrams(building, lastNames[i], i);
+		}
+
+		this.postings = new HashMap<>(building.size() * 4 / 3 + 1);
+		long count = 0;
+		for (Map.Entry<Long, IntList> entry : building.entrySet()) {
+			int[] positions = entry.getValue().toArray();
+			postings.put(entry.getKey(), positions);
+			count += positions.length;
+		}
+		this.postingCount = count;
+	}
+
+	private static String normalize(String name) {
+		return name == null ? "" : name.toLowerCase(Locale.ROOT);
+	}
+
+	private static long trigram(String s, int i) {
+		return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+	}
+
+	private static void addTrigrams(Map<Long, IntList> building, String name, int position) {
+		for (int i = 0; i + 3 <= name.length(); i++) {
+			building.computeIfAbsent(trigram(name, i), key -> new IntList()).addOnce(position);
+		}
+	}
+
+	int size() {
+		return employees.length;
+	}
+
+	/**
+	 * Employees with {@code query} in their first or last name, ignoring case,
+	 * in snapshot order.
+	 */
+	List<Employee> containing(String query) {
+		return search(normalize(query), false);
+	}
+
+	/**
+	 * Employees whose first or last name starts with {@code prefix}, ignoring
+	 * case, in snapshot order.
+	 */
+	List<Employee> startingWith(String prefix) {
+		return search(normalize(prefix), true);
+	}
+
+	private List<Employee> search(String query, boolean prefix) {
+		if (query.length() < 3) {
+			List<Employee> found = new ArrayList<>();
+			for (int i = 0; i < employees.length; i++) {
+				if (matches(i, query, prefix)) {
+					found.add(employees[i]);
+				}
+			}
+			return found;
+		}
+
+		List<int[]> lists = new ArrayList<>(query.length() - 2);
+		for (int i = 0; i + 3 <= query.length(); i++) {
+			int[] positions = postings.getOrDefault(trigram(query, i), NONE);
+			if (positions.length == 0) {
+				return Collections.emptyList();
+			}
+			lists.add(positions);
+		}
+		lists.sort(Comparator.comparingInt(positions -> positions.length));
+
+		List<Employee> found = new ArrayList<>();
+		int[] smallest = lists.get(0);
+		candidates: for (int position : smallest) {
+			for (int l = 1; l < lists.size(); l++) {
+				if (Arrays.binarySearch(lists.get(l), position) < 0) {
+					continue candidates;
+				}
+			}
+			if (matches(position, query, prefix)) {
+				found.add(employees[position]);
+			}
+		}
+		return found;
+	}
+
+	private boolean matches(int position, String query, boolean prefix) {
+		return prefix ? firstNames[position].startsWith(query) || lastNames[position].startsWith(query)
+				: firstNames[position].contains(query) || lastNames[position].contains(query);
+	}
+
+	/**
+	 * Rough heap footprint of the index on a 64-bit JVM with compressed
+	 * references and compact strings, the indexed employees included.
+	 */
+	long estimatedBytes() {
+		long bytes = 3 * (16 + 4L * employees.length);
+		for (int i = 0; i < employees.length; i++) {
+			bytes += 24 + stringBytes(employees[i].getFirstName()) + stringBytes(employees[i].getLastName());
+			bytes += stringBytes(firstNames[i]) + stringBytes(lastNames[i]);
+		}
+		// table slot, entry, boxed key and array header per trigram
+		bytes += postings.size() * (4 + 32 + 24 + 16L) + 4 * postingCount;
+		return bytes;
+	}
+
+	private static long stringBytes(String s) {
+		return s == null ? 0 : 24 + 16 + ((s.length() + 7) & ~7);
+	}
+
+	/**
+	 * Growable list of positions that ignores a position equal to the last one,
+	 * which keeps a name with a repeated trigram from being listed twice.
+	 */
+	private static final class IntList {
+
+		private int[] values = new int[4];
+
+		private int size;
+
+		void addOnce(int value) {
+			if (size > 0 && values[size - 1] == value) {
+				return;
+			}
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+
+	}
+
+}
@@ -0,0 +1,227 @@
+package com.sample.app.service.impl;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+import com.sample.app.config.EmployeeTimeoutProperties;
+import com.sample.app.config.EmployeeTimeoutProperties.Budget;
+import com.sample.app.exception.EmployeeApiException;
+import com.sample.app.exception.EmployeeApiException.Fault;
+import com.sample.app.service.EmployeeDeadline;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.util.context.Context;
+
+/**
+ * Enforces the per-operation {@link Budget}s of
+ * {@code employee.client.timeouts.*} and the caller's {@link EmployeeDeadline}.
+ * The total budget and the deadline, whichever ends first, bound the whole
+ * call as wrapped by {@link #mono(String, Mono)} or
+ * {@link #flux(String, Flux)}, reading the body included. The connect and
+ * first byte budgets bound every single exchange of the call, enforced by
+ * {@link #filter()}, which also sends the time left to the server. Connect
+ * budgets need {@link #instrument(HttpClient)}, or
+ * {@link #instrument(Function)} for other transports, to see when a request
+ * got its connection.
+ */
+@Component
+public class OperationTimeouts {
+
+	private static final String CALL_KEY = OperationTimeouts.class.getName() + ".call";
+
+	@Autowired
+	private EmployeeTimeoutProperties properties;
+
+	private volatile boolean connectionsObserved;
+
+	/**
+	 * Lets the connect budgets see when a request of {@code httpClient} got
+	 * hold of a connection.
+	 */
+	public HttpClient instrument(HttpClient httpClient) {
+		connectionsObserved = true;
+		return httpClient.doOnRequest((request, connection) -> request.currentContext()
+				.<Attempt>getOrEmpty(Attempt.class).ifPresent(Attempt::connected));
+	}
+
+	/**
+	 * Lets the connect budgets see when a request through a transport other
+	 * than Reactor Netty got hold of a connection. {@code connectors} gives
+	 * the connector to send a request with, which runs the {@link Runnable} it
+	 * is given once the request has its connection; the {@code Runnable} is
+	 * {@code null} for requests without a budget.
+	 */
+	public ClientHttpConnector instrument(Function<Runnable, ClientHttpConnector> connectors) {
+		connectionsObserved = true;
+		return (method, uri, requestCallback) -> Mono.subscriberContext().flatMap(context -> {
+			Runnable connected = context.<Attempt>getOrEmpty(Attempt.class).<Runnable>map(attempt -> attempt::connected)
+					.orElse(null);
+			return connectors.apply(connected).connect(method, uri, requestCallback);
+		});
+	}
+
+	public <T> Mono<T> mono(String operation, Mono<T> call) {
+		return Mono.subscriberContext().flatMap(context -> {
+			Call timed = start(operation, context);
+			if (!timed.hasDeadline) {
+				return call.subscriberContext(ctx -> ctx.put(CALL_KEY, timed));
+			}
+			long remaining = timed.remainingNanos();
+			if (remaining <= 0) {
+				return Mono.error(timed.expired());
+			}
+			return call.timeout(Duration.ofNanos(remaining), Mono.defer(() -> Mono.error(timed.timedOut())))
+					.subscriberContext(ctx -> ctx.put(CALL_KEY, timed));
+		});
+	}
+
+	/**
+	 * Unlike {@link Flux#timeout(Duration)}, which bounds the wait for each
+	 * element, the deadline bounds the whole flux.
+	 */
+	public <T> Flux<T> flux(String operation, Flux<T> call) {
+		return Mono.subscriberContext().flatMapMany(context -> {
+			Call timed = start(operation, context);
+			if (!timed.hasDeadline) {
+				return call.subscriberContext(ctx -> ctx.put(CALL_KEY, timed));
+			}
+			long remaining = timed.remainingNanos();
+			if (remaining <= 0) {
+				return Flux.error(timed.expired());
+			}
+			AtomicBoolean expired = new AtomicBoolean();
+			return call.takeUntilOther(Mono.delay(Duration.ofNanos(remaining)).doOnNext(tick -> expired.set(true)))
+					.concatWith(Mono.defer(() -> expired.get() ? Mono.error(timed.timedOut()) : Mono.empty()))
+					.subscriberContext(ctx -> ctx.put(CALL_KEY, timed));
+		});
+	}
+
+	private Call start(String operation, Context context) {
+		Budget budget = properties.budgetOf(operation);
+		long now = System.nanoTime();
+		Long deadline = EmployeeDeadline.of(context).orElse(null);
+		Call enclosing = context.getOrDefault(CALL_KEY, null);
+		if (enclosing != null && enclosing.hasDeadline) {
+			deadline = earlier(deadline, enclosing.deadline);
+		}
+		if (budget.getTotal() != null) {
+			deadline = earlier(deadline, now + budget.getTotal().toNanos());
+		}
+		return new Call(operation, budget, deadline);
+	}
+
+	private static Long earlier(Long deadline, long other) {
+		return deadline == null || other - deadline < 0 ? other : deadline;
+	}
+
+	public ExchangeFilterFunction filter() {
+		return this::filter;
+	}
+
+	private Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+		return Mono.subscriberContext().flatMap(context -> {
+			Call call = context.getOrDefault(CALL_KEY, null);
+			if (call == null) {
+				return next.exchange(request);
+			}
+			if (call.hasDeadline && call.remainingNanos() <= 0) {
+				return Mono.error(call.expired());
+			}
+
+			Attempt attempt = new Attempt();
+			Mono<ClientResponse> exchange = next.exchange(withTimeLeft(request, call))
+					.subscriberContext(ctx -> ctx.put(Attempt.class, attempt));
+
+			Duration firstByte = call.budget.getFirstByte();
+			if (firstByte != null) {
+				exchange = exchange.timeout(firstByte, Mono.defer(() -> Mono.error(call.noResponse(firstByte))));
+			}
+			Duration connect = call.budget.getConnect();
+			if (connect != null && connectionsObserved) {
+				Mono<ClientResponse> connectTimeout = Mono.delay(connect).flatMap(
+						tick -> attempt.connected ? Mono.never() : Mono.error(call.noConnection(connect)));
+				exchange = Mono.first(exchange, connectTimeout);
+			}
+			return exchange;
+		});
+	}
+
+	private ClientRequest withTimeLeft(ClientRequest request, Call call) {
+		String header = properties.getDeadlineHeader();
+		if (!call.hasDeadline || !StringUtils.hasText(header)) {
+			return request;
+		}
+		long millisLeft = Math.max(1, TimeUnit.NANOSECONDS.toMillis(call.remainingNanos()));
+		return ClientRequest.from(request).headers(headers -> headers.set(header, String.valueOf(millisLeft)))
+				.build();
+	}
+
+	/**
+	 * One call of an operation, and the deadline it has to meet if any.
+	 */
+	private static final class Call {
+
+		private final String operation;
+		private final Budget budget;
+		private final boolean hasDeadline;
+		private final long deadline;
+
+		Call(String operation, Budget budget, Long deadline) {
+			this.operation = operation;
+			this.budget = budget;
+			this.hasDeadline = deadline != null;
+			this.deadline = deadline != null ? deadline : 0;
+		}
+
+		long remainingNanos() {
+			return deadline - System.nanoTime();
+		}
+
+		EmployeeApiException expired() {
+			return new EmployeeApiException(operation + " ran out of time before it was sent", Fault.TIMEOUT);
+		}
+
+		EmployeeApiException timedOut() {
+			return new EmployeeApiException(operation + " did not complete before its deadline", Fault.TIMEOUT);
+		}
+
+		EmployeeApiException noResponse(Duration firstByte) {
+			return new EmployeeApiException(operation + " got no response within " + firstByte.toMillis() + " ms",
+					Fault.TIMEOUT);
+		}
+
+		EmployeeApiException noConnection(Duration connect) {
+			return new EmployeeApiException(operation + " got no connection within " + connect.toMillis() + " ms",
+					Fault.TIMEOUT);
+		}
+
+	}
+
+	/**
+	 * One exchange of a call, which learns from the transport when it got a
+	 * connection.
+	 */
+	private static final class Attempt {
+
+		private volatile boolean connected;
+
+		void connected() {
+			connected = true;
+		}
+
+	}
+
+}
@@ -0,0 +1,181 @@
+package com.sample.app.service.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.sample.app.exception.EmployeeApiException;
+import com.sample.app.model.Employee;
+import com.sample.app.model.ImportFormat;
+import com.sample.app.model.ImportOutcome;
+import com.sample.app.model.ImportSummary;
+import com.sample.app.service.EmployeeImportService;
+import com.sample.app.service.ReactiveEmployeeService;
+import com.sample.app.service.impl.EmployeeRecordReader.Record;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Records are read on a worker thread, only as fast as the server takes
+ * them. They are sent in chunks of {@code employee.client.import.bulk-size}
+ * to the bulk endpoint, {@code bulk-concurrency} chunks at a time. If the
+ * server has no such endpoint, the rest of the import falls back to one
+ * {@code addEmployee} per record, with at most
+ * {@code employee.client.import.concurrency} of them in flight.
+ */
+@Service
+public class ReactiveEmployeeImporter implements EmployeeImportService {
+
+	private static final ObjectReader JSON = Jackson2ObjectMapperBuilder.json().build().reader();
+
+	@Autowired
+	private ReactiveEmployeeService employeeService;
+
+	@Value("${employee.client.import.concurrency:16}")
+	private int concurrency;
+
+	@Value("${employee.client.import.bulk-enabled:true}")
+	private boolean bulkEnabled;
+
+	@Value("${employee.client.import.bulk-size:500}")
+	private int bulkSize;
+
+	@Value("${employee.client.import.bulk-concurrency:2}")
+	private int bulkConcurrency;
+
+	@Override
+	public Flux<ImportOutcome> importFile(Path file) {
+		return importFrom(() -> Files.newBufferedReader(file, StandardCharsets.UTF_8), ImportFormat.of(file));
+	}
+
+	@Override
+	public Flux<ImportOutcome> importFrom(Callable<? extends Reader> source, ImportFormat format) {
+		Flux<Record> records = Flux
+				.using(() -> new EmployeeRecordReader(new BufferedReader(source.call()), format, JSON),
+						ReactiveEmployeeImporter::read, EmployeeRecordReader::close)
+				.subscribeOn(Schedulers.elastic());
+
+		if (!bulkEnabled) {
+			return records.flatMap(this::addOne, concurrency);
+		}
+
+		return Flux.defer(() -> {
+			AtomicBoolean bulkUnsupported = new AtomicBoolean();
+			return records.buffer(bulkSize).flatMap(chunk -> addChunk(chunk, bulkUnsupported), bulkConcurrency);
+		});
+	}
+
+	@Override
+	public Mono<ImportSummary> summarize(Flux<ImportOutcome> outcomes) {
+		return Mono.defer(() -> {
+			long start = System.nanoTime();
+			AtomicLong imported = new AtomicLong();
+			AtomicLong failed = new AtomicLong();
+			return outcomes.doOnNext(outcome -> (outcome.isImported() ? imported : failed).incrementAndGet())
+					.then(Mono.fromSupplier(() -> new ImportSummary(imported.get(), failed.get(),
+							Duration.ofNanos(System.nanoTime() - start))));
+		});
+	}
+
+	private static Flux<Record> read(EmployeeRecordReader reader) {
+		return Flux.generate(sink -> {
+			try {
+				Record record = reader.next();
+				if (record == null) {
+					sink.complete();
+				} else {
+					sink.next(record);
+				}
+			} catch (IOException | IllegalArgumentException e) {
+				sink.error(e);
+			}
+		});
+	}
+
+	private Mono<ImportOutcome> addOne(Record record) {
+		if (record.error != null) {
+			return Mono.just(ImportOutcome.failed(record.line, record.error));
+		}
+		return employeeService.addEmployee(record.employee).map(created -> ImportOutcome.imported(record.line, created))
+				.onErrorResume(EmployeeApiException.class, e -> Mono.just(ImportOutcome.failed(record.line, e)));
+	}
+
+	private Flux<ImportOutcome> addChunk(List<Record> chunk, AtomicBoolean bulkUnsupported) {
+		if (bulkUnsupported.get()) {
+			return addEach(chunk);
+		}
+
+		List<Record> readable = new ArrayList<>(chunk.size());
+		List<ImportOutcome> unreadable = new ArrayList<>();
+		List<Employee> emps = new ArrayList<>(chunk.size());
+		for (Record record : chunk) {
+			if (record.error != null) {
+				unreadable.add(ImportOutcome.failed(record.line, record.error));
+			} else {
+				readable.add(record);
+				emps.add(record.employee);
+			}
+		}
+		if (readable.isEmpty()) {
+			return Flux.fromIterable(unreadable);
+		}
+
+		Flux<ImportOutcome> sent = employeeService.addEmployees(emps).collectList()
+				.flatMapIterable(created -> matchInOrder(readable, created))
+				.onErrorResume(EmployeeApiException.class, e -> {
+					if (isBulkEndpointMissing(e)) {
+						bulkUnsupported.set(true);
+						return addEach(readable);
+					}
+					return Flux.fromIterable(readable).map(record -> ImportOutcome.failed(record.line, e));
+				});
+		return Flux.fromIterable(unreadable).concatWith(sent);
+	}
+
+	/**
+	 * Chunks may fall back concurrently, so each one gets its share of the
+	 * overall concurrency.
+	 */
+	private Flux<ImportOutcome> addEach(List<Record> records) {
+		return Flux.fromIterable(records).flatMap(this::addOne, Math.max(1, concurrency / bulkConcurrency));
+	}
+
+	private static List<ImportOutcome> matchInOrder(List<Record> records, List<Employee> created) {
+		List<ImportOutcome> outcomes = new ArrayList<>(records.size());
+		if (created.size() != records.size()) {
+			EmployeeApiException error = new EmployeeApiException("Bulk import answered " + created.size()
+					+ " employees for " + records.size() + " records", EmployeeApiException.Fault.MALFORMED_RESPONSE);
+			for (Record record : records) {
+				outcomes.add(ImportOutcome.failed(record.line, error));
+			}
+			return outcomes;
+		}
+		for (int i = 0; i < records.size(); i++) {
+			outcomes.add(ImportOutcome.imported(records.get(i).line, created.get(i)));
+		}
+		return outcomes;
+	}
+
+	private static boolean isBulkEndpointMissing(EmployeeApiException e) {
+		int status = e.getStatus();
+		return status == 404 || status == 405 || status == 501;
+	}
+
+}
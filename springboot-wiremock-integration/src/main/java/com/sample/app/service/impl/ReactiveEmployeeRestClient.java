@@ -0,0 +1,519 @@
+package com.sample.app.service.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.sample.app.codec.EmployeeJsonDecoder;
+import com.sample.app.config.MediaTypes;
+import com.sample.app.exception.EmployeeApiException;
+import com.sample.app.exception.EmployeeApiException.Fault;
+import com.sample.app.model.Employee;
+import com.sample.app.model.EmployeeField;
+import com.sample.app.model.EmployeeLookup;
+import com.sample.app.model.EmployeePage;
+import com.sample.app.service.ReactiveEmployeeService;
+
+import io.netty.handler.codec.DecoderException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.PrematureCloseException;
+
+@Service
+public class ReactiveEmployeeRestClient implements ReactiveEmployeeService {
+
+	private static final ResolvableType EMPLOYEE_TYPE = ResolvableType.forClass(Employee.class);
+
+	@Autowired
+	private WebClient webClient;
+
+	@Autowired
+	private RequestCoalescer coalescer;
+
+	@Autowired
+	private RequestHedger hedger;
+
+	@Autowired
+	private EmployeeClientMetrics metrics;
+
+	@Autowired
+	private OperationTimeouts timeouts;
+
+	@Autowired
+	private LocalNameSearch localNameSearch;
+
+	@Autowired
+	private WriteBehindQueue writeBehind;
+
+	private final EmployeeJsonDecoder projectingDecoder = new EmployeeJsonDecoder();
+
+	@Value("${employee.client.batch.endpoint-enabled:true}")
+	private boolean batchEndpointEnabled;
+
+	@Value("${employee.client.batch.max-size:100}")
+	private int batchMaxSize;
+
+	@Value("${employee.client.batch.concurrency:16}")
+	private int batchConcurrency;
+
+	@Value("${employee.client.batch.reprobe-interval-ms:300000}")
+	private long batchReprobeIntervalMillis;
+
+	@Value("${employee.client.paging.page-size:100}")
+	private int pageSize;
+
+	@Value("${employee.client.paging.prefetch:1}")
+	private int pagePrefetch;
+
+	@Value("${employee.client.patch.reprobe-interval-ms:300000}")
+	private long patchReprobeIntervalMillis;
+
+	private volatile long batchEndpointUnsupportedUntil;
+
+	private volatile long patchUnsupportedUntil;
+
+	/**
+	 * Employees are decoded and emitted one at a time as the response body
+	 * arrives, either from a JSON array or from NDJSON, so memory use does not
+	 * depend on the size of the directory as long as the subscriber does not
+	 * collect the results.
+	 */
+	@Override
+	public Flux<Employee> emps() {
+		return operation("emps", coalescer.flux("emps",
+				() -> webClient.get().uri("api/v1/employees")
+						.accept(MediaTypes.APPLICATION_NDJSON, MediaType.APPLICATION_JSON).retrieve()
+						.bodyToFlux(Employee.class).onErrorMap(ReactiveEmployeeRestClient::toApiException)));
+	}
+
+	/**
+	 * JSON and NDJSON answers are decoded by an {@link EmployeeJsonDecoder}
+	 * that skips the fields not asked for, whichever codec is configured.
+	 * Other answers, i.e. Smile, go through the configured codecs and are
+	 * trimmed afterwards.
+	 */
+	@Override
+	public Flux<Employee> emps(Set<EmployeeField> fields) {
+		String uriToHit = UriComponentsBuilder.fromUriString("api/v1/employees")
+				.queryParam("fields", EmployeeField.toQueryParam(fields)).buildAndExpand().toString();
+
+		return operation("emps", coalescer.flux(uriToHit, () -> projected(uriToHit, fields)));
+	}
+
+	/**
+	 * The first page tells how the server pages: by cursor when it carries
+	 * one, by offset otherwise. Cursor pages are followed until a page comes
+	 * without a cursor, offset pages until a page comes short.
+	 */
+	@Override
+	public Flux<Employee> pagedEmps(int pageSize, int prefetch) {
+		return empsPage((String) null, pageSize).flatMapMany(first -> {
+			if (first.getNextCursor() != null) {
+				return Mono.just(first).expand(page -> page.getNextCursor() != null
+						? empsPage(page.getNextCursor(), pageSize) : Mono.empty());
+			}
+			AtomicInteger offset = new AtomicInteger();
+			return Mono.just(first).expand(page -> {
+				int read = page.getEmployees().size();
+				offset.addAndGet(read);
+				return read < pageSize ? Mono.empty() : empsPage(offset.get(), pageSize);
+			});
+		}).concatMapIterable(EmployeePage::getEmployees, prefetch);
+	}
+
+	@Override
+	public Flux<Employee> pagedEmps() {
+		return pagedEmps(pageSize, pagePrefetch);
+	}
+
+	@Override
+	public Mono<EmployeePage> empsPage(int offset, int limit) {
+		return page(webClient.get().uri("api/v1/employees?offset={offset}&limit={limit}", offset, limit));
+	}
+
+	/**
+	 * The cursor goes in as a URI variable, so that the characters of base64
+	 * tokens are encoded rather than read as separators or spaces.
+	 */
+	@Override
+	public Mono<EmployeePage> empsPage(String cursor, int limit) {
+		return page(cursor == null ? webClient.get().uri("api/v1/employees?limit={limit}", limit)
+				: webClient.get().uri("api/v1/employees?cursor={cursor}&limit={limit}", cursor, limit));
+	}
+
+	private Mono<EmployeePage> page(WebClient.RequestHeadersSpec<?> request) {
+		return operation("empsPage", request.accept(MediaType.APPLICATION_JSON).retrieve()
+				.bodyToMono(EmployeePage.class).onErrorMap(ReactiveEmployeeRestClient::toApiException));
+	}
+
+	@Override
+	public Mono<Employee> byId(int id) {
+		return operation("byId", coalescer.mono("byId:" + id, () -> hedger.mono(() -> webClient.get()
+				.uri("api/v1/employees/" + id).retrieve().bodyToMono(Employee.class)
+				.onErrorMap(ReactiveEmployeeRestClient::toApiException))));
+	}
+
+	/**
+	 * Ids are sent in chunks of {@code employee.client.batch.max-size} to the
+	 * {@code by-ids} endpoint. When the server answers that it has no such
+	 * endpoint, the chunk falls back to one {@link #byId(int)} per id and the
+	 * endpoint is not tried again for
+	 * {@code employee.client.batch.reprobe-interval-ms}. Either way at most
+	 * {@code employee.client.batch.concurrency} requests are in flight at once.
+	 */
+	@Override
+	public Flux<EmployeeLookup> byIds(Collection<Integer> ids) {
+		List<Integer> idList = new ArrayList<>(ids);
+
+		if (!batchEndpointEnabled || System.currentTimeMillis() < batchEndpointUnsupportedUntil) {
+			return fanOut(idList);
+		}
+
+		return Flux.fromIterable(partition(idList, batchMaxSize)).flatMapSequential(this::byIdsInOneBatch,
+				batchConcurrency);
+	}
+
+	private Flux<EmployeeLookup> byIdsInOneBatch(List<Integer> ids) {
+		String uriToHit = UriComponentsBuilder.fromUriString("api/v1/employees/by-ids")
+				.queryParam("ids", StringUtils.collectionToCommaDelimitedString(ids)).buildAndExpand().toString();
+
+		Flux<Employee> batch = webClient.get().uri(uriToHit).retrieve().bodyToFlux(Employee.class)
+				.onErrorMap(ReactiveEmployeeRestClient::toApiException);
+
+		return operation("byIds", batch).collectMap(Employee::getId)
+				.flatMapIterable(found -> matchInOrder(ids, found)).onErrorResume(EmployeeApiException.class, e -> {
+					if (isBatchEndpointMissing(e)) {
+						batchEndpointUnsupportedUntil = System.currentTimeMillis() + batchReprobeIntervalMillis;
+						return fanOut(ids);
+					}
+					return Flux.fromIterable(ids).map(id -> EmployeeLookup.failed(id, e));
+				});
+	}
+
+	private Flux<EmployeeLookup> fanOut(List<Integer> ids) {
+		return Flux.fromIterable(ids).flatMapSequential(this::lookup, batchConcurrency);
+	}
+
+	private Mono<EmployeeLookup> lookup(int id) {
+		return byId(id).map(emp -> EmployeeLookup.found(id, emp)).switchIfEmpty(Mono.fromSupplier(() -> notFound(id)))
+				.onErrorResume(EmployeeApiException.class, e -> Mono.just(EmployeeLookup.failed(id, e)));
+	}
+
+	private static List<EmployeeLookup> matchInOrder(List<Integer> ids, Map<Integer, Employee> found) {
+		List<EmployeeLookup> result = new ArrayList<>(ids.size());
+		for (Integer id : ids) {
+			Employee emp = found.get(id);
+			result.add(emp != null ? EmployeeLookup.found(id, emp) : notFound(id));
+		}
+		return result;
+	}
+
+	private static EmployeeLookup notFound(int id) {
+		return EmployeeLookup.failed(id,
+				new EmployeeApiException("No employee with id " + id + ",404", Fault.HTTP_STATUS, 404, null));
+	}
+
+	private static boolean isBatchEndpointMissing(EmployeeApiException e) {
+		int status = e.getStatus();
+		return status == 404 || status == 405 || status == 501;
+	}
+
+	private static <T> List<List<T>> partition(List<T> list, int size) {
+		List<List<T>> chunks = new ArrayList<>();
+		for (int from = 0; from < list.size(); from += size) {
+			chunks.add(list.subList(from, Math.min(from + size, list.size())));
+		}
+		return chunks;
+	}
+
+	/**
+	 * With {@code employee.client.search.local} set, names are looked up in
+	 * the {@link LocalNameSearch} snapshot of {@link #emps()} once it has been
+	 * loaded.
+	 */
+	@Override
+	public Flux<Employee> containsName(String name) {
+		if (localNameSearch.isEnabled()) {
+			return Flux.defer(() -> {
+				List<Employee> found = localContainsName(name);
+				return found != null ? Flux.fromIterable(found) : remoteContainsName(name);
+			});
+		}
+		return remoteContainsName(name);
+	}
+
+	/**
+	 * The answer of the {@link LocalNameSearch} snapshot, or {@code null} when
+	 * local search is disabled or has no snapshot yet.
+	 */
+	List<Employee> localContainsName(String name) {
+		return localNameSearch.isEnabled() ? localNameSearch.containsName(name, this::emps) : null;
+	}
+
+	@Override
+	public Flux<Employee> containsName(String name, Set<EmployeeField> fields) {
+		if (localNameSearch.isEnabled()) {
+			return Flux.defer(() -> {
+				List<Employee> found = localNameSearch.containsName(name, this::emps);
+				return found != null ? Flux.fromIterable(found).map(emp -> EmployeeField.project(emp, fields))
+						: remoteContainsName(name, fields);
+			});
+		}
+		return remoteContainsName(name, fields);
+	}
+
+	private Flux<Employee> remoteContainsName(String name, Set<EmployeeField> fields) {
+		String uriToHit = UriComponentsBuilder.fromUriString("api/v1/employees/by-name/").queryParam("empName", name)
+				.queryParam("fields", EmployeeField.toQueryParam(fields)).buildAndExpand().toString();
+
+		return operation("containsName", coalescer.flux(uriToHit, () -> projected(uriToHit, fields)));
+	}
+
+	private Flux<Employee> projected(String uri, Set<EmployeeField> fields) {
+		Map<String, Object> hints = Collections.singletonMap(EmployeeJsonDecoder.FIELDS_HINT, fields);
+
+		return webClient.get().uri(uri).accept(MediaTypes.APPLICATION_NDJSON, MediaType.APPLICATION_JSON).exchange()
+				.flatMap(ReactiveEmployeeRestClient::checkStatus)
+				.flatMapMany(response -> response.body((message, context) -> {
+					MediaType contentType = message.getHeaders().getContentType();
+					if (contentType != null && projectingDecoder.canDecode(EMPLOYEE_TYPE, contentType)) {
+						return projectingDecoder.decode(message.getBody(), EMPLOYEE_TYPE, contentType, hints);
+					}
+					return BodyExtractors.toFlux(Employee.class).extract(message, context)
+							.map(emp -> EmployeeField.project(emp, fields));
+				})).onErrorMap(ReactiveEmployeeRestClient::toApiException);
+	}
+
+	private Flux<Employee> remoteContainsName(String name) {
+		String uriToHit = UriComponentsBuilder.fromUriString("api/v1/employees/by-name/").queryParam("empName", name)
+				.buildAndExpand().toString();
+
+		return operation("containsName", coalescer.flux("containsName:" + name,
+				() -> webClient.get().uri(uriToHit).accept(MediaTypes.APPLICATION_NDJSON, MediaType.APPLICATION_JSON)
+						.retrieve().bodyToFlux(Employee.class)
+						.onErrorMap(ReactiveEmployeeRestClient::toApiException)));
+	}
+
+	/*
+	 * Conditional variants of the reads for CachingEmployeeService. The given
+	 * validators are sent along (If-None-Match, If-Modified-Since) and a 304
+	 * answer yields an entity with status NOT_MODIFIED and no body. They are
+	 * coalesced and hedged like the reads they stand in for, with the
+	 * validators as part of the key.
+	 */
+
+	Mono<ResponseEntity<Employee>> byId(int id, HttpHeaders validators) {
+		return operation("byId", coalescer.mono(conditionalKey("byId:" + id, validators),
+				() -> hedger.mono(() -> webClient.get().uri("api/v1/employees/" + id)
+						.headers(headers -> headers.addAll(validators)).exchange()
+						.flatMap(ReactiveEmployeeRestClient::checkStatus)
+						.flatMap(response -> response.toEntity(Employee.class))
+						.onErrorMap(ReactiveEmployeeRestClient::toApiException))));
+	}
+
+	Mono<ResponseEntity<List<Employee>>> emps(HttpHeaders validators) {
+		return operation("emps", coalescer.mono(conditionalKey("emps", validators),
+				() -> webClient.get().uri("api/v1/employees").headers(headers -> headers.addAll(validators))
+						.accept(MediaTypes.APPLICATION_NDJSON, MediaType.APPLICATION_JSON).exchange()
+						.flatMap(ReactiveEmployeeRestClient::checkStatus)
+						.flatMap(response -> response.toEntityList(Employee.class))
+						.onErrorMap(ReactiveEmployeeRestClient::toApiException)));
+	}
+
+	Mono<ResponseEntity<List<Employee>>> containsName(String name, HttpHeaders validators) {
+		String uriToHit = UriComponentsBuilder.fromUriString("api/v1/employees/by-name/").queryParam("empName", name)
+				.buildAndExpand().toString();
+
+		return operation("containsName", coalescer.mono(conditionalKey(uriToHit, validators),
+				() -> webClient.get().uri(uriToHit).headers(headers -> headers.addAll(validators))
+						.accept(MediaTypes.APPLICATION_NDJSON, MediaType.APPLICATION_JSON).exchange()
+						.flatMap(ReactiveEmployeeRestClient::checkStatus)
+						.flatMap(response -> response.toEntityList(Employee.class))
+						.onErrorMap(ReactiveEmployeeRestClient::toApiException)));
+	}
+
+	/**
+	 * Kept apart from the keys of the plain reads, which share a different
+	 * type of result.
+	 */
+	private static String conditionalKey(String key, HttpHeaders validators) {
+		return "conditional:" + key + "|" + validators.getIfNoneMatch() + "|"
+				+ validators.getFirst(HttpHeaders.IF_MODIFIED_SINCE);
+	}
+
+	@Override
+	public Mono<Employee> addEmployee(Employee emp) {
+		return changing(operation("addEmployee", webClient.post().uri("api/v1/employees").syncBody(emp).retrieve()
+				.bodyToMono(Employee.class).onErrorMap(ReactiveEmployeeRestClient::toApiException)));
+	}
+
+	@Override
+	public Flux<Employee> addEmployees(List<Employee> emps) {
+		return operation("addEmployees", webClient.post().uri("api/v1/employees/bulk").syncBody(emps).retrieve()
+				.bodyToFlux(Employee.class).onErrorMap(ReactiveEmployeeRestClient::toApiException))
+				.doOnComplete(localNameSearch::changed);
+	}
+
+	/**
+	 * With {@code employee.client.write-behind.enabled} set, updates go through
+	 * the {@link WriteBehindQueue}, which coalesces those of the same id.
+	 * Patches and deletes of an id wait for its updates to be written first.
+	 */
+	@Override
+	public Mono<Employee> updateEmployee(int id, Employee emp) {
+		return writeBehind.update(id, emp, this::putEmployee);
+	}
+
+	private Mono<Employee> putEmployee(int id, Employee emp) {
+		return changing(operation("updateEmployee", webClient.put().uri("api/v1/employees/" + id).syncBody(emp)
+				.retrieve().bodyToMono(Employee.class).onErrorMap(ReactiveEmployeeRestClient::toApiException)));
+	}
+
+	@Override
+	public Mono<Employee> patchEmployee(int id, Employee previous, Employee updated) {
+		Map<String, Object> patch = EmployeeMergePatch.diff(previous, updated);
+		if (patch.isEmpty()) {
+			return Mono.just(updated);
+		}
+		return patch(id, patch, () -> putEmployee(id, updated));
+	}
+
+	@Override
+	public Mono<Employee> patchEmployee(int id, Map<String, Object> fields) {
+		return patch(id, fields,
+				() -> byId(id).flatMap(current -> putEmployee(id, EmployeeMergePatch.apply(current, fields))));
+	}
+
+	/**
+	 * When the server answers that it does not take merge patches, the update
+	 * is made with {@code put} and PATCH is not tried again for
+	 * {@code employee.client.patch.reprobe-interval-ms}.
+	 */
+	private Mono<Employee> patch(int id, Map<String, Object> fields, Supplier<Mono<Employee>> put) {
+		return writeBehind.afterWrites(id, () -> mergePatch(id, fields, put));
+	}
+
+	private Mono<Employee> mergePatch(int id, Map<String, Object> fields, Supplier<Mono<Employee>> put) {
+		if (System.currentTimeMillis() < patchUnsupportedUntil) {
+			return put.get();
+		}
+
+		return changing(operation("patchEmployee", webClient.patch().uri("api/v1/employees/" + id)
+				.contentType(MediaTypes.APPLICATION_MERGE_PATCH_JSON).syncBody(fields).retrieve()
+				.bodyToMono(Employee.class).onErrorMap(ReactiveEmployeeRestClient::toApiException)))
+				.onErrorResume(EmployeeApiException.class, e -> {
+					if (isPatchRefused(e)) {
+						patchUnsupportedUntil = System.currentTimeMillis() + patchReprobeIntervalMillis;
+						return put.get();
+					}
+					return Mono.error(e);
+				});
+	}
+
+	private static boolean isPatchRefused(EmployeeApiException e) {
+		int status = e.getStatus();
+		return status == 405 || status == 415 || status == 501;
+	}
+
+	@Override
+	public Mono<Employee> deleteEmployee(int id) {
+		return writeBehind.afterWrites(id, () -> changing(operation("deleteEmployee", webClient.delete()
+				.uri("api/v1/employees/" + id).retrieve().bodyToMono(Employee.class)
+				.onErrorMap(ReactiveEmployeeRestClient::toApiException))));
+	}
+
+	/**
+	 * Tells the {@link LocalNameSearch} when {@code write} has gone through,
+	 * so that name searches do not miss it while the snapshot is older.
+	 */
+	private <T> Mono<T> changing(Mono<T> write) {
+		return write.doOnSuccess(written -> localNameSearch.changed());
+	}
+
+	/**
+	 * Times {@code call} as {@code operation}, within its timeout budget and
+	 * the caller's deadline.
+	 */
+	private <T> Mono<T> operation(String operation, Mono<T> call) {
+		return metrics.mono(operation, timeouts.mono(operation, call));
+	}
+
+	private <T> Flux<T> operation(String operation, Flux<T> call) {
+		return metrics.flux(operation, timeouts.flux(operation, call));
+	}
+
+	/**
+	 * Does for {@code exchange()} what {@code retrieve()} does by default: turns
+	 * a 4xx or 5xx response into a {@link WebClientResponseException} carrying
+	 * the response body.
+	 */
+	static Mono<ClientResponse> checkStatus(ClientResponse response) {
+		HttpStatus status = HttpStatus.resolve(response.rawStatusCode());
+		if (status != null && !status.isError()) {
+			return Mono.just(response);
+		}
+		return response.bodyToMono(byte[].class).defaultIfEmpty(new byte[0])
+				.flatMap(body -> Mono.error(WebClientResponseException.create(response.rawStatusCode(),
+						status != null ? status.getReasonPhrase() : "", response.headers().asHttpHeaders(), body,
+						response.headers().contentType().map(MediaType::getCharset).orElse(null))));
+	}
+
+	static Throwable toApiException(Throwable e) {
+		if (e instanceof EmployeeApiException) {
+			return e;
+		}
+		if (e instanceof WebClientResponseException) {
+			int status = ((WebClientResponseException) e).getRawStatusCode();
+			return new EmployeeApiException(e.getMessage() + "," + status, Fault.HTTP_STATUS, status, e);
+		}
+		return new EmployeeApiException(e.getMessage(), faultOf(e), 0, e);
+	}
+
+	/**
+	 * Classifies transport and decoding failures. A response that starts with
+	 * garbage looks to Reactor Netty like a connection closed before the
+	 * response, and is counted as {@link Fault#CONNECTION_RESET}.
+	 */
+	private static Fault faultOf(Throwable e) {
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+			if (cause instanceof TimeoutException || cause instanceof io.netty.handler.timeout.TimeoutException) {
+				return Fault.TIMEOUT;
+			}
+			if (cause instanceof PrematureCloseException) {
+				return String.valueOf(cause.getMessage()).contains("DURING") ? Fault.MALFORMED_RESPONSE
+						: Fault.CONNECTION_RESET;
+			}
+			if (cause instanceof DecodingException || cause instanceof DecoderException) {
+				return Fault.MALFORMED_RESPONSE;
+			}
+			if (cause instanceof IOException) {
+				return Fault.CONNECTION_RESET;
+			}
+		}
+		return Fault.OTHER;
+	}
+
+}
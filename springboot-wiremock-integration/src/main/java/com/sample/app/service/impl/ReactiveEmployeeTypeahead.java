@@ -0,0 +1,152 @@
+package com.sample.app.service.impl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.sample.app.exception.EmployeeApiException;
+import com.sample.app.model.Employee;
+import com.sample.app.model.NameSuggestions;
+import com.sample.app.service.EmployeeTypeaheadService;
+import com.sample.app.service.ReactiveEmployeeService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Queries are trimmed and debounced by
+ * {@code employee.client.typeahead.debounce-ms}. Each subscription remembers
+ * the complete answers of its last {@code employee.client.typeahead.cache-size}
+ * queries: a query that contains an earlier one, as {@code "Ram"} contains
+ * {@code "Ra"}, is answered by filtering that earlier answer without asking
+ * the server. Like the local name search, matching ignores case. A blank
+ * query is answered with no employees.
+ * <p>
+ * An answer is only known to be complete when it has fewer employees than
+ * {@code employee.client.typeahead.max-results}, the most the server returns
+ * for one search. Set it to the server's limit, or above the size of the
+ * directory when the server has none. Until it is set, no answer counts as
+ * complete and every query goes to the server.
+ */
+@Service
+public class ReactiveEmployeeTypeahead implements EmployeeTypeaheadService {
+
+	@Autowired
+	private ReactiveEmployeeService employeeService;
+
+	@Value("${employee.client.typeahead.debounce-ms:150}")
+	private long debounceMillis;
+
+	@Value("${employee.client.typeahead.cache-size:16}")
+	private int cacheSize;
+
+	@Value("${employee.client.typeahead.max-results:0}")
+	private int maxResults;
+
+	@Override
+	public Flux<NameSuggestions> suggestions(Publisher<String> queries) {
+		Duration debounce = Duration.ofMillis(debounceMillis);
+		return Flux.defer(() -> {
+			Answers answers = new Answers(cacheSize);
+			return Flux.from(queries).map(String::trim).sampleTimeout(query -> Mono.delay(debounce))
+					.distinctUntilChanged().switchMap(query -> search(query, answers));
+		});
+	}
+
+	private Mono<NameSuggestions> search(String query, Answers answers) {
+		if (query.isEmpty()) {
+			return Mono.just(NameSuggestions.found(query, new ArrayList<>()));
+		}
+		List<Employee> narrowed = answers.narrow(query);
+		if (narrowed != null) {
+			return Mono.just(NameSuggestions.found(query, narrowed));
+		}
+		return employeeService.containsName(query).collectList().doOnNext(found -> {
+			if (isComplete(found)) {
+				answers.put(query, found);
+			}
+		})
+				.map(found -> NameSuggestions.found(query, found))
+				.onErrorResume(EmployeeApiException.class, e -> Mono.just(NameSuggestions.failed(query, e)));
+	}
+
+	/**
+	 * Whether the server sent every match, rather than as many as it returns
+	 * at most.
+	 */
+	private boolean isComplete(List<Employee> found) {
+		return found.size() < maxResults;
+	}
+
+	private static String normalize(String name) {
+		return name == null ? "" : name.toLowerCase(Locale.ROOT);
+	}
+
+	private static boolean matches(Employee emp, String normalizedQuery) {
+		return normalize(emp.getFirstName()).contains(normalizedQuery)
+				|| normalize(emp.getLastName()).contains(normalizedQuery);
+	}
+
+	/**
+	 * Complete answers of the recent queries of one subscription, by
+	 * lower-cased query. Written when a search completes and read when the
+	 * next query comes in, possibly on different threads.
+	 */
+	private static final class Answers {
+
+		private final Map<String, List<Employee>> byQuery;
+
+		Answers(int capacity) {
+			this.byQuery = new LinkedHashMap<String, List<Employee>>(16, 0.75f, true) {
+
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, List<Employee>> eldest) {
+					return size() > capacity;
+				}
+
+			};
+		}
+
+		synchronized void put(String query, List<Employee> found) {
+			byQuery.put(normalize(query), found);
+		}
+
+		/**
+		 * The employees of the longest remembered query that {@code query}
+		 * contains, which are the only ones that can match it, filtered by
+		 * {@code query}; {@code null} if no such query is remembered.
+		 */
+		synchronized List<Employee> narrow(String query) {
+			String normalized = normalize(query);
+			String longest = null;
+			for (String earlier : byQuery.keySet()) {
+				if (normalized.contains(earlier) && (longest == null || earlier.length() > longest.length())) {
+					longest = earlier;
+				}
+			}
+			if (longest == null) {
+				return null;
+			}
+			List<Employee> narrowed = new ArrayList<>();
+			for (Employee emp : byQuery.get(longest)) {
+				if (matches(emp, normalized)) {
+					narrowed.add(emp);
+				}
+			}
+			byQuery.put(normalized, narrowed);
+			return new ArrayList<>(narrowed);
+		}
+
+	}
+
+}
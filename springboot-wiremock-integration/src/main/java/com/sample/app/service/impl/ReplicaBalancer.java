@@ -0,0 +1,305 @@
+package com.sample.app.service.impl;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+import com.sample.app.exception.EmployeeApiException;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import reactor.core.publisher.Mono;
+
+/**
+ * Spreads requests over the replicas of the employee API listed, comma
+ * separated, in {@code server.baseuri}. The {@code WebClient} resolves its
+ * requests against the first one, and {@link #filter()} sends each request to
+ * a replica picked by the power of two choices: of two replicas drawn at
+ * random, the one with fewer requests awaiting their response headers.
+ * <p>
+ * A replica that fails {@code employee.client.balancer.consecutive-failures}
+ * requests in a row, with a 5xx answer or without an answer at all, is
+ * ejected for {@code base-ejection-time-ms} times the number of times it has
+ * been ejected, up to {@code max-ejection-time-ms}. At most
+ * {@code max-ejected-percent} of the replicas, and never all of them, are out
+ * at once. When its time is up a replica is drawn only with a probability that
+ * grows from a tenth to one over {@code slow-start-ms}, so that it takes over
+ * its share of the traffic gradually. A success after that forgives its past
+ * ejections. With a single base URI requests pass unchanged.
+ */
+@Component
+public class ReplicaBalancer implements MeterBinder {
+
+	/**
+	 * Request attribute that keeps a request on the replica its URL names.
+	 */
+	public static final String PINNED = ReplicaBalancer.class.getName() + ".pinned";
+
+	private static final double MIN_ADMISSION = 0.1;
+
+	@Value("${server.baseuri}")
+	private String[] baseUris;
+
+	@Value("${employee.client.balancer.consecutive-failures:5}")
+	private int consecutiveFailures;
+
+	@Value("${employee.client.balancer.base-ejection-time-ms:30000}")
+	private long baseEjectionMillis;
+
+	@Value("${employee.client.balancer.max-ejection-time-ms:300000}")
+	private long maxEjectionMillis;
+
+	@Value("${employee.client.balancer.max-ejected-percent:50}")
+	private int maxEjectedPercent;
+
+	@Value("${employee.client.balancer.slow-start-ms:30000}")
+	private long slowStartMillis;
+
+	private List<Replica> replicas;
+
+	@PostConstruct
+	void start() {
+		List<Replica> parsed = new ArrayList<>();
+		for (String baseUri : baseUris) {
+			if (StringUtils.hasText(baseUri)) {
+				parsed.add(new Replica(StringUtils.trimTrailingCharacter(baseUri.trim(), '/')));
+			}
+		}
+		if (parsed.isEmpty()) {
+			throw new IllegalStateException("server.baseuri names no employee API");
+		}
+		replicas = Collections.unmodifiableList(parsed);
+	}
+
+	/**
+	 * The base URI that requests are built against before a replica is picked.
+	 */
+	public String getBaseUri() {
+		return replicas.get(0).baseUri;
+	}
+
+	public List<String> getBaseUris() {
+		return replicas.stream().map(replica -> replica.baseUri).collect(Collectors.toList());
+	}
+
+	public ExchangeFilterFunction filter() {
+		return this::filter;
+	}
+
+	private Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+		String url = request.url().toString();
+		if (replicas.size() == 1 || !url.startsWith(getBaseUri()) || request.attribute(PINNED).isPresent()) {
+			return next.exchange(request);
+		}
+		return Mono.defer(() -> {
+			Replica replica = choose(System.nanoTime());
+			replica.outstanding.incrementAndGet();
+			replica.requests.incrementAndGet();
+			ClientRequest routed = ClientRequest.from(request)
+					.url(URI.create(replica.baseUri + url.substring(getBaseUri().length()))).build();
+
+			AtomicBoolean done = new AtomicBoolean();
+			return next.exchange(routed).doOnSuccessOrError((response, error) -> {
+				if (done.compareAndSet(false, true)) {
+					replica.outstanding.decrementAndGet();
+					if (isFailure(response, error)) {
+						failed(replica);
+					} else {
+						replica.succeeded(System.nanoTime());
+					}
+				}
+			}).doOnCancel(() -> {
+				if (done.compareAndSet(false, true)) {
+					replica.outstanding.decrementAndGet();
+				}
+			});
+		});
+	}
+
+	private Replica choose(long now) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int first = random.nextInt(replicas.size());
+		int second = (first + 1 + random.nextInt(replicas.size() - 1)) % replicas.size();
+		Replica a = replicas.get(first);
+		Replica b = replicas.get(second);
+		boolean aAdmitted = a.isDrawable(now, random);
+		boolean bAdmitted = b.isDrawable(now, random);
+		if (aAdmitted && bAdmitted) {
+			return a.outstanding.get() <= b.outstanding.get() ? a : b;
+		}
+		if (aAdmitted || bAdmitted) {
+			return aAdmitted ? a : b;
+		}
+		return leastOutstanding(now);
+	}
+
+	/**
+	 * The fallback when both draws were ejected or turned away: the least busy
+	 * replica that is back, or the least busy of all if none is.
+	 */
+	private Replica leastOutstanding(long now) {
+		Replica best = null;
+		for (Replica replica : replicas) {
+			if (!replica.isEjected(now) && (best == null || replica.outstanding.get() < best.outstanding.get())) {
+				best = replica;
+			}
+		}
+		if (best != null) {
+			return best;
+		}
+		for (Replica replica : replicas) {
+			if (best == null || replica.outstanding.get() < best.outstanding.get()) {
+				best = replica;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * A 5xx answer or a transport failure counts against the replica. Failures
+	 * the client raised itself, such as a full pool queue, say nothing about
+	 * it.
+	 */
+	private static boolean isFailure(ClientResponse response, Throwable error) {
+		if (error != null) {
+			return !(error instanceof EmployeeApiException);
+		}
+		return response.rawStatusCode() >= 500;
+	}
+
+	private void failed(Replica replica) {
+		if (replica.consecutiveFailures.incrementAndGet() >= consecutiveFailures) {
+			eject(replica, System.nanoTime());
+		}
+	}
+
+	private synchronized void eject(Replica replica, long now) {
+		if (replica.isEjected(now) || replica.consecutiveFailures.get() < consecutiveFailures) {
+			return;
+		}
+		int ejected = 0;
+		for (Replica other : replicas) {
+			if (other.isEjected(now)) {
+				ejected++;
+			}
+		}
+		int maxEjected = Math.min(replicas.size() - 1, Math.max(1, replicas.size() * maxEjectedPercent / 100));
+		if (ejected >= maxEjected) {
+			return;
+		}
+		int times = replica.timesEjected.incrementAndGet();
+		long millis = Math.min(maxEjectionMillis, baseEjectionMillis * times);
+		replica.consecutiveFailures.set(0);
+		replica.ejectedUntil = now + TimeUnit.MILLISECONDS.toNanos(millis);
+		replica.ejections.incrementAndGet();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		for (Replica replica : replicas) {
+			Tags tags = Tags.of("replica", replica.baseUri);
+			Gauge.builder("employee.client.balancer.outstanding", replica.outstanding, AtomicInteger::get)
+					.tags(tags).register(registry);
+			Gauge.builder("employee.client.balancer.ejected", replica,
+					r -> r.isEjected(System.nanoTime()) ? 1 : 0).tags(tags).register(registry);
+			FunctionCounter.builder("employee.client.balancer.requests", replica.requests, AtomicLong::get)
+					.tags(tags).register(registry);
+			FunctionCounter.builder("employee.client.balancer.ejections", replica.ejections, AtomicLong::get)
+					.tags(tags).register(registry);
+		}
+	}
+
+	/**
+	 * Number of requests sent to {@code baseUri} that await their response
+	 * headers.
+	 */
+	public int getOutstanding(String baseUri) {
+		return replica(baseUri).outstanding.get();
+	}
+
+	public long getRequests(String baseUri) {
+		return replica(baseUri).requests.get();
+	}
+
+	public long getEjections(String baseUri) {
+		return replica(baseUri).ejections.get();
+	}
+
+	public boolean isEjected(String baseUri) {
+		return replica(baseUri).isEjected(System.nanoTime());
+	}
+
+	private Replica replica(String baseUri) {
+		String normalized = StringUtils.trimTrailingCharacter(baseUri, '/');
+		return replicas.stream().filter(replica -> replica.baseUri.equals(normalized)).findFirst()
+				.orElseThrow(() -> new IllegalArgumentException("Unknown replica " + baseUri));
+	}
+
+	private final class Replica {
+
+		private final String baseUri;
+		private final AtomicInteger outstanding = new AtomicInteger();
+		private final AtomicInteger consecutiveFailures = new AtomicInteger();
+		private final AtomicInteger timesEjected = new AtomicInteger();
+		private final AtomicLong requests = new AtomicLong();
+		private final AtomicLong ejections = new AtomicLong();
+		private volatile long ejectedUntil = System.nanoTime();
+
+		Replica(String baseUri) {
+			this.baseUri = baseUri;
+		}
+
+		boolean isEjected(long now) {
+			return now - ejectedUntil < 0;
+		}
+
+		/**
+		 * Whether a draw of this replica counts: never while it is ejected,
+		 * sometimes while it slowly starts again, otherwise always.
+		 */
+		boolean isDrawable(long now, ThreadLocalRandom random) {
+			if (isEjected(now)) {
+				return false;
+			}
+			double admission = admission(now);
+			return admission >= 1 || random.nextDouble() < admission;
+		}
+
+		private double admission(long now) {
+			if (timesEjected.get() == 0 || slowStartMillis <= 0) {
+				return 1;
+			}
+			double back = (double) (now - ejectedUntil) / TimeUnit.MILLISECONDS.toNanos(slowStartMillis);
+			return Math.max(MIN_ADMISSION, Math.min(1, back));
+		}
+
+		void succeeded(long now) {
+			consecutiveFailures.set(0);
+			if (timesEjected.get() > 0 && admission(now) >= 1) {
+				timesEjected.set(0);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,133 @@
+package com.sample.app.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Gzips request bodies of at least
+ * {@code employee.client.compression.request.min-size} bytes and marks them
+ * with {@code Content-Encoding: gzip}. Smaller bodies are not worth the CPU
+ * and go out as they are. The body is gathered before it is compressed, which
+ * is fine for the single employees and bulk chunks this client sends.
+ * Disabled unless {@code employee.client.compression.request.enabled} is set,
+ * since the server has to accept compressed bodies.
+ */
+@Component
+public class RequestBodyCompression implements MeterBinder {
+
+	@Value("${employee.client.compression.request.enabled:false}")
+	private boolean enabled;
+
+	@Value("${employee.client.compression.request.min-size:2048}")
+	private int minSize;
+
+	private final AtomicLong compressedRequests = new AtomicLong();
+
+	private final AtomicLong bytesIn = new AtomicLong();
+
+	private final AtomicLong bytesOut = new AtomicLong();
+
+	public ExchangeFilterFunction filter() {
+		return this::filter;
+	}
+
+	private Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+		if (!enabled || request.headers().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+			return next.exchange(request);
+		}
+
+		return next.exchange(ClientRequest.from(request).body((outputMessage, context) -> request.body()
+				.insert(new ClientHttpRequestDecorator(outputMessage) {
+
+					@Override
+					public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+						return DataBufferUtils.join(Flux.<DataBuffer> from(body)).flatMap(joined -> {
+							int size = joined.readableByteCount();
+							if (size < minSize) {
+								return super.writeWith(Mono.just(joined));
+							}
+							DataBuffer gzipped = gzip(joined, bufferFactory().allocateBuffer(size / 2));
+							getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+							getHeaders().setContentLength(gzipped.readableByteCount());
+							compressedRequests.incrementAndGet();
+							bytesIn.addAndGet(size);
+							bytesOut.addAndGet(gzipped.readableByteCount());
+							return super.writeWith(Mono.just(gzipped));
+						});
+					}
+
+				}, context)).build());
+	}
+
+	private static DataBuffer gzip(DataBuffer source, DataBuffer target) {
+		boolean written = false;
+		try (InputStream in = source.asInputStream();
+				OutputStream out = new GZIPOutputStream(target.asOutputStream())) {
+			StreamUtils.copy(in, out);
+			written = true;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			DataBufferUtils.release(source);
+			if (!written) {
+				DataBufferUtils.release(target);
+			}
+		}
+		return target;
+	}
+
+	/**
+	 * Request bodies sent gzipped.
+	 */
+	public long getCompressedRequests() {
+		return compressedRequests.get();
+	}
+
+	/**
+	 * Bytes of the gzipped bodies before compression.
+	 */
+	public long getBytesIn() {
+		return bytesIn.get();
+	}
+
+	/**
+	 * Bytes of the gzipped bodies as sent.
+	 */
+	public long getBytesOut() {
+		return bytesOut.get();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("employee.client.compression.requests", this,
+				RequestBodyCompression::getCompressedRequests).register(registry);
+		FunctionCounter.builder("employee.client.compression.bytes.in", this, RequestBodyCompression::getBytesIn)
+				.baseUnit("bytes").register(registry);
+		FunctionCounter.builder("employee.client.compression.bytes.out", this, RequestBodyCompression::getBytesOut)
+				.baseUnit("bytes").register(registry);
+	}
+
+}
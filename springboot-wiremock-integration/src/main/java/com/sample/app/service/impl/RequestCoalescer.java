@@ -0,0 +1,139 @@
+package com.sample.app.service.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+
+/**
+ * Single-flight deduplication of identical reads. While a call for a given key
+ * is in flight, further calls for the same key subscribe to it instead of
+ * starting their own exchange, and all of them see the same result or error.
+ * The key is released when the shared call terminates, before its outcome is
+ * signalled, so a call made after another one returned always starts afresh.
+ * <p>
+ * A shared {@link Mono} runs to completion even if every subscriber cancels.
+ * A shared {@link Flux} is not buffered: it can only be joined until its
+ * first element, and a call made later starts its own exchange. It is read at
+ * the pace of its slowest subscriber and cancelled once all of them have
+ * cancelled, so that a stream of the whole directory neither piles up in
+ * memory nor keeps its connection after nobody reads it. Disabled unless
+ * {@code employee.client.coalescing.enabled} is set.
+ */
+@Component
+public class RequestCoalescer {
+
+	@Value("${employee.client.coalescing.enabled:false}")
+	private boolean enabled;
+
+	private final Map<String, Object> inFlight = new ConcurrentHashMap<>();
+
+	private final AtomicLong coalescedCalls = new AtomicLong();
+
+	@SuppressWarnings("unchecked")
+	public <T> Mono<T> mono(String key, Supplier<Mono<T>> call) {
+		if (!enabled) {
+			return call.get();
+		}
+		return Mono.defer(() -> (Mono<T>) join(key,
+				() -> call.get().doOnSuccessOrError((result, error) -> inFlight.remove(key)).cache()));
+	}
+
+	public <T> Flux<T> flux(String key, Supplier<Flux<T>> call) {
+		if (!enabled) {
+			return call.get();
+		}
+		return Flux.from(subscriber -> subscribe(key, call, Operators.toCoreSubscriber(subscriber)));
+	}
+
+	/**
+	 * The shared call runs with the context of the subscriber that started
+	 * it, which carries the operation and deadline of its caller.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> void subscribe(String key, Supplier<Flux<T>> call, CoreSubscriber<? super T> subscriber) {
+		boolean[] started = { false };
+		SharedFlux<T> shared = (SharedFlux<T>) inFlight.computeIfAbsent(key, k -> {
+			started[0] = true;
+			return new SharedFlux<>(k, call.get().subscriberContext(subscriber.currentContext()));
+		});
+		if (!shared.join(subscriber)) {
+			call.get().subscribe(subscriber);
+		} else if (!started[0]) {
+			coalescedCalls.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Number of calls that were served by joining an exchange already in flight
+	 * rather than starting a new one.
+	 */
+	public long getCoalescedCalls() {
+		return coalescedCalls.get();
+	}
+
+	private Object join(String key, Supplier<Object> call) {
+		boolean[] started = { false };
+		Object shared = inFlight.computeIfAbsent(key, k -> {
+			started[0] = true;
+			return call.get();
+		});
+		if (!started[0]) {
+			coalescedCalls.incrementAndGet();
+		}
+		return shared;
+	}
+
+	/**
+	 * A {@link Flux} published to the subscribers that join it before its
+	 * first element. Joining and closing synchronise, so a subscriber either
+	 * joins in time to see every element or is turned away.
+	 */
+	private final class SharedFlux<T> {
+
+		private final String key;
+
+		private final Flux<T> flux;
+
+		private volatile boolean open = true;
+
+		SharedFlux(String key, Flux<T> call) {
+			this.key = key;
+			this.flux = call.doOnNext(element -> close()).doOnTerminate(this::close).doOnCancel(this::close)
+					.publish().refCount();
+		}
+
+		synchronized boolean join(CoreSubscriber<? super T> subscriber) {
+			if (!open) {
+				return false;
+			}
+			flux.subscribe(subscriber);
+			return true;
+		}
+
+		/**
+		 * Releases the key before the first element or the outcome is
+		 * signalled.
+		 */
+		void close() {
+			if (open) {
+				synchronized (this) {
+					if (open) {
+						open = false;
+						inFlight.remove(key, this);
+					}
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,189 @@
+package com.sample.app.service.impl;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Hedging of idempotent reads. If a call has not answered after the
+ * {@code employee.client.hedging.percentile} of recent response times, the
+ * same call is started a second time. Whichever answers first wins, and the
+ * other one is cancelled, which closes its connection. The response times are
+ * those of first attempts; one that is cancelled counts with the time it had
+ * taken so far, since leaving the slow attempts out would pull the delay below
+ * the percentile.
+ * <p>
+ * Hedges are paid for from a token bucket. Every call adds
+ * {@code budget-ratio} of a token, up to {@code budget-burst} tokens, and every
+ * hedge takes one, so hedging adds at most that fraction of extra load once
+ * the burst is spent. A call that finds the bucket empty just waits for its
+ * first attempt. A failed hedge is ignored, while a failed first attempt fails
+ * the call as it would without hedging. Disabled unless
+ * {@code employee.client.hedging.enabled} is set.
+ */
+@Component
+public class RequestHedger implements MeterBinder {
+
+	private static final int WINDOW = 1024;
+
+	private static final int MIN_SAMPLES = 32;
+
+	private static final int RECOMPUTE_EVERY = 32;
+
+	@Value("${employee.client.hedging.enabled:false}")
+	private boolean enabled;
+
+	@Value("${employee.client.hedging.percentile:0.95}")
+	private double percentile;
+
+	@Value("${employee.client.hedging.initial-delay-ms:100}")
+	private long initialDelayMillis;
+
+	@Value("${employee.client.hedging.min-delay-ms:5}")
+	private long minDelayMillis;
+
+	@Value("${employee.client.hedging.budget-ratio:0.05}")
+	private double budgetRatio;
+
+	@Value("${employee.client.hedging.budget-burst:10}")
+	private int budgetBurst;
+
+	private final long[] latencies = new long[WINDOW];
+
+	private final AtomicLong recorded = new AtomicLong();
+
+	private volatile long delayNanos = -1;
+
+	/**
+	 * Thousandths of a token, so that fractional ratios add up exactly. The
+	 * bucket starts out full on the first call.
+	 */
+	private final AtomicLong budgetMillitokens = new AtomicLong(-1);
+
+	private final AtomicLong hedges = new AtomicLong();
+
+	private final AtomicLong hedgeWins = new AtomicLong();
+
+	private final AtomicLong budgetDenials = new AtomicLong();
+
+	public <T> Mono<T> mono(Supplier<Mono<T>> call) {
+		if (!enabled) {
+			return call.get();
+		}
+		return Mono.defer(() -> {
+			deposit();
+			Mono<T> first = timed(call.get());
+			Mono<T> hedge = Mono.delay(getHedgeDelay()).flatMap(tick -> {
+				if (!withdraw()) {
+					budgetDenials.incrementAndGet();
+					return Mono.never();
+				}
+				hedges.incrementAndGet();
+				return call.get().doOnSuccess(result -> hedgeWins.incrementAndGet())
+						.onErrorResume(e -> Mono.never());
+			});
+			return Mono.first(first, hedge);
+		});
+	}
+
+	/**
+	 * How long a call waits before it is hedged: the configured percentile of
+	 * the last {@value #WINDOW} first attempts, or
+	 * {@code initial-delay-ms} until there are enough of them.
+	 */
+	public Duration getHedgeDelay() {
+		long delay = delayNanos;
+		return delay < 0 ? Duration.ofMillis(initialDelayMillis) : Duration.ofNanos(delay);
+	}
+
+	/**
+	 * Number of second attempts started.
+	 */
+	public long getHedges() {
+		return hedges.get();
+	}
+
+	/**
+	 * Number of second attempts that answered before the first one.
+	 */
+	public long getHedgeWins() {
+		return hedgeWins.get();
+	}
+
+	/**
+	 * Number of calls that were due for a hedge but found the budget spent.
+	 */
+	public long getBudgetDenials() {
+		return budgetDenials.get();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("employee.client.hedging.hedges", this, RequestHedger::getHedges).register(registry);
+		FunctionCounter.builder("employee.client.hedging.wins", this, RequestHedger::getHedgeWins).register(registry);
+		FunctionCounter.builder("employee.client.hedging.denied", this, RequestHedger::getBudgetDenials)
+				.register(registry);
+		Gauge.builder("employee.client.hedging.delay", this, hedger -> hedger.getHedgeDelay().toNanos())
+				.baseUnit("nanoseconds").register(registry);
+	}
+
+	/**
+	 * A cancelled attempt would have taken at least as long as it had so far,
+	 * which is recorded in its place.
+	 */
+	private <T> Mono<T> timed(Mono<T> attempt) {
+		return Mono.defer(() -> {
+			long start = System.nanoTime();
+			return attempt.doFinally(signal -> {
+				if (signal != SignalType.ON_ERROR) {
+					record(System.nanoTime() - start);
+				}
+			});
+		});
+	}
+
+	/**
+	 * Writes to the window are not synchronised. A sample lost to a race only
+	 * makes the estimate slightly older.
+	 */
+	private void record(long nanos) {
+		long count = recorded.incrementAndGet();
+		latencies[(int) ((count - 1) % WINDOW)] = nanos;
+		if (count >= MIN_SAMPLES && count % RECOMPUTE_EVERY == 0) {
+			long[] window = Arrays.copyOf(latencies, (int) Math.min(count, WINDOW));
+			Arrays.sort(window);
+			long estimate = window[(int) Math.min(window.length - 1, Math.ceil(percentile * window.length) - 1)];
+			delayNanos = Math.max(estimate, TimeUnit.MILLISECONDS.toNanos(minDelayMillis));
+		}
+	}
+
+	private void deposit() {
+		long max = budgetBurst * 1000L;
+		long deposit = (long) (budgetRatio * 1000);
+		budgetMillitokens.updateAndGet(tokens -> tokens < 0 ? max : Math.min(max, tokens + deposit));
+	}
+
+	private boolean withdraw() {
+		long tokens;
+		do {
+			tokens = budgetMillitokens.get();
+			if (tokens < 1000) {
+				return false;
+			}
+		} while (!budgetMillitokens.compareAndSet(tokens, tokens - 1000));
+		return true;
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.sample.app.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+import com.sample.app.config.MediaTypes;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import reactor.core.publisher.Mono;
+
+/**
+ * Asks the employee API for Smile, Jackson's binary JSON, and sends request
+ * bodies as Smile. JSON stays acceptable, so a server that does not speak
+ * Smile simply answers JSON. A server that refuses a Smile body with 415, or
+ * refuses to answer with 406, gets the request again as it was, and Smile is
+ * not tried again for {@code employee.client.smile.reprobe-interval-ms}.
+ * Disabled unless {@code employee.client.smile.enabled} is set.
+ */
+@Component
+public class SmileContentNegotiation implements MeterBinder {
+
+	@Value("${employee.client.smile.enabled:false}")
+	private boolean enabled;
+
+	@Value("${employee.client.smile.reprobe-interval-ms:300000}")
+	private long reprobeIntervalMillis;
+
+	private volatile long unsupportedUntil;
+
+	private final AtomicLong fallbacks = new AtomicLong();
+
+	public ExchangeFilterFunction filter() {
+		return this::filter;
+	}
+
+	private Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+		if (!enabled || System.currentTimeMillis() < unsupportedUntil) {
+			return next.exchange(request);
+		}
+
+		return next.exchange(preferSmile(request)).flatMap(response -> {
+			int status = response.rawStatusCode();
+			if (status != 415 && status != 406) {
+				return Mono.just(response);
+			}
+			unsupportedUntil = System.currentTimeMillis() + reprobeIntervalMillis;
+			fallbacks.incrementAndGet();
+			return response.bodyToMono(Void.class).then(next.exchange(request));
+		});
+	}
+
+	private static ClientRequest preferSmile(ClientRequest request) {
+		boolean hasBody = request.method() == HttpMethod.POST || request.method() == HttpMethod.PUT
+				|| request.method() == HttpMethod.PATCH;
+
+		return ClientRequest.from(request).headers(headers -> {
+			List<MediaType> accept = new ArrayList<>(headers.getAccept());
+			if (accept.isEmpty()) {
+				accept.add(MediaType.APPLICATION_JSON);
+			}
+			accept.add(0, MediaTypes.APPLICATION_SMILE);
+			headers.setAccept(accept);
+			if (hasBody && !headers.containsKey(HttpHeaders.CONTENT_TYPE)) {
+				headers.setContentType(MediaTypes.APPLICATION_SMILE);
+			}
+		}).build();
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Requests that had to be repeated without Smile.
+	 */
+	public long getFallbacks() {
+		return fallbacks.get();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("employee.client.smile.fallbacks", this, SmileContentNegotiation::getFallbacks)
+				.register(registry);
+	}
+
+}
@@ -0,0 +1,284 @@
+package com.sample.app.service.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.sample.app.exception.EmployeeApiException;
+import com.sample.app.exception.EmployeeApiException.Fault;
+import com.sample.app.model.Employee;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Write-behind for employee updates. The first update of an id opens a window
+ * of {@code employee.client.write-behind.window-ms}; further updates of that
+ * id within the window replace the buffered state, and only the latest one is
+ * written when the window closes. At most
+ * {@code employee.client.write-behind.concurrency} writes are in flight at a
+ * time, and never two for the same id, so the server ends up with the state
+ * of the last update.
+ * <p>
+ * The {@link Mono} of an update completes once the write that carried it has
+ * been answered, with that answer or error; every update coalesced into a
+ * write sees the same outcome. Cancelling it does not withdraw the update.
+ * {@link #flush()} writes everything buffered without waiting for the windows
+ * to close, and {@link #close()} flushes and refuses later updates. Other
+ * writes of an id, such as patches and deletes, go through
+ * {@link #afterWrites(int, Supplier)} so that they reach the server after the
+ * updates made before them. Disabled unless
+ * {@code employee.client.write-behind.enabled} is set.
+ */
+@Component
+public class WriteBehindQueue implements MeterBinder, AutoCloseable {
+
+	@Value("${employee.client.write-behind.enabled:false}")
+	private boolean enabled;
+
+	@Value("${employee.client.write-behind.window-ms:300}")
+	private long windowMillis;
+
+	@Value("${employee.client.write-behind.concurrency:8}")
+	private int concurrency;
+
+	/*
+	 * All guarded by this. An id is either buffered, or being written, or both
+	 * when it was updated again while its previous write was in flight.
+	 */
+
+	private final Map<Integer, Pending> buffered = new HashMap<>();
+
+	private final Map<Integer, Pending> writing = new HashMap<>();
+
+	private final Deque<Pending> ready = new ArrayDeque<>();
+
+	private int inFlight;
+
+	private boolean closed;
+
+	private final AtomicLong updates = new AtomicLong();
+
+	private final AtomicLong writes = new AtomicLong();
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Buffers {@code emp} as the latest state of employee {@code id} on
+	 * subscription, to be written with {@code write}. When disabled, simply
+	 * returns the write.
+	 */
+	public Mono<Employee> update(int id, Employee emp, BiFunction<Integer, Employee, Mono<Employee>> write) {
+		if (!enabled) {
+			return write.apply(id, emp);
+		}
+		return Mono.defer(() -> buffer(id, emp, write));
+	}
+
+	private Mono<Employee> buffer(int id, Employee emp, BiFunction<Integer, Employee, Mono<Employee>> write) {
+		Pending pending;
+		synchronized (this) {
+			if (closed) {
+				return Mono.error(new EmployeeApiException("Write-behind queue is closed", Fault.REJECTED));
+			}
+			pending = buffered.get(id);
+			if (pending == null) {
+				pending = new Pending(id);
+				pending.timer = Schedulers.parallel().schedule(() -> due(id), windowMillis, TimeUnit.MILLISECONDS);
+				buffered.put(id, pending);
+			}
+			pending.emp = emp;
+			pending.write = write;
+		}
+		updates.incrementAndGet();
+		return pending.written;
+	}
+
+	/**
+	 * Writes every buffered update now. The returned {@link Mono} completes
+	 * when all updates made before subscribing to it have been written, and
+	 * fails if any of those writes did, after all of them are done.
+	 */
+	public Mono<Void> flush() {
+		return flush(null);
+	}
+
+	/**
+	 * {@link #flush()} for employee {@code id} alone.
+	 */
+	public Mono<Void> flush(int id) {
+		return flush(Integer.valueOf(id));
+	}
+
+	private Mono<Void> flush(Integer only) {
+		return Mono.defer(() -> {
+			List<Mono<Employee>> outstanding = new ArrayList<>();
+			synchronized (this) {
+				for (Pending pending : new ArrayList<>(buffered.values())) {
+					if (only == null || only == pending.id) {
+						pending.timer.dispose();
+						outstanding.add(pending.written);
+						release(pending);
+					}
+				}
+				for (Pending pending : writing.values()) {
+					if (only == null || only == pending.id) {
+						outstanding.add(pending.written);
+					}
+				}
+			}
+			drain();
+			return Mono.whenDelayError(outstanding);
+		});
+	}
+
+	/**
+	 * Calls {@code write} on subscription once the updates of employee
+	 * {@code id} made before have been written, flushing them at once. Their
+	 * failures have been reported to their callers and do not stop
+	 * {@code write}. When disabled, simply returns the write.
+	 */
+	public <T> Mono<T> afterWrites(int id, Supplier<Mono<T>> write) {
+		if (!enabled) {
+			return write.get();
+		}
+		return flush(id).onErrorResume(error -> Mono.empty()).then(Mono.defer(write));
+	}
+
+	/**
+	 * Refuses further updates and blocks until everything buffered has been
+	 * written. Failed writes have been reported to their callers and are not
+	 * rethrown.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			closed = true;
+		}
+		flush().onErrorResume(error -> Mono.empty()).block();
+	}
+
+	private void due(int id) {
+		synchronized (this) {
+			Pending pending = buffered.get(id);
+			if (pending == null) {
+				return;
+			}
+			release(pending);
+		}
+		drain();
+	}
+
+	/**
+	 * Moves a buffered update to the ready queue, unless its id is still being
+	 * written; then it follows when that write is done. Called holding the lock.
+	 */
+	private void release(Pending pending) {
+		pending.due = true;
+		if (writing.containsKey(pending.id)) {
+			return;
+		}
+		buffered.remove(pending.id);
+		writing.put(pending.id, pending);
+		ready.add(pending);
+	}
+
+	private void drain() {
+		while (true) {
+			Pending next;
+			synchronized (this) {
+				if (inFlight >= concurrency || ready.isEmpty()) {
+					return;
+				}
+				next = ready.poll();
+				inFlight++;
+			}
+			writes.incrementAndGet();
+			// released before the outcome is signalled, so that callers find it settled
+			Mono.defer(() -> next.write.apply(next.id, next.emp))
+					.doOnSuccessOrError((emp, error) -> written(next)).subscribe(next.written);
+		}
+	}
+
+	private void written(Pending done) {
+		synchronized (this) {
+			inFlight--;
+			writing.remove(done.id);
+			Pending next = buffered.get(done.id);
+			if (next != null && next.due) {
+				release(next);
+			}
+		}
+		drain();
+	}
+
+	/**
+	 * Updates accepted, coalesced or not.
+	 */
+	public long getUpdates() {
+		return updates.get();
+	}
+
+	/**
+	 * Writes sent to the server.
+	 */
+	public long getWrites() {
+		return writes.get();
+	}
+
+	/**
+	 * Writes still to be made or being made; an id updated again while being
+	 * written counts twice.
+	 */
+	public synchronized int getPending() {
+		return buffered.size() + writing.size();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("employee.client.write-behind.updates", this, WriteBehindQueue::getUpdates)
+				.register(registry);
+		FunctionCounter.builder("employee.client.write-behind.writes", this, WriteBehindQueue::getWrites)
+				.register(registry);
+		Gauge.builder("employee.client.write-behind.pending", this, WriteBehindQueue::getPending).register(registry);
+	}
+
+	private static final class Pending {
+
+		private final int id;
+
+		private final MonoProcessor<Employee> written = MonoProcessor.create();
+
+		private Employee emp;
+
+		private BiFunction<Integer, Employee, Mono<Employee>> write;
+
+		private Disposable timer;
+
+		private boolean due;
+
+		private Pending(int id) {
+			this.id = id;
+		}
+
+	}
+
+}
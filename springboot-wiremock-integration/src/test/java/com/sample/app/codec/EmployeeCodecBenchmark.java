@@ -0,0 +1,131 @@
+package com.sample.app.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.sample.app.model.Employee;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Time to decode JSON arrays of 10, 10k and 1M employees delivered in 8 KB
+ * chunks, and to encode them, with the dedicated employee codec, with
+ * Spring's Jackson codec and, for decoding, with the streaming Jackson decoder
+ * the client uses by default.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeCodecBenchmark {
+
+	private static final int CHUNK_SIZE = 8192;
+
+	private static final ResolvableType EMPLOYEE = ResolvableType.forClass(Employee.class);
+
+	@Param({ "10", "10000", "1000000" })
+	private int size;
+
+	private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+	private final Decoder<Object> jacksonDecoder = new Jackson2JsonDecoder(Jackson2ObjectMapperBuilder.json().build());
+
+	private final Decoder<Object> streamingJacksonDecoder = new StreamingJackson2JsonDecoder(
+			Jackson2ObjectMapperBuilder.json().build(), MediaType.APPLICATION_JSON);
+
+	private final Decoder<Employee> employeeDecoder = new EmployeeJsonDecoder();
+
+	private final Encoder<Object> jacksonEncoder = new Jackson2JsonEncoder(Jackson2ObjectMapperBuilder.json().build());
+
+	private final Encoder<Employee> employeeEncoder = new EmployeeJsonEncoder();
+
+	private byte[] json;
+
+	private List<Employee> employees;
+
+	@Setup
+	public void setUp() {
+		employees = new ArrayList<>(size);
+		StringBuilder body = new StringBuilder(size * 48).append('[');
+		for (int i = 1; i <= size; i++) {
+			Employee emp = new Employee();
+			emp.setId(i);
+			emp.setFirstName("First" + i);
+			emp.setLastName("Last" + i);
+			employees.add(emp);
+
+			if (i > 1) {
+				body.append(',');
+			}
+			body.append("{\"id\":").append(i).append(",\"firstName\":\"First").append(i)
+					.append("\",\"lastName\":\"Last").append(i).append("\"}");
+		}
+		json = body.append(']').toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private Flux<DataBuffer> chunks() {
+		return Flux.range(0, (json.length + CHUNK_SIZE - 1) / CHUNK_SIZE).map(i -> bufferFactory
+				.wrap(ByteBuffer.wrap(json, i * CHUNK_SIZE, Math.min(CHUNK_SIZE, json.length - i * CHUNK_SIZE))));
+	}
+
+	@Benchmark
+	public long decodeWithJackson() {
+		return jacksonDecoder.decode(chunks(), EMPLOYEE, MediaType.APPLICATION_JSON, null).count().block();
+	}
+
+	@Benchmark
+	public long decodeWithStreamingJackson() {
+		return streamingJacksonDecoder.decode(chunks(), EMPLOYEE, MediaType.APPLICATION_JSON, null).count().block();
+	}
+
+	@Benchmark
+	public long decodeWithEmployeeCodec() {
+		return employeeDecoder.decode(chunks(), EMPLOYEE, MediaType.APPLICATION_JSON, null).count().block();
+	}
+
+	@Benchmark
+	public long encodeWithJackson() {
+		return jacksonEncoder.encode(Flux.fromIterable(employees), bufferFactory, EMPLOYEE,
+				MediaType.APPLICATION_JSON, null).map(DataBuffer::readableByteCount).reduce(0L, Long::sum).block();
+	}
+
+	@Benchmark
+	public long encodeWithEmployeeCodec() {
+		return employeeEncoder.encode(Flux.fromIterable(employees), bufferFactory, EMPLOYEE,
+				MediaType.APPLICATION_JSON, null).map(DataBuffer::readableByteCount).reduce(0L, Long::sum).block();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(EmployeeCodecBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.sample.app.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.StreamUtils;
+
+import com.sample.app.model.Employee;
+
+/**
+ * The CPU side of the bandwidth trade-off made by
+ * {@code employee.client.compression.*}: time to compress and to inflate a
+ * JSON employee list of 100, 1k and 10k employees. The setup prints how many
+ * bytes each encoding puts on the wire.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeCompressionBenchmark {
+
+	@Param({ "100", "1000", "10000" })
+	private int size;
+
+	@Param({ "gzip", "deflate" })
+	private String encoding;
+
+	private byte[] json;
+
+	private byte[] compressed;
+
+	@Setup
+	public void setUp() throws IOException {
+		List<Employee> emps = new ArrayList<>(size);
+		for (int i = 1; i <= size; i++) {
+			Employee emp = new Employee();
+			emp.setId(i);
+			emp.setFirstName("First" + i);
+			emp.setLastName("Last" + i);
+			emps.add(emp);
+		}
+		json = Jackson2ObjectMapperBuilder.json().build().writeValueAsBytes(emps);
+		compressed = compress();
+
+		System.out.printf("%n%s, %d employees: %d bytes as JSON, %d bytes on the wire (%.1f%%)%n", encoding, size,
+				json.length, compressed.length, 100.0 * compressed.length / json.length);
+	}
+
+	@Benchmark
+	public byte[] compress() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 4);
+		try (OutputStream out = "gzip".equals(encoding) ? new GZIPOutputStream(bytes)
+				: new DeflaterOutputStream(bytes)) {
+			out.write(json);
+		}
+		return bytes.toByteArray();
+	}
+
+	@Benchmark
+	public byte[] inflate() throws IOException {
+		InputStream bytes = new ByteArrayInputStream(compressed);
+		try (InputStream in = "gzip".equals(encoding) ? new GZIPInputStream(bytes) : new InflaterInputStream(bytes)) {
+			return StreamUtils.copyToByteArray(in);
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(EmployeeCompressionBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -0,0 +1,122 @@
+package com.sample.app.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.sample.app.model.Employee;
+import com.sample.app.model.EmployeeField;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * What {@code emps(EnumSet.of(ID, FIRST_NAME))} saves: the setup prints the
+ * bytes of a full and of a projected body, and the benchmarks decode the full
+ * body as usual, the full body skipping the other fields (a server that
+ * ignores {@code fields}), and the projected body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeProjectionBenchmark {
+
+	private static final int CHUNK_SIZE = 8192;
+
+	private static final ResolvableType EMPLOYEE = ResolvableType.forClass(Employee.class);
+
+	private static final Map<String, Object> ID_AND_FIRST_NAME = Collections.singletonMap(
+			EmployeeJsonDecoder.FIELDS_HINT, EnumSet.of(EmployeeField.ID, EmployeeField.FIRST_NAME));
+
+	@Param({ "10000", "1000000" })
+	private int size;
+
+	private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+	private final Decoder<Object> jacksonDecoder = new StreamingJackson2JsonDecoder(
+			Jackson2ObjectMapperBuilder.json().build(), MediaType.APPLICATION_JSON);
+
+	private final Decoder<Employee> employeeDecoder = new EmployeeJsonDecoder();
+
+	private byte[] full;
+
+	private byte[] projected;
+
+	@Setup
+	public void setUp() {
+		StringBuilder fullBody = new StringBuilder(size * 64).append('[');
+		StringBuilder projectedBody = new StringBuilder(size * 32).append('[');
+		for (int i = 1; i <= size; i++) {
+			if (i > 1) {
+				fullBody.append(',');
+				projectedBody.append(',');
+			}
+			fullBody.append("{\"id\":").append(i).append(",\"firstName\":\"First").append(i)
+					.append("\",\"lastName\":\"Lastname-of-employee-").append(i).append("\"}");
+			projectedBody.append("{\"id\":").append(i).append(",\"firstName\":\"First").append(i).append("\"}");
+		}
+		full = fullBody.append(']').toString().getBytes(StandardCharsets.UTF_8);
+		projected = projectedBody.append(']').toString().getBytes(StandardCharsets.UTF_8);
+
+		System.out.printf("%n%d employees: %d bytes in full, %d bytes with fields=id,firstName (%.1f%%)%n", size,
+				full.length, projected.length, 100.0 * projected.length / full.length);
+	}
+
+	private Flux<DataBuffer> chunks(byte[] json) {
+		return Flux.range(0, (json.length + CHUNK_SIZE - 1) / CHUNK_SIZE).map(i -> bufferFactory
+				.wrap(ByteBuffer.wrap(json, i * CHUNK_SIZE, Math.min(CHUNK_SIZE, json.length - i * CHUNK_SIZE))));
+	}
+
+	@Benchmark
+	public long fullWithJackson() {
+		return jacksonDecoder.decode(chunks(full), EMPLOYEE, MediaType.APPLICATION_JSON, null).count().block();
+	}
+
+	@Benchmark
+	public long fullWithEmployeeCodec() {
+		return employeeDecoder.decode(chunks(full), EMPLOYEE, MediaType.APPLICATION_JSON, null).count().block();
+	}
+
+	@Benchmark
+	public long fullSkippingFields() {
+		return employeeDecoder.decode(chunks(full), EMPLOYEE, MediaType.APPLICATION_JSON, ID_AND_FIRST_NAME).count()
+				.block();
+	}
+
+	@Benchmark
+	public long projected() {
+		return employeeDecoder.decode(chunks(projected), EMPLOYEE, MediaType.APPLICATION_JSON, ID_AND_FIRST_NAME)
+				.count().block();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(EmployeeProjectionBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -0,0 +1,124 @@
+package com.sample.app.config;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import reactor.netty.http.client.HttpClient;
+
+/**
+ * Latency and throughput of 64 callers fetching employees by id from a
+ * WireMock server that answers after 20 ms, once over pooled HTTP/1.1
+ * connections and once multiplexed over HTTP/2, both over TLS. Sample time
+ * mode reports the percentiles of single requests and how many were made; the
+ * tear down prints how many connections each protocol needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Threads(64)
+@Fork(1)
+public class EmployeeHttp2Benchmark {
+
+	private static final int PORT = 9443;
+
+	@Param({ "http/1.1", "h2" })
+	private String protocol;
+
+	private final AtomicInteger ids = new AtomicInteger();
+
+	private WireMockServer server;
+
+	private EmployeeConnectionPool connectionPool;
+
+	private EmployeeHttp2Transport http2Transport;
+
+	private WebClient webClient;
+
+	@Setup
+	public void setUp() throws Exception {
+		// without Spring Boot, logback logs everything at debug level
+		((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+		server = new WireMockServer(WireMockConfiguration.options().dynamicPort().httpsPort(PORT)
+				.containerThreads(200).asynchronousResponseEnabled(true).notifier(new ConsoleNotifier(false)));
+		server.start();
+		server.stubFor(get(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json")
+				.withBody("{\"id\":1,\"firstName\":\"Ram\",\"lastName\":\"Ponnam\"}").withFixedDelay(20)));
+
+		EmployeePoolProperties poolProperties = new EmployeePoolProperties();
+		WebClient.Builder builder = WebClient.builder().baseUrl("https://localhost:" + PORT);
+		if ("h2".equals(protocol)) {
+			EmployeeHttp2Properties http2Properties = new EmployeeHttp2Properties();
+			http2Properties.setEnabled(true);
+			EmployeeTlsProperties tlsProperties = new EmployeeTlsProperties();
+			tlsProperties.setTrustAll(true);
+			http2Transport = new EmployeeHttp2Transport(http2Properties, poolProperties,
+					new EmployeeTimeoutProperties(), tlsProperties, false);
+			builder.clientConnector(http2Transport.getConnector());
+		} else {
+			connectionPool = new EmployeeConnectionPool(poolProperties);
+			HttpClient httpClient = HttpClient.create(connectionPool.getConnectionProvider()).secure(ssl -> ssl
+					.sslContext(SslContextBuilder.forClient().trustManager(InsecureTrustManagerFactory.INSTANCE)));
+			builder.clientConnector(new ReactorClientHttpConnector(connectionPool.instrument(httpClient)));
+		}
+		webClient = builder.build();
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		if (http2Transport != null) {
+			System.out.printf("%n%s: %d connections%n", protocol, http2Transport.getConnections());
+			http2Transport.close();
+		} else {
+			System.out.printf("%n%s: %d connections%n", protocol, connectionPool.getTotalConnections());
+			connectionPool.close();
+		}
+		server.stop();
+	}
+
+	@Benchmark
+	public String byId() {
+		return webClient.get().uri("/api/v1/employees/{id}", ids.incrementAndGet()).retrieve().bodyToMono(String.class)
+				.block();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(EmployeeHttp2Benchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -0,0 +1,168 @@
+package com.sample.app.config;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.sample.app.config.EmployeeNettyProperties.Transport;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslProvider;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.tcp.TcpClient;
+
+/**
+ * Requests per second of 32 callers fetching employees by id from a WireMock
+ * server over TLS, with the client's event loops on NIO or on the native
+ * transport, and TLS done by the JDK or by OpenSSL. OpenSSL needs
+ * netty-tcnative, which the {@code openssl} Maven profile adds; without it
+ * {@link #main} leaves the OpenSSL arms out, and they fail rather than measure
+ * the JDK under the wrong label. The tear down prints the transport really
+ * used, as the native one falls back to NIO when its library is missing, and
+ * the CPU time the client's event loop threads spent per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Threads(32)
+@Fork(1)
+public class EmployeeTransportBenchmark {
+
+	private static final int PORT = 9444;
+
+	private static final int LOOP_THREADS = 4;
+
+	@Param({ "nio", "native" })
+	private String transport;
+
+	@Param({ "jdk", "openssl" })
+	private String tls;
+
+	private final AtomicInteger ids = new AtomicInteger();
+
+	private final AtomicLong requests = new AtomicLong();
+
+	private WireMockServer server;
+
+	private EmployeeConnectionPool connectionPool;
+
+	private EmployeeEventLoops eventLoops;
+
+	private SslProvider sslProvider;
+
+	private WebClient webClient;
+
+	@Setup
+	public void setUp() throws Exception {
+		sslProvider = "openssl".equals(tls) ? SslProvider.OPENSSL : SslProvider.JDK;
+		if (sslProvider == SslProvider.OPENSSL && !OpenSsl.isAvailable()) {
+			throw new IllegalStateException("OpenSSL is not available: " + OpenSsl.unavailabilityCause());
+		}
+
+		// without Spring Boot, logback logs everything at debug level
+		((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+		server = new WireMockServer(WireMockConfiguration.options().dynamicPort().httpsPort(PORT)
+				.containerThreads(100).notifier(new ConsoleNotifier(false)));
+		server.start();
+		server.stubFor(get(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json")
+				.withBody("{\"id\":1,\"firstName\":\"Ram\",\"lastName\":\"Ponnam\"}")));
+
+		EmployeePoolProperties poolProperties = new EmployeePoolProperties();
+		EmployeeNettyProperties nettyProperties = new EmployeeNettyProperties();
+		nettyProperties.setTransport("native".equals(transport) ? Transport.NATIVE : Transport.NIO);
+		nettyProperties.setLoopThreads(LOOP_THREADS);
+		connectionPool = new EmployeeConnectionPool(poolProperties);
+		eventLoops = new EmployeeEventLoops(nettyProperties, loopPrefix());
+
+		TcpClient tcpClient = eventLoops.apply(TcpClient.create(connectionPool.getConnectionProvider()));
+		HttpClient httpClient = HttpClient.from(tcpClient).secure(ssl -> ssl.sslContext(SslContextBuilder.forClient()
+				.sslProvider(sslProvider).trustManager(InsecureTrustManagerFactory.INSTANCE)));
+		webClient = WebClient.builder().baseUrl("https://localhost:" + PORT)
+				.clientConnector(new ReactorClientHttpConnector(connectionPool.instrument(httpClient))).build();
+	}
+
+	private String loopPrefix() {
+		return "bench-" + transport + "-" + tls;
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		System.out.printf("%n%s/%s: %s event loops, %s TLS, %.1f us of event loop CPU per request%n", transport,
+				tls, eventLoops.getTransport(), sslProvider, loopCpuNanos() / 1000.0 / requests.get());
+		connectionPool.close();
+		eventLoops.close();
+		server.stop();
+	}
+
+	/**
+	 * CPU time of the client's event loop threads, which are named after their
+	 * loops and live as long as them.
+	 */
+	private long loopCpuNanos() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		long nanos = 0;
+		for (ThreadInfo thread : threads.getThreadInfo(threads.getAllThreadIds())) {
+			if (thread != null && thread.getThreadName().startsWith(loopPrefix())) {
+				nanos += Math.max(0, threads.getThreadCpuTime(thread.getThreadId()));
+			}
+		}
+		return nanos;
+	}
+
+	@Benchmark
+	public String byId() {
+		String body = webClient.get().uri("/api/v1/employees/{id}", ids.incrementAndGet()).retrieve()
+				.bodyToMono(String.class).block();
+		requests.incrementAndGet();
+		return body;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		String[] tls = { "jdk", "openssl" };
+		if (!OpenSsl.isAvailable()) {
+			tls = new String[] { "jdk" };
+			System.out.println("OpenSSL arms skipped, run with the openssl profile: " + OpenSsl.unavailabilityCause());
+		}
+		new Runner(new OptionsBuilder().include(EmployeeTransportBenchmark.class.getSimpleName()).param("tls", tls)
+				.build()).run();
+	}
+
+}
@@ -0,0 +1,135 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.exactly;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.serverError;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.common.Json;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.sample.app.model.Employee;
+import com.sample.app.model.EmployeeLookup;
+import com.sample.app.service.impl.EmployeeRestClient;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=http://localhost:8888", "employee.client.batch.max-size=50",
+		"employee.client.batch.concurrency=64", "employee.client.batch.reprobe-interval-ms=0" })
+public class EmployeeBatchLookupTest {
+
+	@Autowired
+	private EmployeeRestClient empRestClient;
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(WireMockConfiguration.options().port(8888).httpsPort(9999)
+			.containerThreads(100).asynchronousResponseEnabled(true).notifier(new ConsoleNotifier(false))
+			.extensions(new ResponseTemplateTransformer(true)), false);
+
+	private static Employee buildEmployee(int id, String firstName, String lastName) {
+		Employee emp = new Employee();
+		emp.setId(id);
+		emp.setFirstName(firstName);
+		emp.setLastName(lastName);
+		return emp;
+	}
+
+	@Test
+	public void batchEndpointResultsInInputOrder() {
+
+		List<Employee> found = Arrays.asList(buildEmployee(7, "Ram", "Ponnam"), buildEmployee(3, "Lakshman", "Gurram"));
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/by-ids")).withQueryParam("ids", equalTo("3,5,7"))
+				.willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json")
+						.withBody(Json.write(found))));
+
+		List<EmployeeLookup> lookups = empRestClient.byIds(Arrays.asList(3, 5, 7));
+
+		assertEquals(Arrays.asList(3, 5, 7), lookups.stream().map(EmployeeLookup::getId).collect(Collectors.toList()));
+		assertEquals("Lakshman", lookups.get(0).getEmployee().getFirstName());
+		assertFalse(lookups.get(1).isFound());
+		assertEquals("Ram", lookups.get(2).getEmployee().getFirstName());
+
+		verify(exactly(1), getRequestedFor(urlPathEqualTo("/api/v1/employees/by-ids")));
+		verify(exactly(0), getRequestedFor(urlPathMatching("/api/v1/employees/[0-9]+")));
+	}
+
+	@Test
+	public void batchEndpointCalledOncePerChunk() {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/by-ids")).willReturn(
+				aResponse().withStatus(200).withHeader("Content-Type", "application/json").withBody("[]")));
+
+		List<Integer> ids = IntStream.rangeClosed(1, 120).boxed().collect(Collectors.toList());
+
+		List<EmployeeLookup> lookups = empRestClient.byIds(ids);
+
+		assertEquals(120, lookups.size());
+		verify(exactly(3), getRequestedFor(urlPathEqualTo("/api/v1/employees/by-ids")));
+	}
+
+	@Test
+	public void fallsBackToSingleLookupsWhenBatchEndpointIsMissing() {
+
+		wireMockRule.stubFor(get(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("employeeByIdTemplate.json")));
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/2")).willReturn(serverError()));
+
+		List<EmployeeLookup> lookups = empRestClient.byIds(Arrays.asList(4, 2, 1));
+
+		assertEquals(Arrays.asList(4, 2, 1), lookups.stream().map(EmployeeLookup::getId).collect(Collectors.toList()));
+		assertEquals(4, lookups.get(0).getEmployee().getId());
+		assertFalse(lookups.get(1).isFound());
+		assertTrue(lookups.get(1).getError().getMessage().endsWith("500"));
+		assertEquals(1, lookups.get(2).getEmployee().getId());
+
+		verify(exactly(3), getRequestedFor(urlPathMatching("/api/v1/employees/[0-9]+")));
+	}
+
+	@Test
+	public void fanOutWallClockApproachesSingleLatency() {
+
+		int lookups = 60;
+
+		wireMockRule.stubFor(get(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("employeeByIdTemplate.json")
+				.withFixedDelay(400)));
+
+		List<Integer> ids = IntStream.rangeClosed(1, lookups).boxed().collect(Collectors.toList());
+
+		long start = System.nanoTime();
+
+		List<EmployeeLookup> result = empRestClient.byIds(ids);
+
+		long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+		assertEquals(lookups, result.stream().filter(EmployeeLookup::isFound).count());
+		// one after the other this would take at least lookups * 400ms
+		assertTrue("took " + elapsedMillis + "ms", elapsedMillis < lookups * 400 / 6);
+	}
+
+}
@@ -0,0 +1,170 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.sample.app.exception.EmployeeApiException;
+import com.sample.app.model.ImportOutcome;
+import com.sample.app.model.ImportSummary;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=http://localhost:8888", "employee.client.import.concurrency=8",
+		"employee.client.import.bulk-size=100", "employee.client.import.bulk-concurrency=2" })
+public class EmployeeBulkImportTest {
+
+	@Autowired
+	private EmployeeImportService importService;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(WireMockConfiguration.options().port(8888).httpsPort(9999)
+			.containerThreads(32).asynchronousResponseEnabled(true).notifier(new ConsoleNotifier(false))
+			.extensions(new ResponseTemplateTransformer(true)), false);
+
+	private File ndjson(int count) throws IOException {
+		File file = folder.newFile("employees.ndjson");
+		try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+			for (int i = 1; i <= count; i++) {
+				out.println("{\"firstName\":\"First" + i + "\",\"lastName\":\"Last" + i + "\"}");
+			}
+		}
+		return file;
+	}
+
+	private void stubAddEmployee(int delayMillis) {
+		wireMockRule.stubFor(post(urlPathEqualTo("/api/v1/employees")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("newEmployeeTemplate.json")
+				.withFixedDelay(delayMillis)));
+	}
+
+	@Test
+	public void importsThroughTheBulkEndpoint() throws IOException {
+
+		wireMockRule.stubFor(post(urlPathEqualTo("/api/v1/employees/bulk")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBody("{{{request.body}}}")));
+
+		ImportSummary summary = importService.summarize(importService.importFile(ndjson(1000).toPath()))
+				.block(Duration.ofSeconds(30));
+
+		assertEquals(1000, summary.getImported());
+		assertEquals(0, summary.getFailed());
+		assertTrue(summary.getRecordsPerSecond() > 0);
+		wireMockRule.verify(10, postRequestedFor(urlPathEqualTo("/api/v1/employees/bulk")));
+		wireMockRule.verify(0, postRequestedFor(urlPathEqualTo("/api/v1/employees")));
+	}
+
+	@Test
+	public void fallsBackToSingleAddsWithBoundedConcurrency() throws IOException {
+
+		stubAddEmployee(20);
+		wireMockRule.stubFor(post(urlPathEqualTo("/api/v1/employees"))
+				.withRequestBody(containing("\"Refused\"")).willReturn(aResponse().withStatus(500)));
+
+		File file = folder.newFile("employees.csv");
+		try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+			out.println("id,firstName,lastName");
+			for (int i = 1; i <= 300; i++) {
+				if (i == 42) {
+					out.println(",\"Broken,Last42");
+				} else if (i == 43) {
+					out.println(",Refused,Last43");
+				} else {
+					out.println("," + "\"First " + i + ", Jr\",Last" + i);
+				}
+			}
+		}
+
+		AtomicInteger peak = new AtomicInteger();
+		ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+		sampler.scheduleAtFixedRate(() -> {
+			Gauge active = meterRegistry.find("employee.client.requests.active").tag("operation", "addEmployee")
+					.gauge();
+			if (active != null) {
+				peak.accumulateAndGet((int) active.value(), Math::max);
+			}
+		}, 0, 2, TimeUnit.MILLISECONDS);
+		List<ImportOutcome> outcomes;
+		try {
+			outcomes = importService.importFile(file.toPath()).collectList().block(Duration.ofSeconds(30));
+		} finally {
+			sampler.shutdownNow();
+		}
+
+		assertEquals(300, outcomes.size());
+		List<ImportOutcome> failed = outcomes.stream().filter(outcome -> !outcome.isImported())
+				.collect(Collectors.toList());
+		assertEquals(2, failed.size());
+
+		ImportOutcome unreadable = failed.stream().filter(outcome -> outcome.getLine() == 43).findFirst().get();
+		assertTrue(unreadable.getError() instanceof IllegalArgumentException);
+		assertTrue(unreadable.getError().getMessage().startsWith("Line 43:"));
+
+		ImportOutcome refused = failed.stream().filter(outcome -> outcome.getLine() == 44).findFirst().get();
+		assertEquals(500, ((EmployeeApiException) refused.getError()).getStatus());
+
+		ImportOutcome first = outcomes.stream().filter(outcome -> outcome.getLine() == 2).findFirst().get();
+		assertEquals("First 1, Jr", first.getCreated().getFirstName());
+
+		assertTrue("peak " + peak.get(), peak.get() > 0 && peak.get() <= 8);
+		wireMockRule.verify(299, postRequestedFor(urlPathEqualTo("/api/v1/employees")));
+		int bulkAttempts = wireMockRule.findAll(postRequestedFor(urlPathEqualTo("/api/v1/employees/bulk"))).size();
+		assertTrue("bulk attempts " + bulkAttempts, bulkAttempts >= 1 && bulkAttempts <= 2);
+	}
+
+	@Test
+	public void readsOnlyAsFarAsTheConsumerAsks() throws IOException {
+
+		stubAddEmployee(0);
+		wireMockRule.stubFor(post(urlPathEqualTo("/api/v1/employees/bulk")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBody("{{{request.body}}}")));
+
+		List<ImportOutcome> outcomes = importService.importFile(ndjson(10000).toPath()).take(20).collectList()
+				.block(Duration.ofSeconds(30));
+
+		assertEquals(20, outcomes.size());
+		assertFalse(outcomes.stream().anyMatch(outcome -> !outcome.isImported()));
+		int bulkRequests = wireMockRule.findAll(postRequestedFor(urlPathEqualTo("/api/v1/employees/bulk"))).size();
+		assertTrue("bulk requests " + bulkRequests, bulkRequests <= 4);
+	}
+
+}
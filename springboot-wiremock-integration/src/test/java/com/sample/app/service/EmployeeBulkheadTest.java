@@ -0,0 +1,125 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.sample.app.service.Polling.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.sample.app.config.EmployeeBulkheads;
+import com.sample.app.config.EmployeeConnectionPool;
+import com.sample.app.exception.EmployeeApiException;
+import com.sample.app.exception.EmployeeApiException.Fault;
+import com.sample.app.model.Employee;
+import com.sample.app.service.impl.AdaptiveConcurrencyLimiter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=http://localhost:8888", "employee.client.pool.max-connections=4",
+		"employee.client.bulkheads.enabled=true", "employee.client.bulkheads.writes.max-connections=4",
+		"employee.client.bulkheads.writes.pending-acquire-max-count=8", "employee.client.limiter.enabled=true",
+		"employee.client.limiter.initial-limit=20" })
+public class EmployeeBulkheadTest {
+
+	@Autowired
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Autowired
+	private EmployeeConnectionPool connectionPool;
+
+	@Autowired
+	private EmployeeBulkheads bulkheads;
+
+	@Autowired
+	private AdaptiveConcurrencyLimiter limiter;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(WireMockConfiguration.options().port(8888).httpsPort(9999)
+			.containerThreads(32).asynchronousResponseEnabled(true).notifier(new ConsoleNotifier(false))
+			.extensions(new ResponseTemplateTransformer(true)));
+
+	@Test
+	public void delayedWritesDoNotSlowDownReads() throws InterruptedException {
+
+		wireMockRule.stubFor(post(urlPathEqualTo("/api/v1/employees")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("newEmployeeTemplate.json")
+				.withFixedDelay(1500)));
+		wireMockRule.stubFor(get(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("employeeByIdTemplate.json")));
+
+		// opens the connection the reads below reuse
+		reactiveEmployeeService.byId(1).block();
+
+		EmployeeConnectionPool writes = bulkheads.poolOf("addEmployee");
+		long readsBefore = connectionPool.getAcquireCount();
+		long rejectedBefore = writes.getRejectedAcquires();
+		long limitedBefore = limiter.getRejected();
+
+		// more writes than the shared pool could even queue
+		MonoProcessor<List<Object>> added = Flux.range(1, 20)
+				.flatMap(i -> reactiveEmployeeService.addEmployee(new Employee()).cast(Object.class)
+						.onErrorResume(EmployeeApiException.class, Mono::just), 20)
+				.collectList().toProcessor();
+		await(() -> writes.getPendingAcquires() == 8);
+		// the waiting writes hold permits of the writes' limit, not of the one reads need
+		assertEquals(12, limiter.getInFlight("employee-api-writes"));
+		assertEquals(0, limiter.getInFlight());
+
+		for (int id = 1; id <= 5; id++) {
+			long start = System.nanoTime();
+			assertEquals(id, reactiveEmployeeService.byId(id).block().getId());
+			long millis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+			assertTrue("byId took " + millis + " ms", millis < 500);
+		}
+		assertEquals(5, connectionPool.getAcquireCount() - readsBefore);
+		assertEquals(0, limiter.getRejected() - limitedBefore);
+
+		List<Object> results = added.block(Duration.ofSeconds(10));
+		// 4 writes in flight, 8 waiting and the rest rejected by the writes' own queue limit
+		assertEquals(12, results.stream().filter(Employee.class::isInstance).count());
+		assertTrue(results.stream().filter(EmployeeApiException.class::isInstance)
+				.allMatch(e -> ((EmployeeApiException) e).getFault() == Fault.REJECTED));
+		assertEquals(8, writes.getRejectedAcquires() - rejectedBefore);
+		assertTrue(writes.getMaxAcquireTime().toMillis() >= 1000);
+		assertEquals(8.0, registry.get("employee.client.pool.rejected").tag("pool", "employee-api-writes")
+				.functionCounter().count() - rejectedBefore, 0.0);
+	}
+
+	@Test
+	public void operationsGoToTheirCompartment() {
+
+		assertEquals("employee-api-writes", bulkheads.poolOf("deleteEmployee").getName());
+		assertEquals("employee-api-bulk", bulkheads.poolOf("addEmployees").getName());
+		assertNull(bulkheads.poolOf("byId"));
+		assertEquals(4, bulkheads.poolOf("updateEmployee").getMaxConnections());
+		assertEquals(10, bulkheads.poolOf("emps").getMaxConnections());
+	}
+
+}
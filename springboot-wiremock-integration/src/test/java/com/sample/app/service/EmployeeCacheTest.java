@@ -0,0 +1,219 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.exactly;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.put;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.sample.app.model.Employee;
+import com.sample.app.service.impl.CachingEmployeeService;
+import com.sample.app.service.impl.EmployeeRestClient;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.search.RequiredSearch;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=http://localhost:8888", "employee.client.cache.enabled=true",
+		"employee.client.cache.ttl=300ms", "employee.client.cache.stale-while-revalidate=400ms",
+		"employee.client.cache.maximum-size=20" })
+public class EmployeeCacheTest {
+
+	@Autowired
+	private EmployeeRestClient empRestClient;
+
+	@Autowired
+	private CachingEmployeeService cache;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(WireMockConfiguration.options().port(8888).httpsPort(9999)
+			.notifier(new ConsoleNotifier(false)).extensions(new ResponseTemplateTransformer(true)));
+
+	@Before
+	public void clearCache() {
+		cache.invalidateAll();
+	}
+
+	private void stubEmployeeWithEtag(int id, String etag) {
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/" + id)).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withHeader("ETag", etag)
+				.withBodyFile("employeeByIdTemplate.json")));
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/" + id)).atPriority(1)
+				.withHeader("If-None-Match", equalTo(etag)).willReturn(aResponse().withStatus(304)));
+	}
+
+	@Test
+	public void byIdServedFromCacheWithinTtl() {
+
+		stubEmployeeWithEtag(3, "\"v1\"");
+
+		CacheStats before = cache.getStats();
+
+		assertEquals(3, empRestClient.byId(3).getId());
+		assertEquals(3, empRestClient.byId(3).getId());
+
+		CacheStats stats = cache.getStats().minus(before);
+		assertEquals(1, stats.missCount());
+		assertEquals(1, stats.hitCount());
+		verify(exactly(1), getRequestedFor(urlPathEqualTo("/api/v1/employees/3")));
+	}
+
+	@Test
+	public void expiredEntryRevalidatedWithConditionalGet() throws InterruptedException {
+
+		stubEmployeeWithEtag(3, "\"v1\"");
+
+		long notModifiedBefore = cache.getNotModified();
+
+		empRestClient.byId(3);
+		Thread.sleep(800);
+		Employee emp = empRestClient.byId(3);
+
+		assertEquals(3, emp.getId());
+		assertEquals("Ram", emp.getFirstName());
+		assertEquals(1, cache.getNotModified() - notModifiedBefore);
+		verify(exactly(1),
+				getRequestedFor(urlPathEqualTo("/api/v1/employees/3")).withHeader("If-None-Match", equalTo("\"v1\"")));
+
+		// the 304 restarted the TTL
+		empRestClient.byId(3);
+		verify(exactly(2), getRequestedFor(urlPathEqualTo("/api/v1/employees/3")));
+	}
+
+	@Test
+	public void statsPublishedAsMeters() throws InterruptedException {
+
+		stubEmployeeWithEtag(3, "\"v1\"");
+
+		empRestClient.byId(3);
+		empRestClient.byId(3);
+		Thread.sleep(800);
+		empRestClient.byId(3);
+
+		CacheStats stats = cache.getStats();
+		assertTrue(stats.hitCount() > 0 && cache.getNotModified() > 0);
+		assertEquals(stats.hitCount(), counter("employee.client.cache.gets", "hit"), 0);
+		assertEquals(stats.missCount(), counter("employee.client.cache.gets", "miss"), 0);
+		assertEquals(cache.getRevalidations(), counter("employee.client.cache.revalidations", null), 0);
+		assertEquals(cache.getNotModified(), counter("employee.client.cache.not.modified", null), 0);
+		assertEquals(cache.getStaleHits(), counter("employee.client.cache.stale.hits", null), 0);
+		assertEquals(cache.size(), registry.get("employee.client.cache.size").gauge().value(), 0);
+	}
+
+	private double counter(String name, String result) {
+		RequiredSearch search = registry.get(name);
+		return (result != null ? search.tag("result", result) : search).functionCounter().count();
+	}
+
+	@Test
+	public void staleEntryServedWhileRevalidating() throws InterruptedException {
+
+		stubEmployeeWithEtag(3, "\"v1\"");
+
+		long staleHitsBefore = cache.getStaleHits();
+
+		empRestClient.byId(3);
+		Thread.sleep(400);
+		assertEquals(3, empRestClient.byId(3).getId());
+		assertEquals(1, cache.getStaleHits() - staleHitsBefore);
+
+		for (int i = 0; i < 20 && wireMockRule.findAll(getRequestedFor(urlPathEqualTo("/api/v1/employees/3")))
+				.size() < 2; i++) {
+			Thread.sleep(100);
+		}
+		verify(exactly(1),
+				getRequestedFor(urlPathEqualTo("/api/v1/employees/3")).withHeader("If-None-Match", equalTo("\"v1\"")));
+	}
+
+	@Test
+	public void updateInvalidatesCachedEmployee() {
+
+		stubEmployeeWithEtag(3, "\"v1\"");
+		wireMockRule.stubFor(put(urlPathEqualTo("/api/v1/employees/3")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("updateEmployeeTemplate.json")));
+
+		empRestClient.byId(3);
+
+		Employee emp = new Employee();
+		emp.setFirstName("Bala");
+		emp.setLastName("Gurram");
+		empRestClient.updateEmployee(3, emp);
+
+		empRestClient.byId(3);
+
+		verify(exactly(2), getRequestedFor(urlPathEqualTo("/api/v1/employees/3")));
+	}
+
+	@Test
+	public void addInvalidatesCachedLists() {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("allEmployees.json")));
+		wireMockRule.stubFor(post(urlPathEqualTo("/api/v1/employees")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("newEmployeeTemplate.json")));
+
+		assertEquals(2, empRestClient.emps().size());
+		assertEquals(2, empRestClient.emps().size());
+		verify(exactly(1), getRequestedFor(urlPathEqualTo("/api/v1/employees")));
+
+		Employee emp = new Employee();
+		emp.setFirstName("Bala");
+		emp.setLastName("Gurram");
+		empRestClient.addEmployee(emp);
+
+		empRestClient.emps();
+		verify(exactly(2), getRequestedFor(urlPathEqualTo("/api/v1/employees")));
+	}
+
+	@Test
+	public void cacheIsSizeBounded() {
+
+		wireMockRule.stubFor(get(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("employeeByIdTemplate.json")));
+
+		long evictionsBefore = cache.getStats().evictionCount();
+
+		for (int id = 1; id <= 60; id++) {
+			empRestClient.byId(id);
+		}
+
+		assertTrue(cache.size() <= 20);
+		assertTrue(cache.getStats().evictionCount() - evictionsBefore >= 40);
+	}
+
+	@Test
+	public void callersGetTheirOwnCopy() {
+
+		stubEmployeeWithEtag(3, "\"v1\"");
+
+		empRestClient.byId(3).setFirstName("Changed");
+
+		assertEquals("Ram", empRestClient.byId(3).getFirstName());
+	}
+
+}
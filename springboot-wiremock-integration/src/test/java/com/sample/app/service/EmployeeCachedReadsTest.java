@@ -0,0 +1,138 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.sample.app.service.Polling.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import com.sample.app.model.Employee;
+import com.sample.app.service.impl.CachingEmployeeService;
+import com.sample.app.service.impl.LocalNameSearch;
+import com.sample.app.service.impl.RequestCoalescer;
+import com.sample.app.service.impl.RequestHedger;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * The cache in front of coalescing, hedging and the local name search, which
+ * have to keep working for the reads it cannot answer itself.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=http://localhost:8888", "employee.client.cache.enabled=true",
+		"employee.client.coalescing.enabled=true", "employee.client.hedging.enabled=true",
+		"employee.client.hedging.initial-delay-ms=300", "employee.client.search.local=true" })
+public class EmployeeCachedReadsTest {
+
+	private static final String DIRECTORY = "[{\"id\":1,\"firstName\":\"Ram\",\"lastName\":\"Ponnam\"},"
+			+ "{\"id\":2,\"firstName\":\"Lakshman\",\"lastName\":\"Gurram\"},"
+			+ "{\"id\":3,\"firstName\":\"Sita\",\"lastName\":\"Ramaiah\"}]";
+
+	@Autowired
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Autowired
+	private CachingEmployeeService cache;
+
+	@Autowired
+	private RequestCoalescer coalescer;
+
+	@Autowired
+	private RequestHedger hedger;
+
+	@Autowired
+	private LocalNameSearch localNameSearch;
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(WireMockConfiguration.options().port(8888).httpsPort(9999)
+			.containerThreads(32).asynchronousResponseEnabled(true).notifier(new ConsoleNotifier(false))
+			.extensions(new ResponseTemplateTransformer(true)));
+
+	@Before
+	public void clearCache() {
+		cache.invalidateAll();
+	}
+
+	@Test
+	public void concurrentMissesShareOneRequest() {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/7")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("employeeByIdTemplate.json")
+				.withFixedDelay(200)));
+
+		long coalescedBefore = coalescer.getCoalescedCalls();
+		List<Employee> emps = Flux.range(0, 20).flatMap(i -> reactiveEmployeeService.byId(7)).collectList()
+				.block(Duration.ofSeconds(5));
+
+		assertEquals(20, emps.size());
+		wireMockRule.verify(1, getRequestedFor(urlPathEqualTo("/api/v1/employees/7")));
+		assertEquals(19, coalescer.getCoalescedCalls() - coalescedBefore);
+	}
+
+	@Test
+	public void slowMissHedged() {
+
+		// the first attempt is slow, the hedge is not
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/5")).inScenario("slow")
+				.whenScenarioStateIs(Scenario.STARTED).willSetStateTo("fast").willReturn(aResponse().withStatus(200)
+						.withHeader("Content-Type", "application/json").withBodyFile("employeeByIdTemplate.json")
+						.withFixedDelay(3000)));
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/5")).inScenario("slow").whenScenarioStateIs("fast")
+				.willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json")
+						.withBodyFile("employeeByIdTemplate.json")));
+
+		long hedgesBefore = hedger.getHedges();
+		long start = System.nanoTime();
+		assertEquals(5, reactiveEmployeeService.byId(5).block(Duration.ofSeconds(5)).getId());
+
+		assertTrue(System.nanoTime() - start < Duration.ofMillis(2000).toNanos());
+		assertEquals(1, hedger.getHedges() - hedgesBefore);
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void nameSearchAnsweredFromLocalIndex() throws InterruptedException {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees")).willReturn(
+				aResponse().withStatus(200).withHeader("Content-Type", "application/json").withBody(DIRECTORY)));
+		// the server's own search finds nobody, so that only the snapshot can
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/by-name/")).willReturn(
+				aResponse().withStatus(200).withHeader("Content-Type", "application/json").withBody("[]")));
+
+		long loadsBefore = localNameSearch.getLoads();
+		await(() -> {
+			reactiveEmployeeService.containsName("zzz").collectList().block();
+			return localNameSearch.getLoads() > loadsBefore;
+		});
+		wireMockRule.resetRequests();
+
+		List<Integer> ids = reactiveEmployeeService.containsName("RAM").map(Employee::getId)
+				.collect(Collectors.toList()).block();
+
+		assertEquals(Arrays.asList(1, 2, 3), ids);
+		wireMockRule.verify(0, getRequestedFor(urlPathEqualTo("/api/v1/employees/by-name/")));
+	}
+
+}
@@ -0,0 +1,141 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.serverError;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.http.Fault;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.sample.app.exception.EmployeeApiException;
+import com.sample.app.model.Employee;
+import com.sample.app.service.impl.EmployeeRestClient;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=http://localhost:8888" })
+public class EmployeeClientMetricsTest {
+
+	@Autowired
+	private EmployeeRestClient empRestClient;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(WireMockConfiguration.options().port(8888).httpsPort(9999)
+			.notifier(new ConsoleNotifier(false)).extensions(new ResponseTemplateTransformer(true)));
+
+	private double errors(String operation, String status, String fault) {
+		Counter counter = registry.find("employee.client.errors")
+				.tags("operation", operation, "status", status, "fault", fault).counter();
+		return counter == null ? 0 : counter.count();
+	}
+
+	private void byIdFailsWith(ResponseDefinitionBuilder response, String status, String fault) {
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/1")).willReturn(response));
+
+		double before = errors("byId", status, fault);
+		try {
+			empRestClient.byId(1);
+			throw new AssertionError("expected the lookup to fail");
+		} catch (EmployeeApiException e) {
+			assertEquals(fault, e.getFault().name().toLowerCase());
+		}
+		assertEquals(1, errors("byId", status, fault) - before, 0);
+	}
+
+	@Test
+	public void successfulCallsAreTimedWithPercentiles() {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/3")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("employeeByIdTemplate.json")));
+
+		// the meters of an operation are created with its first call
+		empRestClient.byId(3);
+		Timer timer = registry.get("employee.client.requests").tags("operation", "byId", "outcome", "success").timer();
+		long before = timer.count();
+
+		for (int i = 0; i < 5; i++) {
+			empRestClient.byId(3);
+		}
+
+		assertEquals(5, timer.count() - before);
+		double[] percentiles = Arrays.stream(timer.takeSnapshot().percentileValues())
+				.mapToDouble(ValueAtPercentile::percentile).toArray();
+		assertTrue(Arrays.equals(new double[] { 0.5, 0.99, 0.999 }, percentiles));
+		assertEquals(0, registry.get("employee.client.requests.active").tag("operation", "byId").gauge().value(), 0);
+	}
+
+	@Test
+	public void bodyBytesAreCountedBothWays() {
+
+		wireMockRule.stubFor(post(urlPathEqualTo("/api/v1/employees")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("newEmployeeTemplate.json")));
+
+		Employee emp = new Employee();
+		emp.setFirstName("Bala");
+		emp.setLastName("Gurram");
+
+		empRestClient.addEmployee(emp);
+
+		assertTrue(registry.get("employee.client.request.size").tag("operation", "addEmployee").summary()
+				.totalAmount() > 0);
+		assertTrue(registry.get("employee.client.response.size").tag("operation", "addEmployee").summary()
+				.totalAmount() > 0);
+	}
+
+	@Test
+	public void serverErrorCountedByStatus() {
+		byIdFailsWith(serverError(), "500", "http_status");
+	}
+
+	@Test
+	public void connectionResetCountedAsConnectionReset() {
+		byIdFailsWith(aResponse().withFault(Fault.CONNECTION_RESET_BY_PEER), "none", "connection_reset");
+	}
+
+	@Test
+	public void emptyResponseCountedAsConnectionReset() {
+		byIdFailsWith(aResponse().withFault(Fault.EMPTY_RESPONSE), "none", "connection_reset");
+	}
+
+	@Test
+	public void malformedChunkCountedAsMalformedResponse() {
+		byIdFailsWith(aResponse().withFault(Fault.MALFORMED_RESPONSE_CHUNK), "none", "malformed_response");
+	}
+
+	@Test
+	public void undecodableBodyCountedAsMalformedResponse() {
+		byIdFailsWith(aResponse().withStatus(200).withHeader("Content-Type", "application/json").withBody("{\"id\":"),
+				"none", "malformed_response");
+	}
+
+	@Test
+	public void slowResponseCountedAsTimeout() {
+		byIdFailsWith(aResponse().withFixedDelay(4000), "none", "timeout");
+	}
+
+}
@@ -0,0 +1,174 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.exactly;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.serverError;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.sample.app.service.Polling.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.sample.app.config.EmployeeConnectionPool;
+import com.sample.app.exception.EmployeeApiException;
+import com.sample.app.model.Employee;
+import com.sample.app.service.impl.EmployeeRestClient;
+import com.sample.app.service.impl.RequestCoalescer;
+
+import reactor.core.Disposable;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=http://localhost:8888", "employee.client.coalescing.enabled=true" })
+public class EmployeeCoalescingTest {
+
+	private static final int CALLERS = 50;
+
+	@Autowired
+	private EmployeeRestClient empRestClient;
+
+	@Autowired
+	private RequestCoalescer coalescer;
+
+	@Autowired
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Autowired
+	private EmployeeConnectionPool connectionPool;
+
+	private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(WireMockConfiguration.options().port(8888).httpsPort(9999)
+			.notifier(new ConsoleNotifier(false)).extensions(new ResponseTemplateTransformer(true)));
+
+	@After
+	public void shutdownCallers() {
+		callers.shutdownNow();
+	}
+
+	private <T> List<Future<T>> callConcurrently(Callable<T> call) {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<T>> results = new ArrayList<>();
+		for (int i = 0; i < CALLERS; i++) {
+			results.add(callers.submit(() -> {
+				start.await();
+				return call.call();
+			}));
+		}
+		start.countDown();
+		return results;
+	}
+
+	@Test
+	public void concurrentByIdSharesOneRequest() throws Exception {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/7")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("employeeByIdTemplate.json")
+				.withFixedDelay(1000)));
+
+		long coalescedBefore = coalescer.getCoalescedCalls();
+
+		for (Future<Employee> result : callConcurrently(() -> empRestClient.byId(7))) {
+			assertEquals(7, result.get().getId());
+		}
+
+		verify(exactly(1), getRequestedFor(urlPathEqualTo("/api/v1/employees/7")));
+		assertEquals(CALLERS - 1, coalescer.getCoalescedCalls() - coalescedBefore);
+	}
+
+	@Test
+	public void concurrentByIdSharesOneError() throws Exception {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/1")).willReturn(serverError().withFixedDelay(1000)));
+
+		for (Future<Employee> result : callConcurrently(() -> empRestClient.byId(1))) {
+			try {
+				result.get();
+				throw new AssertionError("expected every caller to see the failure");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof EmployeeApiException);
+			}
+		}
+
+		verify(exactly(1), getRequestedFor(urlPathEqualTo("/api/v1/employees/1")));
+	}
+
+	@Test
+	public void concurrentEmpsSharesOneRequest() throws Exception {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("allEmployees.json").withFixedDelay(1000)));
+
+		for (Future<List<Employee>> result : callConcurrently(() -> empRestClient.emps())) {
+			assertEquals(2, result.get().size());
+		}
+
+		verify(exactly(1), getRequestedFor(urlPathEqualTo("/api/v1/employees")));
+	}
+
+	@Test
+	public void cancelledStreamReleasesItsConnection() throws Exception {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("allEmployees.json")
+				.withChunkedDribbleDelay(10, 3000)));
+
+		long coalescedBefore = coalescer.getCoalescedCalls();
+		Disposable first = reactiveEmployeeService.emps().subscribe();
+		Disposable second = reactiveEmployeeService.emps().subscribe();
+		await(() -> connectionPool.getActiveConnections() == 1);
+		assertEquals(1, coalescer.getCoalescedCalls() - coalescedBefore);
+
+		long cancelled = System.nanoTime();
+		first.dispose();
+		// one subscriber left, the stream goes on
+		Thread.sleep(200);
+		assertEquals(1, connectionPool.getActiveConnections());
+		second.dispose();
+		await(() -> connectionPool.getActiveConnections() == 0);
+		assertTrue(System.nanoTime() - cancelled < Duration.ofMillis(2000).toNanos());
+
+		// the cancelled call is no longer there to be joined
+		reactiveEmployeeService.emps().take(1).blockLast(Duration.ofSeconds(5));
+		verify(exactly(2), getRequestedFor(urlPathEqualTo("/api/v1/employees")));
+	}
+
+	@Test
+	public void sequentialCallsAreNotCoalesced() {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/3")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("employeeByIdTemplate.json")));
+
+		empRestClient.byId(3);
+		empRestClient.byId(3);
+
+		verify(exactly(2), getRequestedFor(urlPathEqualTo("/api/v1/employees/3")));
+	}
+
+}
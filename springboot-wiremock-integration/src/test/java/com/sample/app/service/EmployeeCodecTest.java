@@ -0,0 +1,119 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalToJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.sample.app.codec.EmployeeJsonDecoder;
+import com.sample.app.exception.EmployeeApiException;
+import com.sample.app.model.Employee;
+
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=http://localhost:8888", "employee.client.codec=employee" })
+public class EmployeeCodecTest {
+
+	@Autowired
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(WireMockConfiguration.options().port(8888).httpsPort(9999)
+			.containerThreads(64).asynchronousResponseEnabled(true).notifier(new ConsoleNotifier(false))
+			.extensions(new ResponseTemplateTransformer(true)));
+
+	@Test
+	public void allEmployeesDecoded() {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("allEmployees.json")));
+
+		StepVerifier.create(reactiveEmployeeService.emps())
+				.expectNextMatches(emp -> emp.getId() == 1 && "Ram".equals(emp.getFirstName())
+						&& "Ponnam".equals(emp.getLastName()))
+				.expectNextMatches(emp -> emp.getId() == 2 && "Lakshman".equals(emp.getFirstName())
+						&& "Gurram".equals(emp.getLastName()))
+				.verifyComplete();
+	}
+
+	@Test
+	public void addedEmployeeEncodedAndDecoded() {
+
+		// the template answers the id as a string, which databind also accepts
+		wireMockRule.stubFor(post(urlPathEqualTo("/api/v1/employees")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("newEmployeeTemplate.json")));
+
+		Employee emp = new Employee();
+		emp.setFirstName("Bala");
+		emp.setLastName("Gurram \"Jr\"");
+
+		Employee created = reactiveEmployeeService.addEmployee(emp).block();
+
+		assertEquals("Bala", created.getFirstName());
+		wireMockRule.verify(postRequestedFor(urlPathEqualTo("/api/v1/employees"))
+				.withRequestBody(equalToJson("{\"id\":0,\"firstName\":\"Bala\",\"lastName\":\"Gurram \\\"Jr\\\"\"}")));
+	}
+
+	@Test
+	public void malformedBodySignalledAsMalformedResponse() {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBody("[{\"id\":1,\"firstName\":\"Ram\"},{\"id\":")));
+
+		StepVerifier.create(reactiveEmployeeService.emps()).expectNextCount(1)
+				.expectErrorMatches(e -> e instanceof EmployeeApiException
+						&& ((EmployeeApiException) e).getFault() == EmployeeApiException.Fault.MALFORMED_RESPONSE)
+				.verify();
+	}
+
+	@Test
+	public void decodesAcrossArbitraryChunkBoundaries() {
+
+		String body = "[{\"id\":\"7\",\"extra\":{\"tags\":[1,{\"deep\":[]}]},\"firstName\":\"Sita\",\"lastName\":null},"
+				+ "{\"firstName\":\"R\\u00e1m\",\"id\":8,\"lastName\":\"Ponnam\",\"active\":true}]";
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+		DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+		Flux<DataBuffer> oneByteAtATime = Flux.range(0, bytes.length)
+				.map(i -> bufferFactory.wrap(new byte[] { bytes[i] }));
+
+		List<Employee> emps = new EmployeeJsonDecoder()
+				.decode(oneByteAtATime, ResolvableType.forClass(Employee.class), MediaType.APPLICATION_JSON, null)
+				.collectList().block();
+
+		assertEquals(2, emps.size());
+		assertEquals(7, emps.get(0).getId());
+		assertEquals("Sita", emps.get(0).getFirstName());
+		assertNull(emps.get(0).getLastName());
+		assertEquals(8, emps.get(1).getId());
+		assertEquals("Rám", emps.get(1).getFirstName());
+		assertEquals("Ponnam", emps.get(1).getLastName());
+	}
+
+}
@@ -0,0 +1,176 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.absent;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.put;
+import static com.github.tomakehurst.wiremock.client.WireMock.putRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.sample.app.model.Employee;
+import com.sample.app.service.impl.RequestBodyCompression;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * WireMock's own gzip support is off so that every stub decides its encoding.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=http://localhost:8888", "employee.client.compression.enabled=true",
+		"employee.client.compression.request.enabled=true", "employee.client.compression.request.min-size=1024" })
+public class EmployeeCompressionTest {
+
+	private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+	@Autowired
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Autowired
+	private RequestBodyCompression requestCompression;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(WireMockConfiguration.options().port(8888).httpsPort(9999)
+			.gzipDisabled(true).notifier(new ConsoleNotifier(false)));
+
+	private static Employee buildEmployee(int id, String firstName, String lastName) {
+		Employee emp = new Employee();
+		emp.setId(id);
+		emp.setFirstName(firstName);
+		emp.setLastName(lastName);
+		return emp;
+	}
+
+	private static byte[] gzip(byte[] bytes) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(bytes);
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] deflate(byte[] bytes) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (DeflaterOutputStream deflate = new DeflaterOutputStream(out)) {
+			deflate.write(bytes);
+		}
+		return out.toByteArray();
+	}
+
+	private byte[] employeeList(int size) throws IOException {
+		List<Employee> emps = new ArrayList<>();
+		for (int i = 1; i <= size; i++) {
+			emps.add(buildEmployee(i, "First" + i, "Last" + i));
+		}
+		return mapper.writeValueAsBytes(emps);
+	}
+
+	private double responseSize(String operation) {
+		DistributionSummary summary = registry.find("employee.client.response.size").tag("operation", operation)
+				.summary();
+		return summary == null ? 0 : summary.totalAmount();
+	}
+
+	@Test
+	public void gzippedEmployeeListInflated() throws IOException {
+
+		byte[] json = employeeList(5000);
+		byte[] gzipped = gzip(json);
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees")).withHeader("Accept-Encoding", containing("gzip"))
+				.willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json")
+						.withHeader("Content-Encoding", "gzip").withBody(gzipped)));
+
+		double sizeBefore = responseSize("emps");
+
+		List<Employee> emps = reactiveEmployeeService.emps().collectList().block();
+
+		assertEquals(5000, emps.size());
+		assertEquals("First5000", emps.get(4999).getFirstName());
+		assertTrue("gzip " + gzipped.length + " json " + json.length, gzipped.length < json.length / 4);
+		// the size meter counts the inflated body, not what went over the wire
+		assertEquals(json.length, responseSize("emps") - sizeBefore, 0.0);
+	}
+
+	@Test
+	public void deflatedEmployeeListInflated() throws IOException {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/by-name/"))
+				.withHeader("Accept-Encoding", containing("deflate"))
+				.willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json")
+						.withHeader("Content-Encoding", "deflate").withBody(deflate(employeeList(300)))));
+
+		List<Employee> emps = reactiveEmployeeService.containsName("Last").collectList().block();
+
+		assertEquals(300, emps.size());
+		assertEquals("Last1", emps.get(0).getLastName());
+	}
+
+	@Test
+	public void largeRequestBodyGzipped() throws IOException {
+
+		wireMockRule.stubFor(put(urlPathEqualTo("/api/v1/employees/7")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json")
+				.withBody("{\"id\":7,\"firstName\":\"Ram\",\"lastName\":\"Ponnam\"}")));
+
+		StringBuilder longName = new StringBuilder();
+		for (int i = 0; i < 200; i++) {
+			longName.append("Ponnam ");
+		}
+		long compressedBefore = requestCompression.getCompressedRequests();
+
+		reactiveEmployeeService.updateEmployee(7, buildEmployee(7, "Ram", longName.toString())).block();
+
+		wireMockRule.verify(putRequestedFor(urlPathEqualTo("/api/v1/employees/7"))
+				.withHeader("Content-Encoding", equalTo("gzip")).withRequestBody(containing(longName.toString())));
+		assertEquals(1, requestCompression.getCompressedRequests() - compressedBefore);
+		assertTrue(requestCompression.getBytesOut() < requestCompression.getBytesIn() / 4);
+	}
+
+	@Test
+	public void smallRequestBodySentAsIs() {
+
+		wireMockRule.stubFor(post(urlPathEqualTo("/api/v1/employees")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json")
+				.withBody("{\"id\":8,\"firstName\":\"Bala\",\"lastName\":\"Gurram\"}")));
+
+		long compressedBefore = requestCompression.getCompressedRequests();
+
+		reactiveEmployeeService.addEmployee(buildEmployee(0, "Bala", "Gurram")).block();
+
+		wireMockRule.verify(postRequestedFor(urlPathEqualTo("/api/v1/employees"))
+				.withHeader("Content-Encoding", absent()).withRequestBody(containing("\"Bala\"")));
+		assertEquals(0, requestCompression.getCompressedRequests() - compressedBefore);
+	}
+
+}
@@ -0,0 +1,166 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.sample.app.service.Polling.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.sample.app.exception.ConcurrencyLimitExceededException;
+import com.sample.app.model.Employee;
+import com.sample.app.service.impl.AdaptiveConcurrencyLimiter;
+import com.sample.app.service.impl.EmployeeRestClient;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=http://localhost:8888", "employee.client.limiter.enabled=true",
+		"employee.client.limiter.initial-limit=10", "employee.client.limiter.min-limit=2" })
+public class EmployeeConcurrencyLimiterTest {
+
+	@Autowired
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Autowired
+	private EmployeeRestClient empRestClient;
+
+	@Autowired
+	private AdaptiveConcurrencyLimiter limiter;
+
+	private final ExecutorService callers = Executors.newFixedThreadPool(30);
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(WireMockConfiguration.options().port(8888).httpsPort(9999)
+			.containerThreads(64).asynchronousResponseEnabled(true).notifier(new ConsoleNotifier(false))
+			.extensions(new ResponseTemplateTransformer(true)));
+
+	@After
+	public void shutdownCallers() {
+		callers.shutdownNow();
+	}
+
+	private void backendAnswersAfter(int delayMillis) {
+		wireMockRule.stubFor(get(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("employeeByIdTemplate.json")
+				.withFixedDelay(delayMillis)));
+	}
+
+	/**
+	 * Returns how many of the lookups were rejected by the limiter.
+	 */
+	private long lookups(int count, int concurrency) {
+		return Flux.range(1, count)
+				.flatMap(id -> reactiveEmployeeService.byId(id).then(Mono.just(false))
+						.onErrorResume(ConcurrencyLimitExceededException.class, e -> Mono.just(true)), concurrency)
+				.filter(rejected -> rejected).count().block(Duration.ofSeconds(60));
+	}
+
+	@Test
+	public void limitFollowsTheBackend() {
+
+		backendAnswersAfter(10);
+		lookups(300, 8);
+		int healthyLimit = limiter.getLimit();
+
+		// the backend degrades mid-test
+		backendAnswersAfter(300);
+		long rejectedWhileSlow = lookups(80, 8);
+		int degradedLimit = limiter.getLimit();
+
+		assertTrue("healthy limit " + healthyLimit, healthyLimit > 10);
+		assertTrue("degraded limit " + degradedLimit, degradedLimit < healthyLimit / 2);
+		assertTrue(rejectedWhileSlow > 0);
+	}
+
+	@Test
+	public void blockingCallersBeyondTheLimitFailFast() throws Exception {
+
+		backendAnswersAfter(1000);
+
+		int limit = limiter.getLimit();
+		long rejectedBefore = limiter.getRejected();
+
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Long>> results = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			int id = i + 1;
+			results.add(callers.submit(() -> {
+				start.await();
+				long begin = System.nanoTime();
+				try {
+					empRestClient.byId(id);
+					return -1L;
+				} catch (ConcurrencyLimitExceededException e) {
+					return Duration.ofNanos(System.nanoTime() - begin).toMillis();
+				}
+			}));
+		}
+		start.countDown();
+
+		int rejected = 0;
+		for (Future<Long> result : results) {
+			long rejectedAfterMillis = result.get();
+			if (rejectedAfterMillis >= 0) {
+				rejected++;
+				assertTrue("rejected after " + rejectedAfterMillis + "ms", rejectedAfterMillis < 500);
+			}
+		}
+
+		assertEquals(30 - limit, rejected);
+		assertEquals(rejected, limiter.getRejected() - rejectedBefore);
+	}
+
+	@Test
+	public void streamedBodyHoldsItsPermitUntilRead() throws InterruptedException {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("allEmployees.json")
+				.withChunkedDribbleDelay(10, 2000)));
+
+		AtomicInteger received = new AtomicInteger();
+		MonoProcessor<List<Employee>> emps = reactiveEmployeeService.emps()
+				.doOnNext(emp -> received.incrementAndGet()).collectList().toProcessor();
+		// the first employee is in, the rest of the body is still on its way
+		await(() -> received.get() == 1);
+		assertEquals(1, limiter.getInFlight());
+
+		assertEquals(2, emps.block(Duration.ofSeconds(5)).size());
+		assertEquals(0, limiter.getInFlight());
+
+		received.set(0);
+		Disposable cancelled = reactiveEmployeeService.emps().doOnNext(emp -> received.incrementAndGet()).subscribe();
+		await(() -> received.get() == 1);
+		assertEquals(1, limiter.getInFlight());
+		cancelled.dispose();
+		assertEquals(0, limiter.getInFlight());
+	}
+
+}
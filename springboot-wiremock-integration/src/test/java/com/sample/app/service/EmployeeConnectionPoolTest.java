@@ -0,0 +1,147 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.sample.app.service.Polling.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.sample.app.config.EmployeeConnectionPool;
+import com.sample.app.exception.EmployeeApiException;
+import com.sample.app.exception.EmployeeApiException.Fault;
+import com.sample.app.model.Employee;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=http://localhost:8888", "employee.client.pool.max-connections=4",
+		"employee.client.pool.pending-acquire-max-count=2", "employee.client.pool.max-idle-time=500ms",
+		"employee.client.pool.eviction-interval=100ms" })
+public class EmployeeConnectionPoolTest {
+
+	@Autowired
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Autowired
+	private EmployeeConnectionPool connectionPool;
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(WireMockConfiguration.options().port(8888).httpsPort(9999)
+			.containerThreads(32).asynchronousResponseEnabled(true).notifier(new ConsoleNotifier(false))
+			.extensions(new ResponseTemplateTransformer(true)));
+
+	@Before
+	public void waitForIdleConnectionsToBeEvicted() throws InterruptedException {
+		await(() -> connectionPool.getTotalConnections() == 0);
+	}
+
+	@Test
+	public void sequentialRequestsReuseOneConnection() throws InterruptedException {
+
+		wireMockRule.stubFor(get(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("employeeByIdTemplate.json")));
+
+		long acquiresBefore = connectionPool.getAcquireCount();
+
+		for (int id = 1; id <= 3; id++) {
+			assertEquals(id, reactiveEmployeeService.byId(id).block().getId());
+			// the connection goes back to the pool just after the body was read
+			await(() -> connectionPool.getActiveConnections() == 0);
+		}
+
+		assertEquals(1, connectionPool.getTotalConnections());
+		assertEquals(1, connectionPool.getIdleConnections());
+		assertEquals(3, connectionPool.getAcquireCount() - acquiresBefore);
+		assertEquals(0, connectionPool.getPendingAcquires());
+	}
+
+	@Test
+	public void idleConnectionsAreClosed() throws InterruptedException {
+
+		wireMockRule.stubFor(get(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("employeeByIdTemplate.json")));
+
+		long evictedBefore = connectionPool.getEvictedConnections();
+
+		reactiveEmployeeService.byId(1).block();
+		assertEquals(1, connectionPool.getTotalConnections());
+
+		await(() -> connectionPool.getTotalConnections() == 0);
+		assertEquals(1, connectionPool.getEvictedConnections() - evictedBefore);
+	}
+
+	@Test
+	public void requestsBeyondPoolAndQueueAreRejected() {
+
+		wireMockRule.stubFor(get(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("employeeByIdTemplate.json")
+				.withFixedDelay(500)));
+
+		long rejectedBefore = connectionPool.getRejectedAcquires();
+
+		List<Object> results = Flux.range(1, 10)
+				.flatMap(id -> reactiveEmployeeService.byId(id).cast(Object.class)
+						.onErrorResume(EmployeeApiException.class, Mono::just), 10)
+				.collectList().block(Duration.ofSeconds(10));
+
+		// 4 requests get a connection, 2 wait for one and the rest fail fast
+		assertEquals(6, results.stream().filter(Employee.class::isInstance).count());
+		assertEquals(4, connectionPool.getRejectedAcquires() - rejectedBefore);
+		assertTrue(connectionPool.getTotalConnections() <= 4);
+		// the queued requests waited for a whole response of the first ones
+		assertTrue(connectionPool.getMaxAcquireTime().toMillis() >= 400);
+	}
+
+	@Test
+	public void streamedBodiesHoldTheirPlaceUntilReadOrCancelled() throws InterruptedException {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("allEmployees.json")
+				.withChunkedDribbleDelay(10, 3000)));
+		wireMockRule.stubFor(get(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("employeeByIdTemplate.json")));
+
+		// 4 streams on the connections and 2 waiting for one
+		List<Disposable> streams = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			streams.add(reactiveEmployeeService.emps().subscribe());
+		}
+		await(() -> connectionPool.getActiveConnections() == 4 && connectionPool.getPendingAcquires() == 2);
+		// the headers of the first 4 are in, their bodies are not
+		Thread.sleep(1000);
+
+		try {
+			reactiveEmployeeService.byId(1).block(Duration.ofSeconds(5));
+			throw new AssertionError("expected the lookup to be rejected");
+		} catch (EmployeeApiException e) {
+			assertEquals(Fault.REJECTED, e.getFault());
+		}
+
+		streams.forEach(Disposable::dispose);
+		await(() -> connectionPool.getActiveConnections() == 0 && connectionPool.getPendingAcquires() == 0);
+		assertEquals(1, reactiveEmployeeService.byId(1).block(Duration.ofSeconds(5)).getId());
+	}
+
+}
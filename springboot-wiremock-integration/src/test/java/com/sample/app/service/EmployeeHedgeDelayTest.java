@@ -0,0 +1,83 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.sample.app.service.impl.RequestHedger;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * The hedge delay of a fresh {@link RequestHedger}, so that no samples are
+ * left over from other tests.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=http://localhost:8888", "employee.client.hedging.enabled=true",
+		"employee.client.hedging.percentile=0.9", "employee.client.hedging.budget-ratio=0.2",
+		"employee.client.hedging.min-delay-ms=5" })
+public class EmployeeHedgeDelayTest {
+
+	/**
+	 * Enough that the delay is estimated from hedged calls only, and not
+	 * from those made with the initial delay.
+	 */
+	private static final int CALLS = 2000;
+
+	private static final double MEDIAN_MILLIS = 100;
+
+	private static final double SIGMA = 1.0;
+
+	@Autowired
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Autowired
+	private RequestHedger hedger;
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(WireMockConfiguration.options().port(8888).httpsPort(9999)
+			.containerThreads(64).asynchronousResponseEnabled(true).notifier(new ConsoleNotifier(false))
+			.extensions(new ResponseTemplateTransformer(true)));
+
+	/**
+	 * Hedged first attempts are cancelled, and the slower they are the more
+	 * likely. Counting only the ones that answer would settle at about 70% of
+	 * the 90th percentile.
+	 */
+	@Test
+	public void delayConvergesOnThePercentile() {
+
+		wireMockRule.stubFor(get(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("employeeByIdTemplate.json")
+				.withLogNormalRandomDelay(MEDIAN_MILLIS, SIGMA)));
+
+		long answered = Flux.range(1, CALLS).flatMap(reactiveEmployeeService::byId, 32).count()
+				.block(Duration.ofSeconds(60));
+
+		// the 90th percentile of a standard normal is 1.2816
+		double p90Millis = MEDIAN_MILLIS * Math.exp(1.2816 * SIGMA);
+		long delayMillis = hedger.getHedgeDelay().toMillis();
+		assertEquals(CALLS, answered);
+		assertTrue(hedger.getHedges() > 0);
+		assertTrue("delay " + delayMillis + "ms, p90 " + p90Millis + "ms",
+				delayMillis > p90Millis * 0.85 && delayMillis < p90Millis * 1.2);
+	}
+
+}
@@ -0,0 +1,135 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.sample.app.service.Polling.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.http.DelayDistribution;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.sample.app.model.Employee;
+import com.sample.app.service.impl.RequestHedger;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=http://localhost:8888", "employee.client.hedging.enabled=true",
+		"employee.client.hedging.percentile=0.9", "employee.client.hedging.budget-ratio=0.2",
+		"employee.client.hedging.min-delay-ms=100" })
+public class EmployeeHedgingTest {
+
+	private static final int CALLS = 400;
+
+	@Autowired
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Autowired
+	private WebClient webClient;
+
+	@Autowired
+	private RequestHedger hedger;
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(WireMockConfiguration.options().port(8888).httpsPort(9999)
+			.containerThreads(64).asynchronousResponseEnabled(true).notifier(new ConsoleNotifier(false))
+			.extensions(new ResponseTemplateTransformer(true)));
+
+	/**
+	 * Most responses take 10-20ms, but one in thirty comes from a replica that
+	 * takes a second. With a hedge delay of at least 100ms only the slow ones
+	 * are hedged, long before they answer, so that every hedge reaches the
+	 * server.
+	 */
+	private static final class SlowReplica implements DelayDistribution {
+
+		private final Random random = new Random(42);
+
+		@Override
+		public synchronized long sampleMillis() {
+			double sample = random.nextDouble();
+			return sample < 1.0 / 30 ? 1000 : 10 + (long) (sample * 10);
+		}
+
+	}
+
+	private static long p99Millis(IntFunction<Mono<Employee>> call) {
+		List<Long> latencies = Flux.range(1, CALLS).flatMap(id -> Mono.defer(() -> {
+			long start = System.nanoTime();
+			return call.apply(id).map(emp -> System.nanoTime() - start);
+		}), 8).sort().collectList().block(Duration.ofSeconds(60));
+
+		assertEquals(CALLS, latencies.size());
+		return Duration.ofNanos(latencies.get(CALLS * 99 / 100 - 1)).toMillis();
+	}
+
+	private int received() {
+		return wireMockRule.findAll(getRequestedFor(urlPathMatching("/api/v1/employees/[0-9]+"))).size();
+	}
+
+	@Test
+	public void hedgingCutsTheP99() throws InterruptedException {
+
+		wireMockRule.stubFor(get(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("employeeByIdTemplate.json")
+				.withRandomDelay(new SlowReplica())));
+
+		long unhedged = p99Millis(
+				id -> webClient.get().uri("api/v1/employees/" + id).retrieve().bodyToMono(Employee.class));
+		wireMockRule.resetRequests();
+
+		long hedgesBefore = hedger.getHedges();
+		long hedged = p99Millis(reactiveEmployeeService::byId);
+		long hedges = hedger.getHedges() - hedgesBefore;
+
+		assertTrue("unhedged p99 " + unhedged + "ms", unhedged >= 1000);
+		assertTrue("hedged p99 " + hedged + "ms", hedged < 500);
+		assertTrue(hedger.getHedgeWins() > 0);
+		// the budget of 20% plus the initial burst of 10 caps the extra load
+		assertTrue(hedges + " hedges", hedges > 0 && hedges <= CALLS * 0.2 + 10);
+		// one request per call and one per hedge; the losers are logged once their delay is over
+		await(() -> received() >= CALLS + hedges);
+		Thread.sleep(200);
+		assertEquals(CALLS + hedges, received());
+	}
+
+	@Test
+	public void budgetCapsHedgesWhenEverythingIsSlow() {
+
+		wireMockRule.stubFor(get(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("employeeByIdTemplate.json")
+				.withUniformRandomDelay(100, 300)));
+
+		long hedgesBefore = hedger.getHedges();
+		long deniedBefore = hedger.getBudgetDenials();
+
+		List<Employee> emps = Flux.range(1, 100).flatMap(reactiveEmployeeService::byId, 20).collectList()
+				.block(Duration.ofSeconds(30));
+
+		assertEquals(100, emps.size());
+		assertTrue(hedger.getHedges() - hedgesBefore <= 100 * 0.2 + 10);
+		assertTrue(hedger.getBudgetDenials() - deniedBefore > 0);
+	}
+
+}
@@ -0,0 +1,103 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.sample.app.config.EmployeeHttp2Transport;
+import com.sample.app.model.Employee;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+
+/**
+ * WireMock offers h2 on its HTTPS port only, with a self-signed certificate.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=https://localhost:9999", "employee.client.http2.enabled=true",
+		"employee.client.tls.trust-all=true", "employee.client.http2.max-concurrent-streams=10" })
+public class EmployeeHttp2Test {
+
+	@Autowired
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Autowired
+	private EmployeeHttp2Transport http2Transport;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(WireMockConfiguration.options().port(8888).httpsPort(9999)
+			.containerThreads(64).asynchronousResponseEnabled(true).notifier(new ConsoleNotifier(false))
+			.extensions(new ResponseTemplateTransformer(true)));
+
+	@Test
+	public void concurrentRequestsShareConnections() {
+
+		wireMockRule.stubFor(get(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("employeeByIdTemplate.json")
+				.withFixedDelay(300)));
+
+		List<Employee> emps = Flux.range(1, 40).flatMap(reactiveEmployeeService::byId, 40).collectList()
+				.block(Duration.ofSeconds(10));
+
+		assertEquals(40, emps.size());
+		assertEquals(40 * 41 / 2, emps.stream().mapToInt(Employee::getId).sum());
+		// 10 streams per connection instead of one request each; Jetty opens
+		// one connection more than the waiting requests need
+		int connections = http2Transport.getConnections();
+		assertTrue("connections " + connections, connections >= 1 && connections <= 40 / 10 + 1);
+	}
+
+	@Test
+	public void sequentialRequestsReuseOneConnection() {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("allEmployees.json")));
+		wireMockRule.stubFor(post(urlPathEqualTo("/api/v1/employees")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json")
+				.withBody("{\"id\":8,\"firstName\":\"Bala\",\"lastName\":\"Gurram\"}")));
+
+		assertEquals(2, reactiveEmployeeService.emps().collectList().block().size());
+
+		Employee emp = new Employee();
+		emp.setFirstName("Bala");
+		emp.setLastName("Gurram");
+		assertEquals(8, reactiveEmployeeService.addEmployee(emp).block().getId());
+
+		assertEquals(2, reactiveEmployeeService.emps().count().block().intValue());
+		assertEquals(1, http2Transport.getConnections());
+	}
+
+	@Test
+	public void noMetersOfTheUnusedPool() {
+
+		assertNull(registry.find("employee.client.pool.connections").gauge());
+		assertNull(registry.find("employee.client.netty.loop-threads").gauge());
+		assertNotNull(registry.find("employee.client.http2.connections").gauge());
+	}
+
+}
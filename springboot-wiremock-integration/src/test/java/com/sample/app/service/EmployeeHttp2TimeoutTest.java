@@ -0,0 +1,90 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.delete;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.sample.app.service.Polling.await;
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.junit.WireMockClassRule;
+import com.sample.app.config.EmployeeHttp2Transport;
+import com.sample.app.exception.EmployeeApiException;
+import com.sample.app.exception.EmployeeApiException.Fault;
+import com.sample.app.model.Employee;
+
+import reactor.test.StepVerifier;
+
+/**
+ * Connect budgets over HTTP/2, where a request waits for a stream on one of
+ * the connections. The server outlives each test, as the context's
+ * connection to it does.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=https://localhost:9999", "employee.client.http2.enabled=true",
+		"employee.client.tls.trust-all=true", "employee.client.http2.max-concurrent-streams=1",
+		"employee.client.pool.max-connections=1", "employee.client.timeouts.operations.deleteEmployee.connect=200ms" })
+public class EmployeeHttp2TimeoutTest {
+
+	@Autowired
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Autowired
+	private EmployeeHttp2Transport http2Transport;
+
+	@ClassRule
+	public static WireMockClassRule wireMockRule = new WireMockClassRule(WireMockConfiguration.options().port(8888)
+			.httpsPort(9999).notifier(new ConsoleNotifier(false)).extensions(new ResponseTemplateTransformer(true)));
+
+	private static boolean isTimeout(Throwable e) {
+		return e instanceof EmployeeApiException && ((EmployeeApiException) e).getFault() == Fault.TIMEOUT;
+	}
+
+	@Test
+	public void connectBudgetLeavesASlowResponseAlone() {
+
+		wireMockRule.stubFor(delete(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(aResponse()
+				.withStatus(200).withHeader("Content-Type", "application/json").withBody("{\"id\":1}")
+				.withFixedDelay(400)));
+
+		assertEquals(1, reactiveEmployeeService.deleteEmployee(1).block().getId());
+	}
+
+	@Test
+	public void connectBudgetBoundsTheWaitForAStream() throws InterruptedException {
+
+		wireMockRule.stubFor(post(urlPathEqualTo("/api/v1/employees")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("newEmployeeTemplate.json")
+				.withFixedDelay(1000)));
+		wireMockRule.stubFor(delete(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(aResponse()
+				.withStatus(200).withHeader("Content-Type", "application/json").withBody("{\"id\":1}")));
+
+		// holds the only stream for a second
+		CompletableFuture<Employee> add = reactiveEmployeeService.addEmployee(new Employee()).toFuture();
+		try {
+			await(() -> http2Transport.getConnections() == 1);
+			Thread.sleep(100);
+			StepVerifier.create(reactiveEmployeeService.deleteEmployee(1))
+					.expectErrorMatches(e -> isTimeout(e) && e.getMessage().contains("no connection")).verify();
+		} finally {
+			// frees the stream for the next test
+			add.join();
+		}
+	}
+
+}
@@ -0,0 +1,155 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.sample.app.service.Polling.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.http.Fault;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.sample.app.exception.EmployeeApiException;
+import com.sample.app.service.impl.ReplicaBalancer;
+
+import reactor.core.publisher.Flux;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = {
+		"server.baseuri=http://localhost:8888,http://localhost:8891,http://localhost:8892",
+		"employee.client.balancer.consecutive-failures=3", "employee.client.balancer.base-ejection-time-ms=1000",
+		"employee.client.balancer.slow-start-ms=1000" })
+public class EmployeeLoadBalancingTest {
+
+	private static final String FIRST = "http://localhost:8888";
+
+	private static final String SECOND = "http://localhost:8891";
+
+	private static final String THIRD = "http://localhost:8892";
+
+	@Autowired
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Autowired
+	private ReplicaBalancer balancer;
+
+	@Rule
+	public WireMockRule first = replica(8888);
+
+	@Rule
+	public WireMockRule second = replica(8891);
+
+	@Rule
+	public WireMockRule third = replica(8892);
+
+	private static WireMockRule replica(int port) {
+		return new WireMockRule(WireMockConfiguration.options().port(port).containerThreads(32)
+				.asynchronousResponseEnabled(true).notifier(new ConsoleNotifier(false))
+				.extensions(new ResponseTemplateTransformer(true)));
+	}
+
+	private static ResponseDefinitionBuilder employee() {
+		return aResponse().withStatus(200).withHeader("Content-Type", "application/json")
+				.withBodyFile("employeeByIdTemplate.json");
+	}
+
+	private static int byIdRequests(WireMockRule replica) {
+		return replica.findAll(getRequestedFor(urlPathMatching("/api/v1/employees/[0-9]+"))).size();
+	}
+
+	@Before
+	public void stubAllReplicas() throws InterruptedException {
+		for (WireMockRule replica : new WireMockRule[] { first, second, third }) {
+			replica.stubFor(get(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(employee()));
+		}
+		await(() -> !balancer.isEjected(FIRST) && !balancer.isEjected(SECOND) && !balancer.isEjected(THIRD));
+	}
+
+	@Test
+	public void requestsAreSpreadOverAllReplicas() {
+
+		for (int id = 1; id <= 150; id++) {
+			assertEquals(id, reactiveEmployeeService.byId(id).block().getId());
+		}
+
+		for (WireMockRule replica : new WireMockRule[] { first, second, third }) {
+			assertTrue(byIdRequests(replica) + " of 150", byIdRequests(replica) >= 25);
+		}
+		assertEquals(150, byIdRequests(first) + byIdRequests(second) + byIdRequests(third));
+	}
+
+	@Test
+	public void slowReplicaGetsFewerRequests() {
+
+		first.stubFor(get(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(employee().withFixedDelay(300)));
+
+		Flux.range(1, 120).flatMap(reactiveEmployeeService::byId, 8).blockLast(Duration.ofSeconds(20));
+
+		// without regard to load it would get a third
+		assertTrue(byIdRequests(first) + " of 120", byIdRequests(first) < 20);
+		assertEquals(120, byIdRequests(first) + byIdRequests(second) + byIdRequests(third));
+	}
+
+	@Test
+	public void failingReplicaIsEjectedAndGraduallyReadmitted() throws InterruptedException {
+
+		second.stubFor(get(urlPathMatching("/api/v1/employees/[0-9]+"))
+				.willReturn(aResponse().withFault(Fault.CONNECTION_RESET_BY_PEER)));
+		long ejectionsBefore = balancer.getEjections(SECOND);
+		long requestsBefore = balancer.getRequests(SECOND);
+
+		int failures = 0;
+		for (int id = 1; id <= 60; id++) {
+			try {
+				reactiveEmployeeService.byId(id).block();
+			} catch (EmployeeApiException e) {
+				failures++;
+			}
+		}
+
+		// three resets in a row, and no more traffic for the rest of the second
+		assertEquals(3, failures);
+		// Reactor Netty sends a request once more when its connection is reset
+		assertEquals(3, balancer.getRequests(SECOND) - requestsBefore);
+		assertTrue(balancer.isEjected(SECOND));
+		assertEquals(1, balancer.getEjections(SECOND) - ejectionsBefore);
+
+		second.resetAll();
+		second.stubFor(get(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(employee()));
+		await(() -> !balancer.isEjected(SECOND));
+
+		// right after its ejection it is drawn for a fraction of its share
+		for (int id = 1; id <= 60; id++) {
+			reactiveEmployeeService.byId(id).block();
+		}
+		int justBack = byIdRequests(second);
+		assertTrue(justBack + " of 60", justBack < 20);
+
+		Thread.sleep(1000);
+		second.resetRequests();
+		for (int id = 1; id <= 150; id++) {
+			reactiveEmployeeService.byId(id).block();
+		}
+		assertTrue(byIdRequests(second) + " of 150", byIdRequests(second) >= 25);
+		assertFalse(balancer.isEjected(SECOND));
+	}
+
+}
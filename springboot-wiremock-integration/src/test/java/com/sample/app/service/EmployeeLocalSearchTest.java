@@ -0,0 +1,152 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.sample.app.service.Polling.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.sample.app.model.Employee;
+import com.sample.app.service.impl.LocalNameSearch;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=http://localhost:8888", "employee.client.search.local=true",
+		"employee.client.search.refresh-interval-ms=300" })
+public class EmployeeLocalSearchTest {
+
+	private static final String DIRECTORY = "[{\"id\":1,\"firstName\":\"Ram\",\"lastName\":\"Ponnam\"},"
+			+ "{\"id\":2,\"firstName\":\"Lakshman\",\"lastName\":\"Gurram\"},"
+			+ "{\"id\":3,\"firstName\":\"Sita\",\"lastName\":\"Ramaiah\"},"
+			+ "{\"id\":4,\"firstName\":\"Bala\",\"lastName\":null}]";
+
+	@Autowired
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Autowired
+	private LocalNameSearch localNameSearch;
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(
+			WireMockConfiguration.options().port(8888).httpsPort(9999).notifier(new ConsoleNotifier(false)));
+
+	/**
+	 * The server's own search finds nobody, so that only the snapshot can.
+	 */
+	private void stubDirectory(String body) {
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees")).willReturn(
+				aResponse().withStatus(200).withHeader("Content-Type", "application/json").withBody(body)));
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/by-name/")).willReturn(
+				aResponse().withStatus(200).withHeader("Content-Type", "application/json").withBody("[]")));
+	}
+
+	private List<Integer> ids(String name) {
+		return reactiveEmployeeService.containsName(name).map(Employee::getId).collect(Collectors.toList()).block();
+	}
+
+	/**
+	 * Searches until one is answered from a snapshot loaded after
+	 * {@code loadsBefore}.
+	 */
+	private void awaitSnapshot(long loadsBefore) throws InterruptedException {
+		await(() -> {
+			reactiveEmployeeService.containsName("zzz").collectList().block();
+			return localNameSearch.getLoads() > loadsBefore;
+		});
+	}
+
+	@Test
+	public void searchesAnsweredFromSnapshot() throws InterruptedException {
+
+		stubDirectory(DIRECTORY);
+
+		awaitSnapshot(localNameSearch.getLoads());
+		wireMockRule.resetRequests();
+
+		assertEquals(Arrays.asList(1, 2, 3), ids("RAM"));
+		assertEquals(Arrays.asList(3), ids("amai"));
+		assertEquals(Arrays.asList(1, 2, 3, 4), ids("a"));
+		assertEquals(Arrays.asList(2), ids("hman"));
+		assertTrue(ids("Ramx").isEmpty());
+
+		wireMockRule.verify(0, getRequestedFor(urlPathEqualTo("/api/v1/employees/by-name/")));
+		assertEquals(4, localNameSearch.getSize());
+		assertTrue(localNameSearch.getEstimatedBytes() > 0);
+	}
+
+	@Test
+	public void prefixSearch() throws InterruptedException {
+
+		stubDirectory(DIRECTORY);
+		awaitSnapshot(localNameSearch.getLoads());
+
+		List<Employee> found = localNameSearch.startingWith("ram", reactiveEmployeeService::emps);
+
+		assertEquals(Arrays.asList(1, 3),
+				found.stream().map(Employee::getId).collect(Collectors.toList()));
+	}
+
+	@Test
+	public void snapshotRefreshed() throws InterruptedException {
+
+		stubDirectory(DIRECTORY);
+		awaitSnapshot(localNameSearch.getLoads());
+
+		stubDirectory("[{\"id\":9,\"firstName\":\"Hanuman\",\"lastName\":\"Anjaneya\"}]");
+		long loadsBefore = localNameSearch.getLoads();
+		Thread.sleep(300);
+		awaitSnapshot(loadsBefore);
+
+		assertEquals(Arrays.asList(9), ids("anjan"));
+		assertTrue(ids("Ram").isEmpty());
+	}
+
+	@Test
+	public void ownAdditionFoundBeforeRefresh() throws InterruptedException {
+
+		stubDirectory(DIRECTORY);
+		awaitSnapshot(localNameSearch.getLoads());
+
+		String added = "{\"id\":5,\"firstName\":\"Bharat\",\"lastName\":\"Raghav\"}";
+		wireMockRule.stubFor(post(urlPathEqualTo("/api/v1/employees")).willReturn(
+				aResponse().withStatus(200).withHeader("Content-Type", "application/json").withBody(added)));
+		stubDirectory(DIRECTORY.substring(0, DIRECTORY.length() - 1) + "," + added + "]");
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/by-name/")).willReturn(aResponse()
+				.withStatus(200).withHeader("Content-Type", "application/json").withBody("[" + added + "]")));
+		long loadsBefore = localNameSearch.getLoads();
+		wireMockRule.resetRequests();
+
+		Employee emp = new Employee();
+		emp.setFirstName("Bharat");
+		emp.setLastName("Raghav");
+		reactiveEmployeeService.addEmployee(emp).block();
+
+		assertEquals(Arrays.asList(5), ids("bhar"));
+		wireMockRule.verify(1, getRequestedFor(urlPathEqualTo("/api/v1/employees/by-name/")));
+
+		awaitSnapshot(loadsBefore);
+		wireMockRule.resetRequests();
+
+		assertEquals(Arrays.asList(5), ids("bhar"));
+		wireMockRule.verify(0, getRequestedFor(urlPathEqualTo("/api/v1/employees/by-name/")));
+	}
+
+}
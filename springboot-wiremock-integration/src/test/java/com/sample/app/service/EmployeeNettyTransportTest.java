@@ -0,0 +1,80 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.sample.app.config.AppConfig;
+import com.sample.app.config.EmployeeEventLoops;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.epoll.Epoll;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.SslProvider;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=https://localhost:9999", "employee.client.tls.trust-all=true",
+		"employee.client.tls.provider=openssl", "employee.client.netty.transport=native",
+		"employee.client.netty.loop-threads=2" })
+public class EmployeeNettyTransportTest {
+
+	@Autowired
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Autowired
+	private WebClient webClient;
+
+	@Autowired
+	private EmployeeEventLoops eventLoops;
+
+	@Autowired
+	private AppConfig appConfig;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(WireMockConfiguration.options().port(8888).httpsPort(9999)
+			.notifier(new ConsoleNotifier(false)).extensions(new ResponseTemplateTransformer(true)));
+
+	@Test
+	public void callsRunOnTheClientsOwnNativeLoops() {
+
+		wireMockRule.stubFor(get(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("employeeByIdTemplate.json")));
+
+		// epoll where it can be loaded, NIO otherwise
+		assertEquals(Epoll.isAvailable() ? "epoll" : "nio", eventLoops.getTransport());
+		assertEquals(2, eventLoops.getThreads());
+
+		assertEquals(1, reactiveEmployeeService.byId(1).block().getId());
+		String thread = webClient.get().uri("/api/v1/employees/{id}", 2)
+				.exchange().map(response -> Thread.currentThread().getName()).block();
+		assertTrue(thread, thread.startsWith("employee-api-loop-" + eventLoops.getTransport()));
+
+		assertEquals(2, registry.get("employee.client.netty.loop-threads").tag("dedicated", "true").gauge().value(),
+				0);
+	}
+
+	@Test
+	public void openSslFallsBackToTheJdkWithoutTcnative() {
+		assertEquals(OpenSsl.isAvailable() ? SslProvider.OPENSSL : SslProvider.JDK, appConfig.getTlsProvider());
+	}
+
+}
@@ -0,0 +1,209 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.absent;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.matching;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.client.MappingBuilder;
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import com.sample.app.model.Employee;
+import com.sample.app.model.EmployeePage;
+
+/**
+ * Pages are linked through a WireMock scenario: each page moves the scenario
+ * on to the next one, so a page is only served after the one before it.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=http://localhost:8888", "employee.client.paging.page-size=100",
+		"employee.client.paging.prefetch=1" })
+public class EmployeePagingTest {
+
+	private static final String PAGES = "pages";
+
+	private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+	@Autowired
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(
+			WireMockConfiguration.options().port(8888).httpsPort(9999).notifier(new ConsoleNotifier(false)));
+
+	private static String state(int page) {
+		return page == 1 ? Scenario.STARTED : "page " + page;
+	}
+
+	private static String cursor(int page) {
+		return "c" + page + "+/=";
+	}
+
+	private String pageBody(int page, int size, String nextCursor) throws Exception {
+		EmployeePage body = new EmployeePage();
+		List<Employee> emps = new ArrayList<>();
+		for (int i = 1; i <= size; i++) {
+			Employee emp = new Employee();
+			emp.setId((page - 1) * 100 + i);
+			emp.setFirstName("First" + emp.getId());
+			emp.setLastName("Last" + emp.getId());
+			emps.add(emp);
+		}
+		body.setEmployees(emps);
+		body.setNextCursor(nextCursor);
+		return mapper.writeValueAsString(body);
+	}
+
+	private void stubPage(MappingBuilder request, int page, String body) {
+		wireMockRule.stubFor(request.inScenario(PAGES).whenScenarioStateIs(state(page))
+				.willSetStateTo(state(page + 1)).willReturn(aResponse().withStatus(200)
+						.withHeader("Content-Type", "application/json").withBody(body)));
+	}
+
+	/**
+	 * Pages of 100 linked by cursor; the last one has {@code lastSize}
+	 * employees and no cursor.
+	 */
+	private void stubCursorPages(int pages, int lastSize) throws Exception {
+		for (int page = 1; page <= pages; page++) {
+			MappingBuilder request = get(urlPathEqualTo("/api/v1/employees")).withQueryParam("limit", equalTo("100"))
+					.withQueryParam("cursor", page == 1 ? absent() : equalTo(cursor(page)));
+			boolean last = page == pages;
+			stubPage(request, page, pageBody(page, last ? lastSize : 100, last ? null : cursor(page + 1)));
+		}
+	}
+
+	private int pageRequests() {
+		return wireMockRule.findAll(getRequestedFor(urlPathEqualTo("/api/v1/employees"))).size();
+	}
+
+	@Test
+	public void cursorPagesReadToTheEnd() throws Exception {
+
+		stubCursorPages(3, 50);
+
+		List<Employee> emps = reactiveEmployeeService.pagedEmps().collectList().block();
+
+		assertEquals(250, emps.size());
+		for (int i = 0; i < emps.size(); i++) {
+			assertEquals(i + 1, emps.get(i).getId());
+		}
+		assertEquals(3, pageRequests());
+	}
+
+	@Test
+	public void offsetPagesReadUntilShortPage() throws Exception {
+
+		for (int page = 1; page <= 3; page++) {
+			MappingBuilder request = get(urlPathEqualTo("/api/v1/employees")).withQueryParam("limit", equalTo("100"))
+					.withQueryParam("offset", page == 1 ? absent() : equalTo(String.valueOf((page - 1) * 100)));
+			stubPage(request, page, pageBody(page, page == 3 ? 20 : 100, null));
+		}
+
+		List<Employee> emps = reactiveEmployeeService.pagedEmps().collectList().block();
+
+		assertEquals(220, emps.size());
+		assertEquals(220, emps.get(219).getId());
+		assertEquals(3, pageRequests());
+	}
+
+	@Test
+	public void cursorPagesEndingOnAFullPageStopWithoutCursor() throws Exception {
+
+		stubCursorPages(3, 100);
+
+		List<Employee> emps = reactiveEmployeeService.pagedEmps().collectList().block();
+
+		assertEquals(300, emps.size());
+		assertEquals(300, emps.get(299).getId());
+		assertEquals(3, pageRequests());
+		assertEquals(0, wireMockRule.findAll(getRequestedFor(urlPathEqualTo("/api/v1/employees"))
+				.withQueryParam("offset", matching(".*"))).size());
+	}
+
+	@Test
+	public void offsetPagesEndingOnAFullPageStopAtTheEmptyPage() throws Exception {
+
+		for (int page = 1; page <= 4; page++) {
+			MappingBuilder request = get(urlPathEqualTo("/api/v1/employees")).withQueryParam("limit", equalTo("100"))
+					.withQueryParam("offset", page == 1 ? absent() : equalTo(String.valueOf((page - 1) * 100)));
+			stubPage(request, page, pageBody(page, page == 4 ? 0 : 100, null));
+		}
+
+		List<Employee> emps = reactiveEmployeeService.pagedEmps().collectList().block();
+
+		assertEquals(300, emps.size());
+		assertEquals(300, emps.get(299).getId());
+		assertEquals(4, pageRequests());
+	}
+
+	@Test
+	public void onlyPagesThatAreReadAreFetched() throws Exception {
+
+		stubCursorPages(10, 100);
+
+		List<Employee> emps = reactiveEmployeeService.pagedEmps().take(150).collectList().block();
+
+		assertEquals(150, emps.size());
+		assertEquals(150, emps.get(149).getId());
+		// two pages read and at most one more asked for ahead of the caller
+		Thread.sleep(200);
+		int requests = pageRequests();
+		assertTrue("requests " + requests, requests >= 2 && requests <= 3);
+	}
+
+	@Test
+	public void iterableReadsLazily() throws Exception {
+
+		stubCursorPages(10, 100);
+
+		int read = 0;
+		for (Employee emp : reactiveEmployeeService.pagedEmps(100, 1).toIterable(1)) {
+			assertEquals(++read, emp.getId());
+			if (read == 100) {
+				break;
+			}
+		}
+
+		Thread.sleep(200);
+		int requests = pageRequests();
+		assertTrue("requests " + requests, requests >= 1 && requests <= 3);
+	}
+
+	@Test
+	public void singlePageByCursor() throws Exception {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees")).withQueryParam("cursor", equalTo(cursor(4)))
+				.withQueryParam("limit", equalTo("100")).willReturn(aResponse().withStatus(200)
+						.withHeader("Content-Type", "application/json").withBody(pageBody(4, 10, null))));
+
+		EmployeePage page = reactiveEmployeeService.empsPage(cursor(4), 100).block();
+
+		assertEquals(10, page.getEmployees().size());
+		assertEquals(301, page.getEmployees().get(0).getId());
+		assertNull(page.getNextCursor());
+	}
+
+}
@@ -0,0 +1,161 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.anyRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.anyUrl;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.matchingJsonPath;
+import static com.github.tomakehurst.wiremock.client.WireMock.notMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.patch;
+import static com.github.tomakehurst.wiremock.client.WireMock.patchRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.put;
+import static com.github.tomakehurst.wiremock.client.WireMock.putRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.sample.app.model.Employee;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=http://localhost:8888",
+		"employee.client.patch.reprobe-interval-ms=500" })
+public class EmployeePatchTest {
+
+	private static final String MERGE_PATCH = "application/merge-patch+json";
+
+	@Autowired
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(WireMockConfiguration.options().port(8888).httpsPort(9999)
+			.notifier(new ConsoleNotifier(false)).extensions(new ResponseTemplateTransformer(true)));
+
+	private static Employee buildEmployee(int id, String firstName, String lastName) {
+		Employee emp = new Employee();
+		emp.setId(id);
+		emp.setFirstName(firstName);
+		emp.setLastName(lastName);
+		return emp;
+	}
+
+	private void stubPatch(int id, String body) {
+		wireMockRule.stubFor(patch(urlPathEqualTo("/api/v1/employees/" + id))
+				.withHeader("Content-Type", containing(MERGE_PATCH)).willReturn(aResponse().withStatus(200)
+						.withHeader("Content-Type", "application/json").withBody(body)));
+	}
+
+	private void stubEchoingPut(int id) {
+		wireMockRule.stubFor(put(urlPathEqualTo("/api/v1/employees/" + id)).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBody("{{{request.body}}}")));
+	}
+
+	@Test
+	public void onlyChangedFieldsSent() {
+
+		stubPatch(7, "{\"id\":7,\"firstName\":\"Ram\",\"lastName\":\"Gurram\"}");
+
+		Employee patched = reactiveEmployeeService
+				.patchEmployee(7, buildEmployee(7, "Ram", "Ponnam"), buildEmployee(7, "Ram", "Gurram")).block();
+
+		assertEquals("Gurram", patched.getLastName());
+		wireMockRule.verify(patchRequestedFor(urlPathEqualTo("/api/v1/employees/7"))
+				.withRequestBody(matchingJsonPath("$.lastName", equalTo("Gurram")))
+				.withRequestBody(notMatching(".*firstName.*")).withRequestBody(notMatching(".*\"id\".*")));
+		wireMockRule.verify(0, putRequestedFor(urlPathEqualTo("/api/v1/employees/7")));
+	}
+
+	@Test
+	public void explicitFieldsSentWithNullClearingAField() {
+
+		stubPatch(8, "{\"id\":8,\"firstName\":\"Bala\",\"lastName\":null}");
+
+		Map<String, Object> fields = new HashMap<>();
+		fields.put("firstName", "Bala");
+		fields.put("lastName", null);
+
+		Employee patched = reactiveEmployeeService.patchEmployee(8, fields).block();
+
+		assertEquals("Bala", patched.getFirstName());
+		wireMockRule.verify(patchRequestedFor(urlPathEqualTo("/api/v1/employees/8"))
+				.withRequestBody(matchingJsonPath("$.firstName", equalTo("Bala")))
+				.withRequestBody(containing("\"lastName\":null")));
+	}
+
+	@Test
+	public void unchangedEmployeeNotSent() {
+
+		Employee updated = buildEmployee(9, "Sita", "Ramaiah");
+
+		assertSame(updated, reactiveEmployeeService.patchEmployee(9, buildEmployee(9, "Sita", "Ramaiah"), updated)
+				.block());
+		wireMockRule.verify(0, anyRequestedFor(anyUrl()));
+	}
+
+	@Test
+	public void refusedPatchFallsBackToPut() throws InterruptedException {
+
+		wireMockRule.stubFor(patch(urlPathEqualTo("/api/v1/employees/10")).willReturn(aResponse().withStatus(405)));
+		stubEchoingPut(10);
+
+		try {
+			Employee first = reactiveEmployeeService
+					.patchEmployee(10, buildEmployee(10, "Ram", "Ponnam"), buildEmployee(10, "Ram", "Gurram")).block();
+			Employee second = reactiveEmployeeService
+					.patchEmployee(10, buildEmployee(10, "Ram", "Gurram"), buildEmployee(10, "Rama", "Gurram")).block();
+
+			assertEquals("Gurram", first.getLastName());
+			assertEquals("Rama", second.getFirstName());
+			wireMockRule.verify(1, patchRequestedFor(urlPathEqualTo("/api/v1/employees/10")));
+			wireMockRule.verify(2, putRequestedFor(urlPathEqualTo("/api/v1/employees/10"))
+					.withRequestBody(matchingJsonPath("$.firstName")).withRequestBody(matchingJsonPath("$.lastName")));
+		} finally {
+			// let the other tests try PATCH again
+			Thread.sleep(600);
+		}
+	}
+
+	@Test
+	public void refusedFieldPatchPutsCurrentStateWithFieldsApplied() throws InterruptedException {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/11")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json")
+				.withBody("{\"id\":11,\"firstName\":\"Lakshman\",\"lastName\":\"Ponnam\"}")));
+		wireMockRule.stubFor(patch(urlPathEqualTo("/api/v1/employees/11")).willReturn(aResponse().withStatus(415)));
+		stubEchoingPut(11);
+
+		try {
+			Map<String, Object> fields = new HashMap<>();
+			fields.put("lastName", "Gurram");
+
+			Employee patched = reactiveEmployeeService.patchEmployee(11, fields).block();
+
+			assertEquals("Lakshman", patched.getFirstName());
+			assertEquals("Gurram", patched.getLastName());
+			wireMockRule.verify(putRequestedFor(urlPathEqualTo("/api/v1/employees/11"))
+					.withRequestBody(matchingJsonPath("$.id", equalTo("11")))
+					.withRequestBody(matchingJsonPath("$.firstName", equalTo("Lakshman")))
+					.withRequestBody(matchingJsonPath("$.lastName", equalTo("Gurram"))));
+		} finally {
+			Thread.sleep(600);
+		}
+	}
+
+}
@@ -0,0 +1,102 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.sample.app.exception.EmployeeApiException;
+import com.sample.app.model.Employee;
+import com.sample.app.model.EmployeeField;
+
+import reactor.test.StepVerifier;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=http://localhost:8888" })
+public class EmployeeProjectionTest {
+
+	@Autowired
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(
+			WireMockConfiguration.options().port(8888).httpsPort(9999).notifier(new ConsoleNotifier(false)));
+
+	@Test
+	public void onlyRequestedFieldsAskedForAndDecoded() {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees")).withQueryParam("fields", equalTo("id,firstName"))
+				.willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json")
+						.withBody("[{\"id\":1,\"firstName\":\"Ram\"},{\"id\":2,\"firstName\":\"Lakshman\"}]")));
+
+		List<Employee> emps = reactiveEmployeeService
+				.emps(EnumSet.of(EmployeeField.FIRST_NAME, EmployeeField.ID)).collectList().block();
+
+		assertEquals(2, emps.size());
+		assertEquals(2, emps.get(1).getId());
+		assertEquals("Lakshman", emps.get(1).getFirstName());
+		wireMockRule.verify(getRequestedFor(urlPathEqualTo("/api/v1/employees"))
+				.withQueryParam("fields", equalTo("id,firstName")));
+	}
+
+	@Test
+	public void fieldsSentAnywaySkipped() {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/by-name/"))
+				.withQueryParam("empName", equalTo("Gurram")).withQueryParam("fields", equalTo("id,lastName"))
+				.willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/x-ndjson").withBody(
+						"{\"id\":2,\"firstName\":\"Lakshman\",\"lastName\":\"Gurram\",\"extra\":{\"a\":[1]}}\n"
+								+ "{\"id\":5,\"firstName\":\"Bala\",\"lastName\":\"Gurram\"}\n")));
+
+		List<Employee> emps = reactiveEmployeeService
+				.containsName("Gurram", EnumSet.of(EmployeeField.ID, EmployeeField.LAST_NAME)).collectList().block();
+
+		assertEquals(2, emps.size());
+		for (Employee emp : emps) {
+			assertNull(emp.getFirstName());
+			assertEquals("Gurram", emp.getLastName());
+		}
+		assertEquals(5, emps.get(1).getId());
+	}
+
+	@Test
+	public void unrequestedFieldOfWrongTypeIgnored() {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees")).withQueryParam("fields", equalTo("firstName"))
+				.willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json")
+						.withBody("[{\"id\":{\"legacy\":\"A-17\"},\"firstName\":\"Sita\"}]")));
+
+		StepVerifier.create(reactiveEmployeeService.emps(EnumSet.of(EmployeeField.FIRST_NAME)))
+				.expectNextMatches(emp -> emp.getId() == 0 && "Sita".equals(emp.getFirstName())).verifyComplete();
+	}
+
+	@Test
+	public void failedProjectedReadSignalledAsApiException() {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees")).willReturn(aResponse().withStatus(503)));
+
+		StepVerifier.create(reactiveEmployeeService.emps(EnumSet.of(EmployeeField.ID)))
+				.expectErrorMatches(
+						e -> e instanceof EmployeeApiException && ((EmployeeApiException) e).getStatus() == 503)
+				.verify();
+	}
+
+}
@@ -0,0 +1,161 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.notMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import com.sample.app.model.Employee;
+import com.sample.app.service.impl.SmileContentNegotiation;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * No response templating here: Smile bodies are binary and must reach the
+ * client byte for byte.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=http://localhost:8888", "employee.client.smile.enabled=true",
+		"employee.client.smile.reprobe-interval-ms=500" })
+public class EmployeeSmileTest {
+
+	private static final String SMILE = "application/x-jackson-smile";
+
+	private final ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+
+	private final ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+
+	@Autowired
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Autowired
+	private SmileContentNegotiation smile;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(
+			WireMockConfiguration.options().port(8888).httpsPort(9999).notifier(new ConsoleNotifier(false)));
+
+	private static Employee buildEmployee(int id, String firstName, String lastName) {
+		Employee emp = new Employee();
+		emp.setId(id);
+		emp.setFirstName(firstName);
+		emp.setLastName(lastName);
+		return emp;
+	}
+
+	private double responseBytes(String operation) {
+		DistributionSummary summary = meterRegistry.find("employee.client.response.size").tag("operation", operation)
+				.summary();
+		return summary == null ? 0 : summary.totalAmount();
+	}
+
+	@Test
+	public void employeesReadAsSmileWithFewerBytes() throws Exception {
+
+		List<Employee> emps = new ArrayList<>();
+		for (int i = 1; i <= 2000; i++) {
+			emps.add(buildEmployee(i, "First" + i, "Last" + i));
+		}
+		byte[] json = jsonMapper.writeValueAsBytes(emps);
+		byte[] smileBody = smileMapper.writeValueAsBytes(emps);
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees")).withHeader("Accept", containing(SMILE))
+				.willReturn(aResponse().withStatus(200).withHeader("Content-Type", SMILE).withBody(smileBody)));
+
+		double bytesBefore = responseBytes("emps");
+		List<Employee> received = reactiveEmployeeService.emps().collectList().block();
+
+		assertEquals(emps.size(), received.size());
+		for (int i = 0; i < emps.size(); i++) {
+			assertEquals(emps.get(i).toString(), received.get(i).toString());
+		}
+		assertEquals(smileBody.length, responseBytes("emps") - bytesBefore, 0);
+		assertTrue("smile " + smileBody.length + " json " + json.length, smileBody.length < json.length * 3 / 4);
+	}
+
+	@Test
+	public void jsonStillAcceptedFromServersWithoutSmile() {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/by-name/")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json")
+				.withBody("[{\"id\":1,\"firstName\":\"Kumar\",\"lastName\":\"Gurram\"}]")));
+
+		List<Employee> emps = reactiveEmployeeService.containsName("Kumar").collectList().block();
+
+		assertEquals("Kumar", emps.get(0).getFirstName());
+		wireMockRule.verify(getRequestedFor(urlPathEqualTo("/api/v1/employees/by-name/")).withHeader("Accept",
+				containing(SMILE)).withHeader("Accept", containing("application/json")));
+	}
+
+	@Test
+	public void newEmployeeSentAndReceivedAsSmile() throws Exception {
+
+		Employee created = buildEmployee(21, "Bala", "Gurram");
+		wireMockRule.stubFor(post(urlPathEqualTo("/api/v1/employees")).withHeader("Content-Type", containing(SMILE))
+				.willReturn(aResponse().withStatus(200).withHeader("Content-Type", SMILE)
+						.withBody(smileMapper.writeValueAsBytes(created))));
+
+		Employee emp = reactiveEmployeeService.addEmployee(buildEmployee(0, "Bala", "Gurram")).block();
+
+		assertEquals(created.toString(), emp.toString());
+		LoggedRequest request = wireMockRule.findAll(postRequestedFor(urlPathEqualTo("/api/v1/employees"))).get(0);
+		Employee sent = smileMapper.readValue(request.getBody(), Employee.class);
+		assertEquals("Bala", sent.getFirstName());
+		assertEquals("Gurram", sent.getLastName());
+	}
+
+	@Test
+	public void unsupportedSmileBodyResentAsJson() throws Exception {
+
+		wireMockRule.stubFor(post(urlPathEqualTo("/api/v1/employees")).withHeader("Content-Type", containing(SMILE))
+				.willReturn(aResponse().withStatus(415)));
+		wireMockRule.stubFor(post(urlPathEqualTo("/api/v1/employees"))
+				.withHeader("Content-Type", containing("application/json")).willReturn(aResponse().withStatus(200)
+						.withHeader("Content-Type", "application/json")
+						.withBody("{\"id\":22,\"firstName\":\"Bala\",\"lastName\":\"Gurram\"}")));
+
+		long fallbacksBefore = smile.getFallbacks();
+		try {
+			assertEquals(22, reactiveEmployeeService.addEmployee(buildEmployee(0, "Bala", "Gurram")).block().getId());
+			assertEquals(22, reactiveEmployeeService.addEmployee(buildEmployee(0, "Bala", "Gurram")).block().getId());
+
+			assertEquals(1, smile.getFallbacks() - fallbacksBefore);
+			wireMockRule.verify(1, postRequestedFor(urlPathEqualTo("/api/v1/employees"))
+					.withHeader("Content-Type", containing(SMILE)));
+			wireMockRule.verify(2, postRequestedFor(urlPathEqualTo("/api/v1/employees"))
+					.withHeader("Accept", notMatching(".*smile.*")));
+		} finally {
+			// let the other tests negotiate Smile again
+			Thread.sleep(600);
+		}
+	}
+
+}
@@ -0,0 +1,125 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.exactly;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.common.Json;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.sample.app.model.Employee;
+import com.sample.app.service.impl.EmployeeRestClient;
+
+/**
+ * The WireMock server here has no response templating: running Handlebars over
+ * a multi-megabyte body delays the first byte past the client read timeout.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=http://localhost:8888" })
+public class EmployeeStreamingTest {
+
+	@Autowired
+	private EmployeeRestClient empRestClient;
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(
+			WireMockConfiguration.options().port(8888).httpsPort(9999).notifier(new ConsoleNotifier(false)));
+
+	private static Employee buildEmployee(int id, String firstName, String lastName) {
+		Employee emp = new Employee();
+		emp.setId(id);
+		emp.setFirstName(firstName);
+		emp.setLastName(lastName);
+		return emp;
+	}
+
+	private static final List<Employee> ALL_EMPLOYEES = Arrays.asList(buildEmployee(1, "Deepak", "Moud"),
+			buildEmployee(2, "Srinivasa Rao", "Gumma"), buildEmployee(3, "Purna Chandra", "Rao"),
+			buildEmployee(4, "Madhavi Latha", "Gumma"), buildEmployee(5, "Raghava", "Reddy"),
+			buildEmployee(6, "Ramesh Chandra", "Dokku"));
+
+	@Test
+	public void streamLargeEmployeeArray() {
+
+		int total = 250_000;
+
+		StringBuilder body = new StringBuilder(total * 48).append('[');
+		for (int i = 1; i <= total; i++) {
+			if (i > 1) {
+				body.append(',');
+			}
+			body.append("{\"id\":").append(i).append(",\"firstName\":\"First").append(i)
+					.append("\",\"lastName\":\"Last").append(i).append("\"}");
+		}
+		body.append(']');
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBody(body.toString())));
+
+		AtomicInteger expectedId = new AtomicInteger(1);
+
+		try (Stream<Employee> emps = empRestClient.streamEmps()) {
+			emps.forEach(emp -> {
+				assertEquals(expectedId.get(), emp.getId());
+				assertEquals("First" + expectedId.get(), emp.getFirstName());
+				expectedId.incrementAndGet();
+			});
+		}
+
+		assertEquals(total + 1, expectedId.get());
+		verify(exactly(1), getRequestedFor(urlPathEqualTo("/api/v1/employees")));
+	}
+
+	@Test
+	public void streamEmployeesAsNdjson() {
+
+		String body = ALL_EMPLOYEES.stream().map(Json::write).collect(Collectors.joining("\n"));
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees")).willReturn(
+				aResponse().withStatus(200).withHeader("Content-Type", "application/x-ndjson").withBody(body)));
+
+		try (Stream<Employee> emps = empRestClient.streamEmps()) {
+			assertEquals(6, emps.count());
+		}
+
+		verify(getRequestedFor(urlPathEqualTo("/api/v1/employees")).withHeader("Accept",
+				containing("application/x-ndjson")));
+	}
+
+	@Test
+	public void streamContainsNameStopsEarly() {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/by-name/")).withQueryParam("empName", equalTo("Gumma"))
+				.willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json")
+						.withBody(Json.write(ALL_EMPLOYEES))));
+
+		try (Stream<Employee> emps = empRestClient.streamContainsName("Gumma")) {
+			List<Employee> firstTwo = emps.limit(2).collect(Collectors.toList());
+
+			assertEquals(2, firstTwo.size());
+		}
+	}
+
+}
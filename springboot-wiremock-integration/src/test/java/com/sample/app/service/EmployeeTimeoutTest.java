@@ -0,0 +1,143 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.anyRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.anyUrl;
+import static com.github.tomakehurst.wiremock.client.WireMock.delete;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.matching;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.sample.app.service.Polling.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.sample.app.config.EmployeeConnectionPool;
+import com.sample.app.exception.EmployeeApiException;
+import com.sample.app.exception.EmployeeApiException.Fault;
+import com.sample.app.model.Employee;
+
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=http://localhost:8888", "employee.client.pool.max-connections=1",
+		"employee.client.timeouts.operations.byId.first-byte=300ms",
+		"employee.client.timeouts.operations.emps.total=500ms",
+		"employee.client.timeouts.operations.deleteEmployee.connect=200ms" })
+public class EmployeeTimeoutTest {
+
+	@Autowired
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Autowired
+	private EmployeeConnectionPool connectionPool;
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(WireMockConfiguration.options().port(8888).httpsPort(9999)
+			.notifier(new ConsoleNotifier(false)).extensions(new ResponseTemplateTransformer(true)));
+
+	private static boolean isTimeout(Throwable e) {
+		return e instanceof EmployeeApiException && ((EmployeeApiException) e).getFault() == Fault.TIMEOUT;
+	}
+
+	@Test
+	public void budgetOfOneOperationLeavesOthersAlone() {
+
+		wireMockRule.stubFor(get(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("employeeByIdTemplate.json")
+				.withFixedDelay(1000)));
+		wireMockRule.stubFor(post(urlPathEqualTo("/api/v1/employees")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("newEmployeeTemplate.json")
+				.withFixedDelay(1000)));
+
+		long start = System.nanoTime();
+		StepVerifier.create(reactiveEmployeeService.byId(1)).expectErrorMatches(EmployeeTimeoutTest::isTimeout)
+				.verify();
+		assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 900);
+
+		Employee emp = new Employee();
+		emp.setFirstName("Ram");
+		StepVerifier.create(reactiveEmployeeService.addEmployee(emp)).expectNextCount(1).verifyComplete();
+	}
+
+	@Test
+	public void totalBudgetBoundsReadingTheBody() {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("allEmployees.json")
+				.withChunkedDribbleDelay(5, 1500)));
+
+		long start = System.nanoTime();
+		StepVerifier.create(reactiveEmployeeService.emps()).thenConsumeWhile(emp -> true)
+				.expectErrorMatches(EmployeeTimeoutTest::isTimeout).verify();
+		assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1200);
+	}
+
+	@Test
+	public void connectBudgetBoundsTheWaitForAPooledConnection() throws InterruptedException {
+
+		wireMockRule.stubFor(post(urlPathEqualTo("/api/v1/employees")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("newEmployeeTemplate.json")
+				.withFixedDelay(1000)));
+		wireMockRule.stubFor(delete(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(aResponse()
+				.withStatus(200).withHeader("Content-Type", "application/json").withBody("{\"id\":1}")));
+
+		// holds the only connection for a second
+		Disposable add = reactiveEmployeeService.addEmployee(new Employee()).subscribe();
+		try {
+			await(() -> connectionPool.getActiveConnections() == 1);
+			StepVerifier.create(reactiveEmployeeService.deleteEmployee(1))
+					.expectErrorMatches(e -> isTimeout(e) && e.getMessage().contains("no connection")).verify();
+		} finally {
+			add.dispose();
+		}
+	}
+
+	@Test
+	public void deadlineIsSharedByRetriesAndSentAlong() {
+
+		wireMockRule.stubFor(get(urlPathMatching("/api/v1/employees/[0-9]+"))
+				.willReturn(aResponse().withStatus(503).withFixedDelay(200)));
+
+		StepVerifier
+				.create(reactiveEmployeeService.byId(1).retry(10)
+						.subscriberContext(EmployeeDeadline.in(Duration.ofMillis(700))))
+				.expectErrorMatches(EmployeeTimeoutTest::isTimeout).verify();
+
+		int sent = wireMockRule.findAll(anyRequestedFor(anyUrl())).size();
+		assertTrue("sent " + sent, sent >= 2 && sent <= 4);
+		wireMockRule.verify(sent, getRequestedFor(urlPathEqualTo("/api/v1/employees/1"))
+				.withHeader("X-Request-Timeout-Ms", matching("[1-9][0-9]*")));
+	}
+
+	@Test
+	public void passedDeadlineSendsNothing() {
+
+		StepVerifier
+				.create(reactiveEmployeeService.byId(1)
+						.subscriberContext(EmployeeDeadline.at(Instant.now().minusSeconds(1))))
+				.expectErrorMatches(EmployeeTimeoutTest::isTimeout).verify();
+
+		assertEquals(0, wireMockRule.findAll(anyRequestedFor(anyUrl())).size());
+	}
+
+}
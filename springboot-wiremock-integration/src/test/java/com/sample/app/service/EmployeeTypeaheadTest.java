@@ -0,0 +1,172 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.sample.app.service.Polling.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.sample.app.config.EmployeeConnectionPool;
+import com.sample.app.model.Employee;
+import com.sample.app.model.NameSuggestions;
+
+import reactor.core.publisher.DirectProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=http://localhost:8888", "employee.client.typeahead.debounce-ms=100",
+		"employee.client.typeahead.max-results=5" })
+public class EmployeeTypeaheadTest {
+
+	private static final String RA = "[{\"id\":1,\"firstName\":\"Ram\",\"lastName\":\"Ponnam\"},"
+			+ "{\"id\":2,\"firstName\":\"Lakshman\",\"lastName\":\"Gurram\"},"
+			+ "{\"id\":3,\"firstName\":\"Sita\",\"lastName\":\"Ramaiah\"},"
+			+ "{\"id\":4,\"firstName\":\"Bharat\",\"lastName\":\"Kumar\"}]";
+
+	private static final String RAM = "[{\"id\":1,\"firstName\":\"Ram\",\"lastName\":\"Ponnam\"}]";
+
+	@Autowired
+	private EmployeeTypeaheadService typeahead;
+
+	@Autowired
+	private EmployeeConnectionPool connectionPool;
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(WireMockConfiguration.options().port(8888).httpsPort(9999)
+			.containerThreads(16).asynchronousResponseEnabled(true).notifier(new ConsoleNotifier(false)));
+
+	private void stubSearch(String name, String body, int delayMillis) {
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/by-name/")).withQueryParam("empName", equalTo(name))
+				.willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json").withBody(body)
+						.withFixedDelay(delayMillis)));
+	}
+
+	private void verifySearches(int count, String name) {
+		wireMockRule.verify(count,
+				getRequestedFor(urlPathEqualTo("/api/v1/employees/by-name/")).withQueryParam("empName", equalTo(name)));
+	}
+
+	/**
+	 * Emits {@code queries} one after the other, each {@code pauseMillis}
+	 * after the one before.
+	 */
+	private static Flux<String> typed(long pauseMillis, String... queries) {
+		return Flux.fromArray(queries).concatMap(query -> Mono.just(query).delayElement(Duration.ofMillis(pauseMillis)));
+	}
+
+	private static List<Integer> ids(NameSuggestions suggestions) {
+		return suggestions.getEmployees().stream().map(Employee::getId).collect(Collectors.toList());
+	}
+
+	@Test
+	public void keystrokesWithinDebounceSearchedOnce() {
+
+		stubSearch("Ram", RAM, 0);
+
+		List<NameSuggestions> answers = typeahead.suggestions(typed(20, "R", "Ra", "Ram")).collectList().block();
+
+		assertEquals(1, answers.size());
+		assertEquals("Ram", answers.get(0).getQuery());
+		assertEquals(Arrays.asList(1), ids(answers.get(0)));
+		verifySearches(0, "R");
+		verifySearches(0, "Ra");
+	}
+
+	@Test
+	public void supersededSearchCancelledAndReleasesItsConnection() throws InterruptedException {
+
+		stubSearch("Ra", RA, 3000);
+		stubSearch("Ram", RAM, 100);
+		// an open connection, so that "Ra" is on the wire when "Ram" comes
+		typeahead.suggestions(Flux.just("Ram")).blockLast();
+
+		long started = System.nanoTime();
+		List<NameSuggestions> answers = typeahead.suggestions(typed(400, "Ra", "Ram")).collectList()
+				.block(Duration.ofSeconds(10));
+
+		assertEquals(1, answers.size());
+		assertEquals("Ram", answers.get(0).getQuery());
+		// the slow answer to "Ra" is neither waited for nor holding a connection
+		assertTrue(System.nanoTime() - started < Duration.ofMillis(2500).toNanos());
+		await(() -> connectionPool.getActiveConnections() == 0);
+		assertTrue(System.nanoTime() - started < Duration.ofMillis(3000).toNanos());
+	}
+
+	@Test
+	public void longerQueriesNarrowCompleteAnswer() {
+
+		stubSearch("Ra", RA, 0);
+
+		DirectProcessor<String> queries = DirectProcessor.create();
+		StepVerifier.create(typeahead.suggestions(queries)).then(() -> queries.onNext("Ra"))
+				.assertNext(answer -> assertEquals(Arrays.asList(1, 2, 3, 4), ids(answer)))
+				.then(() -> queries.onNext("Ram"))
+				.assertNext(answer -> assertEquals(Arrays.asList(1, 2, 3), ids(answer)))
+				.then(() -> queries.onNext("rama")).assertNext(answer -> assertEquals(Arrays.asList(3), ids(answer)))
+				.then(queries::onComplete).verifyComplete();
+
+		verifySearches(1, "Ra");
+		verifySearches(0, "Ram");
+	}
+
+	@Test
+	public void cappedAnswerNotNarrowed() {
+
+		// as many as the server returns at most, so there may be more
+		stubSearch("Ra", "[{\"id\":1,\"firstName\":\"Ram\",\"lastName\":\"Ponnam\"},"
+				+ "{\"id\":2,\"firstName\":\"Lakshman\",\"lastName\":\"Gurram\"},"
+				+ "{\"id\":3,\"firstName\":\"Sita\",\"lastName\":\"Ramaiah\"},"
+				+ "{\"id\":4,\"firstName\":\"Bharat\",\"lastName\":\"Kumar\"},"
+				+ "{\"id\":5,\"firstName\":\"Radha\",\"lastName\":\"Krishna\"}]", 0);
+		stubSearch("Ram", "[{\"id\":1,\"firstName\":\"Ram\",\"lastName\":\"Ponnam\"},"
+				+ "{\"id\":6,\"firstName\":\"Ramesh\",\"lastName\":\"Babu\"}]", 0);
+
+		DirectProcessor<String> queries = DirectProcessor.create();
+		StepVerifier.create(typeahead.suggestions(queries)).then(() -> queries.onNext("Ra"))
+				.assertNext(answer -> assertEquals(Arrays.asList(1, 2, 3, 4, 5), ids(answer)))
+				.then(() -> queries.onNext("Ram"))
+				.assertNext(answer -> assertEquals(Arrays.asList(1, 6), ids(answer)))
+				.then(queries::onComplete).verifyComplete();
+
+		verifySearches(1, "Ram");
+	}
+
+	@Test
+	public void failedSearchReportedAndTypingContinues() {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/by-name/")).withQueryParam("empName", equalTo("Ra"))
+				.willReturn(aResponse().withStatus(400)));
+		stubSearch("Sita", "[{\"id\":3,\"firstName\":\"Sita\",\"lastName\":\"Ramaiah\"}]", 0);
+
+		DirectProcessor<String> queries = DirectProcessor.create();
+		StepVerifier.create(typeahead.suggestions(queries)).then(() -> queries.onNext("Ra")).assertNext(answer -> {
+			assertFalse(answer.isFound());
+			assertEquals(400, answer.getError().getStatus());
+		}).then(() -> queries.onNext("Sita")).assertNext(answer -> assertEquals(Arrays.asList(3), ids(answer)))
+				.then(queries::onComplete).verifyComplete();
+	}
+
+}
@@ -0,0 +1,137 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.autoconfigure.web.reactive.function.client.ClientHttpConnectorAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.junit.WireMockClassRule;
+import com.sample.app.App;
+import com.sample.app.config.EmployeeBulkheads;
+import com.sample.app.config.EmployeeConnectionPool;
+import com.sample.app.model.Employee;
+import com.sample.app.service.impl.ConnectionWarmup;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * The warm-up runs while the context starts, so WireMock has to be up before:
+ * a class rule instead of the usual rule.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=https://localhost:9999", "employee.client.tls.trust-all=true",
+		"employee.client.warmup.enabled=true", "employee.client.warmup.connections=4",
+		"employee.client.bulkheads.enabled=true", "employee.client.bulkheads.writes.max-connections=2",
+		"employee.client.bulkheads.bulk.max-connections=1" })
+public class EmployeeWarmupTest {
+
+	private static final int CONNECTIONS = 4;
+
+	/**
+	 * Without Spring Boot's Reactor resources, which would shut down the
+	 * event loops that this test's context shares when closed.
+	 */
+	private static final String[] COLD = { "server.baseuri=https://localhost:9999",
+			"employee.client.tls.trust-all=true", "employee.client.warmup.enabled=false",
+			"employee.client.bulkheads.enabled=true",
+			"spring.autoconfigure.exclude=" + ClientHttpConnectorAutoConfiguration.class.getName() };
+
+	@ClassRule
+	public static WireMockClassRule wireMockRule = new WireMockClassRule(WireMockConfiguration.options().port(8888)
+			.httpsPort(9999).notifier(new ConsoleNotifier(false)).extensions(new ResponseTemplateTransformer(true)));
+
+	@Autowired
+	private WebClient webClient;
+
+	@Autowired
+	private ConnectionWarmup warmup;
+
+	@Autowired
+	private EmployeeConnectionPool connectionPool;
+
+	@Autowired
+	private EmployeeBulkheads bulkheads;
+
+	/**
+	 * Times as many concurrent first requests over the shared pool of
+	 * {@code webClient} as the warm-up opens connections: a handshake each
+	 * without it. The same request over the bulk calls' pool first sets up
+	 * everything else, so that only the connections make a difference.
+	 */
+	private static Duration firstRequests(WebClient webClient, EmployeeBulkheads bulkheads) {
+		assertNotNull(webClient.get().uri("api/v1/employees/1")
+				.attribute(EmployeeBulkheads.POOL, bulkheads.poolOf("emps").getName()).retrieve()
+				.bodyToMono(Employee.class).block());
+		long start = System.nanoTime();
+		assertEquals(CONNECTIONS, Flux.range(1, CONNECTIONS).flatMap(
+				i -> webClient.get().uri("api/v1/employees/1").retrieve().bodyToMono(Employee.class))
+				.count().block().intValue());
+		return Duration.ofNanos(System.nanoTime() - start);
+	}
+
+	/**
+	 * The first requests of an application that starts without a warm-up.
+	 */
+	private static Duration coldFirstRequests() {
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(App.class)
+				.web(WebApplicationType.NONE).properties(COLD).run()) {
+			return firstRequests(context.getBean(WebClient.class), context.getBean(EmployeeBulkheads.class));
+		}
+	}
+
+	@Test
+	public void firstCallFindsAWarmTlsConnection() {
+
+		wireMockRule.stubFor(get(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json")
+				.withBody("{\"id\":1,\"firstName\":\"Ram\",\"lastName\":\"Ponnam\"}")));
+
+		assertTrue(warmup.isDone());
+		// 4 in the shared pool, and as many as the bulkheads' pools take
+		assertEquals(CONNECTIONS + 2 + 1, warmup.getWarmedConnections());
+		assertEquals(CONNECTIONS, connectionPool.getIdleConnections());
+		assertEquals(2, bulkheads.poolOf("addEmployee").getIdleConnections());
+		assertEquals(1, bulkheads.poolOf("emps").getIdleConnections());
+
+		// first, so that the warm calls do not find the code any hotter
+		Duration cold = coldFirstRequests();
+
+		long acquiresBefore = connectionPool.getAcquireCount();
+		Duration warm = firstRequests(webClient, bulkheads);
+
+		// the calls reused connections instead of paying for connects and handshakes again
+		assertEquals(CONNECTIONS, connectionPool.getTotalConnections());
+		assertEquals(CONNECTIONS, connectionPool.getAcquireCount() - acquiresBefore);
+
+		assertTrue("first calls took " + warm.toMillis() + " ms after the warm-up, " + cold.toMillis()
+				+ " ms without", warm.compareTo(cold) < 0);
+
+		Health health = warmup.health();
+		assertEquals(Status.UP, health.getStatus());
+		assertEquals(7, health.getDetails().get("connections"));
+	}
+
+}
@@ -0,0 +1,221 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.delete;
+import static com.github.tomakehurst.wiremock.client.WireMock.patch;
+import static com.github.tomakehurst.wiremock.client.WireMock.put;
+import static com.github.tomakehurst.wiremock.client.WireMock.putRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.github.tomakehurst.wiremock.matching.RequestPatternBuilder;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import com.sample.app.exception.EmployeeApiException;
+import com.sample.app.model.Employee;
+import com.sample.app.service.impl.WriteBehindQueue;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The PUT stubs echo the request body, so every caller can see which state
+ * was written.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=http://localhost:8888",
+		"employee.client.write-behind.enabled=true", "employee.client.write-behind.window-ms=300",
+		"employee.client.write-behind.concurrency=2" })
+public class EmployeeWriteBehindTest {
+
+	@Autowired
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Autowired
+	private WriteBehindQueue writeBehind;
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(WireMockConfiguration.options().port(8888).httpsPort(9999)
+			.containerThreads(16).asynchronousResponseEnabled(true).notifier(new ConsoleNotifier(false))
+			.extensions(new ResponseTemplateTransformer(true)));
+
+	private static Employee buildEmployee(int id, String firstName, String lastName) {
+		Employee emp = new Employee();
+		emp.setId(id);
+		emp.setFirstName(firstName);
+		emp.setLastName(lastName);
+		return emp;
+	}
+
+	private void stubEcho(int delayMillis) {
+		wireMockRule.stubFor(put(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBody("{{{request.body}}}")
+				.withFixedDelay(delayMillis)));
+	}
+
+	/**
+	 * Requests of any method to {@code path}, in the order they arrived.
+	 */
+	private List<LoggedRequest> writesOf(String path) {
+		List<LoggedRequest> writes = new ArrayList<>(
+				wireMockRule.findAll(RequestPatternBuilder.newRequestPattern(RequestMethod.ANY, urlPathEqualTo(path))));
+		writes.sort(Comparator.comparing(LoggedRequest::getLoggedDate));
+		return writes;
+	}
+
+	@Test
+	public void updatesOfOneIdWrittenOnceWithLatestState() {
+
+		stubEcho(0);
+		long writesBefore = writeBehind.getWrites();
+
+		List<Mono<Employee>> updates = new ArrayList<>();
+		for (int i = 1; i <= 10; i++) {
+			updates.add(reactiveEmployeeService.updateEmployee(7, buildEmployee(7, "Ram", "Version" + i)));
+		}
+		List<Employee> written = Flux.merge(updates).collectList().block();
+
+		assertEquals(10, written.size());
+		for (Employee emp : written) {
+			assertEquals("Version10", emp.getLastName());
+		}
+		wireMockRule.verify(1, putRequestedFor(urlPathEqualTo("/api/v1/employees/7")));
+		wireMockRule.verify(putRequestedFor(urlPathEqualTo("/api/v1/employees/7"))
+				.withRequestBody(containing("Version10")));
+		assertEquals(1, writeBehind.getWrites() - writesBefore);
+	}
+
+	@Test
+	public void flushWritesAtOnceAndWaitsForDurability() {
+
+		stubEcho(0);
+
+		reactiveEmployeeService.updateEmployee(8, buildEmployee(8, "Bala", "Gurram")).subscribe();
+		reactiveEmployeeService.updateEmployee(9, buildEmployee(9, "Sita", "Ramaiah")).subscribe();
+		long start = System.nanoTime();
+		writeBehind.flush().block(Duration.ofSeconds(5));
+
+		assertTrue("flush waited for the window", System.nanoTime() - start < Duration.ofMillis(300).toNanos());
+		wireMockRule.verify(1, putRequestedFor(urlPathEqualTo("/api/v1/employees/8")));
+		wireMockRule.verify(1, putRequestedFor(urlPathEqualTo("/api/v1/employees/9")));
+		assertEquals(0, writeBehind.getPending());
+	}
+
+	@Test
+	public void updateDuringWriteOfSameIdWrittenAfterIt() {
+
+		stubEcho(200);
+
+		reactiveEmployeeService.updateEmployee(10, buildEmployee(10, "Ram", "Before")).subscribe();
+		writeBehind.flush().subscribe();
+		Employee after = reactiveEmployeeService.updateEmployee(10, buildEmployee(10, "Ram", "After")).block();
+
+		assertEquals("After", after.getLastName());
+		List<LoggedRequest> puts = new ArrayList<>(
+				wireMockRule.findAll(putRequestedFor(urlPathEqualTo("/api/v1/employees/10"))));
+		puts.sort(Comparator.comparing(LoggedRequest::getLoggedDate));
+		assertEquals(2, puts.size());
+		assertTrue(puts.get(0).getBodyAsString().contains("Before"));
+		assertTrue(puts.get(1).getBodyAsString().contains("After"));
+		// the second write waited for the answer to the first
+		assertTrue(puts.get(1).getLoggedDate().getTime() - puts.get(0).getLoggedDate().getTime() >= 200);
+	}
+
+	@Test
+	public void deleteAfterUpdateSentAfterTheUpdate() {
+
+		stubEcho(100);
+		wireMockRule.stubFor(delete(urlPathEqualTo("/api/v1/employees/12")).willReturn(aResponse().withStatus(200)));
+
+		Mono<Employee> update = reactiveEmployeeService.updateEmployee(12, buildEmployee(12, "Ram", "Gone")).cache();
+		update.subscribe();
+		reactiveEmployeeService.deleteEmployee(12).block(Duration.ofSeconds(5));
+
+		assertEquals("Gone", update.block(Duration.ofSeconds(5)).getLastName());
+		List<LoggedRequest> writes = writesOf("/api/v1/employees/12");
+		assertEquals(2, writes.size());
+		assertEquals(RequestMethod.PUT, writes.get(0).getMethod());
+		assertEquals(RequestMethod.DELETE, writes.get(1).getMethod());
+		// the delete waited for the answer to the update
+		assertTrue(writes.get(1).getLoggedDate().getTime() - writes.get(0).getLoggedDate().getTime() >= 100);
+	}
+
+	@Test
+	public void patchAfterUpdateNotOverwrittenByIt() {
+
+		stubEcho(0);
+		wireMockRule.stubFor(patch(urlPathEqualTo("/api/v1/employees/13")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBody("{\"id\":13,\"lastName\":\"Patched\"}")));
+
+		reactiveEmployeeService.updateEmployee(13, buildEmployee(13, "Ram", "Full")).subscribe();
+		Employee patched = reactiveEmployeeService
+				.patchEmployee(13, Collections.singletonMap("lastName", "Patched")).block(Duration.ofSeconds(5));
+
+		assertEquals("Patched", patched.getLastName());
+		List<LoggedRequest> writes = writesOf("/api/v1/employees/13");
+		assertEquals(2, writes.size());
+		assertEquals(RequestMethod.PUT, writes.get(0).getMethod());
+		assertEquals(RequestMethod.PATCH, writes.get(1).getMethod());
+	}
+
+	@Test
+	public void writesLimitedToConfiguredConcurrency() {
+
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+
+		List<Mono<Employee>> updates = new ArrayList<>();
+		for (int id = 100; id < 110; id++) {
+			updates.add(writeBehind.update(id, buildEmployee(id, "First", "Last"),
+					(empId, emp) -> Mono.delay(Duration.ofMillis(50)).thenReturn(emp)
+							.doOnSubscribe(s -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+							.doOnSuccessOrError((written, error) -> inFlight.decrementAndGet())));
+		}
+		Flux.merge(updates).blockLast(Duration.ofSeconds(5));
+
+		assertEquals(2, maxInFlight.get());
+	}
+
+	@Test
+	public void failedWriteReportedToEveryCoalescedUpdate() {
+
+		wireMockRule.stubFor(put(urlPathEqualTo("/api/v1/employees/11")).willReturn(aResponse().withStatus(500)));
+
+		AtomicInteger failures = new AtomicInteger();
+		List<Mono<Employee>> updates = new ArrayList<>();
+		for (int i = 1; i <= 3; i++) {
+			updates.add(reactiveEmployeeService.updateEmployee(11, buildEmployee(11, "Ram", "Version" + i))
+					.doOnError(e -> e instanceof EmployeeApiException && ((EmployeeApiException) e).getStatus() == 500,
+							e -> failures.incrementAndGet())
+					.onErrorResume(e -> Mono.empty()));
+		}
+		Flux.merge(updates).blockLast(Duration.ofSeconds(5));
+
+		assertEquals(3, failures.get());
+		wireMockRule.verify(1, putRequestedFor(urlPathEqualTo("/api/v1/employees/11")));
+	}
+
+}
@@ -0,0 +1,28 @@
+package com.sample.app.service;
+
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Waiting in tests for what the client does in the background.
+ */
+public final class Polling {
+
+	private Polling() {
+	}
+
+	/**
+	 * Polls {@code condition} every 20 ms and fails the test if it does not
+	 * hold within 5 seconds.
+	 */
+	public static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (!condition.getAsBoolean()) {
+			assertTrue("condition not met in time", System.nanoTime() < deadline);
+			Thread.sleep(20);
+		}
+	}
+
+}
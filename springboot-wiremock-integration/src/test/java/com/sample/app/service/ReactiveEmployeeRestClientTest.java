@@ -0,0 +1,152 @@
+package com.sample.app.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.exactly;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.serverError;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.sample.app.exception.EmployeeApiException;
+import com.sample.app.model.Employee;
+
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = { "server.baseuri=http://localhost:8888" })
+public class ReactiveEmployeeRestClientTest {
+
+	@Autowired
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Autowired
+	private AsyncEmployeeService asyncEmployeeService;
+
+	@Rule
+	public WireMockRule wireMockRule = new WireMockRule(WireMockConfiguration.options().port(8888).httpsPort(9999)
+			.containerThreads(64).asynchronousResponseEnabled(true).notifier(new ConsoleNotifier(false))
+			.extensions(new ResponseTemplateTransformer(true)));
+
+	@Test
+	public void nothingIsSentUntilSubscribed() {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/3")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("employeeByIdTemplate.json")));
+
+		reactiveEmployeeService.byId(3);
+		verify(exactly(0), getRequestedFor(urlPathEqualTo("/api/v1/employees/3")));
+
+		StepVerifier.create(reactiveEmployeeService.byId(3))
+				.assertNext(emp -> assertEquals("Ram", emp.getFirstName())).verifyComplete();
+		verify(exactly(1), getRequestedFor(urlPathEqualTo("/api/v1/employees/3")));
+	}
+
+	@Test
+	public void allEmployeesAsFlux() {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("allEmployees.json")));
+
+		StepVerifier.create(reactiveEmployeeService.emps()).expectNextMatches(emp -> emp.getId() == 1)
+				.expectNextMatches(emp -> emp.getId() == 2).verifyComplete();
+	}
+
+	@Test
+	public void containsNameAsFlux() {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/by-name/")).withQueryParam("empName", equalTo("Kumar"))
+				.willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json")
+						.withBodyFile("queryNameTemplate.json")));
+
+		StepVerifier.create(reactiveEmployeeService.containsName("Kumar"))
+				.expectNextMatches(emp -> "Kumar".equals(emp.getFirstName()))
+				.expectNextMatches(emp -> "Kumar".equals(emp.getLastName())).verifyComplete();
+	}
+
+	@Test
+	public void serverErrorSignalledAsEmployeeApiException() {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/1")).willReturn(serverError()));
+
+		StepVerifier.create(reactiveEmployeeService.byId(1)).expectError(EmployeeApiException.class).verify();
+	}
+
+	@Test
+	public void concurrentLookupsDoNotHoldCallerThreads() {
+
+		int lookups = 200;
+
+		wireMockRule.stubFor(get(urlPathMatching("/api/v1/employees/[0-9]+")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("employeeByIdTemplate.json")
+				.withFixedDelay(500)));
+
+		long start = System.nanoTime();
+
+		List<Employee> emps = Flux.range(1, lookups).flatMap(reactiveEmployeeService::byId, lookups).collectList()
+				.block(Duration.ofSeconds(30));
+
+		long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+		assertEquals(lookups, emps.size());
+		// run serially this would take at least lookups * 500ms
+		assertTrue("took " + elapsedMillis + "ms", elapsedMillis < lookups * 500 / 4);
+	}
+
+	@Test
+	public void asyncLookupCompletesFuture() throws Exception {
+
+		wireMockRule.stubFor(post(urlPathEqualTo("/api/v1/employees")).willReturn(aResponse().withStatus(200)
+				.withHeader("Content-Type", "application/json").withBodyFile("newEmployeeTemplate.json")));
+
+		Employee emp = new Employee();
+		emp.setFirstName("Bala");
+		emp.setLastName("Gurram");
+
+		CompletableFuture<Employee> future = asyncEmployeeService.addEmployee(emp);
+
+		assertEquals("Bala", future.get().getFirstName());
+		assertEquals("Gurram", future.get().getLastName());
+	}
+
+	@Test
+	public void asyncLookupFailureCompletesFutureExceptionally() throws Exception {
+
+		wireMockRule.stubFor(get(urlPathEqualTo("/api/v1/employees/1")).willReturn(serverError()));
+
+		CompletableFuture<Employee> future = asyncEmployeeService.byId(1);
+
+		try {
+			future.get();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof EmployeeApiException);
+			return;
+		}
+		throw new AssertionError("expected the future to complete exceptionally");
+	}
+
+}
@@ -0,0 +1,118 @@
+package com.sample.app.service.impl;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.sample.app.model.Employee;
+
+/**
+ * Substring and prefix searches in a {@link NameTrigramIndex} of 1M employees
+ * with made-up names, next to scanning all names. The setup prints the
+ * estimated and the measured heap taken by the index, employees included.
+ * The index needs a heap of 2 GB or more.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class NameTrigramIndexBenchmark {
+
+	private static final int SIZE = 1_000_000;
+
+	private static final String CONSONANTS = "bcdfghjklmnprstvwyz";
+
+	private static final String VOWELS = "aeiou";
+
+	@Param({ "vobuk", "mar", "ra" })
+	private String query;
+
+	private List<Employee> employees;
+
+	private NameTrigramIndex index;
+
+	private static String name(Random random) {
+		StringBuilder name = new StringBuilder();
+		for (int i = 2 + random.nextInt(3); i > 0; i--) {
+			name.append(CONSONANTS.charAt(random.nextInt(CONSONANTS.length())))
+					.append(VOWELS.charAt(random.nextInt(VOWELS.length())));
+			if (random.nextBoolean()) {
+				name.append(CONSONANTS.charAt(random.nextInt(CONSONANTS.length())));
+			}
+		}
+		name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+		return name.toString();
+	}
+
+	@Setup
+	public void setUp() {
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		System.gc();
+		long before = memory.getHeapMemoryUsage().getUsed();
+
+		Random random = new Random(42);
+		employees = new ArrayList<>(SIZE);
+		for (int i = 1; i <= SIZE; i++) {
+			Employee emp = new Employee();
+			emp.setId(i);
+			emp.setFirstName(name(random));
+			emp.setLastName(name(random));
+			employees.add(emp);
+		}
+
+		index = new NameTrigramIndex(employees);
+		System.gc();
+		long after = memory.getHeapMemoryUsage().getUsed();
+
+		System.out.printf("%n%d employees: %d MB estimated, %d MB measured, %d hits for '%s'%n", SIZE,
+				index.estimatedBytes() >> 20, (after - before) >> 20, index.containing(query).size(), query);
+	}
+
+	@Benchmark
+	public int containing() {
+		return index.containing(query).size();
+	}
+
+	@Benchmark
+	public int startingWith() {
+		return index.startingWith(query).size();
+	}
+
+	@Benchmark
+	public int scan() {
+		int found = 0;
+		for (Employee emp : employees) {
+			if (emp.getFirstName().toLowerCase(Locale.ROOT).contains(query)
+					|| emp.getLastName().toLowerCase(Locale.ROOT).contains(query)) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(NameTrigramIndexBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}